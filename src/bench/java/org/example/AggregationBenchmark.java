@@ -0,0 +1,53 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the statistics read from the materialized counters with the same GROUP BY queries run by
+ * H2, which scan the whole table each time: the histogram of the decades and the authors having the
+ * most books. The counters are recounted during the setup, so the benchmark measures the reads only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class AggregationBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Setup(Level.Trial)
+    public void load() throws SQLException {
+        BenchmarkData.load(rows);
+        Database.getBookSummary();
+    }
+
+    @Benchmark
+    public SortedMap<Object, Long> decadesFromCounters() throws SQLException {
+        return Database.countBooksBy(BookGrouping.DECADE);
+    }
+
+    @Benchmark
+    public String decadesFromGroupBy() throws SQLException {
+        return Database.executeQuery("SELECT YEAR / 10 * 10 AS DECADE, COUNT(*) AS BOOKS FROM BOOKS"
+                + " GROUP BY DECADE ORDER BY DECADE");
+    }
+
+    @Benchmark
+    public List<BookCounters.GroupCount> topAuthorsFromCounters() throws SQLException {
+        return Database.largestGroups(BookGrouping.AUTHOR, 10);
+    }
+
+    @Benchmark
+    public String topAuthorsFromGroupBy() throws SQLException {
+        return Database.executeQuery("SELECT AUTHOR, COUNT(*) AS BOOKS FROM BOOKS"
+                + " GROUP BY AUTHOR ORDER BY BOOKS DESC, AUTHOR LIMIT 10");
+    }
+}
@@ -0,0 +1,52 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the batch import of {@link Database#addBooks} with one {@link Database#addBook} call per row.
+ * Each invocation loads the same rows into an empty BOOKS table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BatchImportBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"500", "5000"})
+    public int chunkSize;
+
+    private List<Book> books;
+
+    @Setup(Level.Trial)
+    public void launch() throws SQLException {
+        Database.launchDatabase(Database.dataScript);
+        books = BenchmarkData.books(rows);
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyTable() throws SQLException {
+        BenchmarkData.truncate();
+    }
+
+    @Benchmark
+    public long batched() throws SQLException {
+        return Database.addBooks(books, chunkSize, null);
+    }
+
+    @Benchmark
+    public long rowByRow() throws SQLException {
+        for (Book book : books) {
+            Database.addBook(book.id(), book.title(), book.author(), book.publisher(), book.year(), book.synopsis());
+        }
+        return books.size();
+    }
+}
@@ -0,0 +1,119 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares a JMH result file with the baseline, both in the CSV format written by the bench profile.
+ *
+ * Each score of the result, and its allocation rate per operation from the GC profiler, is compared with
+ * the baseline score of the same benchmark and parameters. The scores worse than the baseline by more
+ * than the threshold are reported as regressions and make the comparison exit with status 1.
+ *
+ * Usage: {@code BenchmarkComparison <baseline.csv> <result.csv> [threshold percent, default 10]}
+ */
+public class BenchmarkComparison {
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.csv> <result.csv> [threshold percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        Map<String, Score> baseline = read(Path.of(args[0]));
+        Map<String, Score> result = read(Path.of(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : result.entrySet()) {
+            Score current = entry.getValue();
+            Score previous = baseline.get(entry.getKey());
+            if (previous == null) {
+                System.out.printf(Locale.ROOT, "%-90s %14.3f %-8s (no baseline)%n", entry.getKey(), current.value,
+                        current.unit);
+                continue;
+            }
+            double change = previous.value == 0 ? 0 : (current.value - previous.value) / previous.value * 100;
+            boolean worse = current.higherIsBetter ? change < -threshold : change > threshold;
+            if (worse) {
+                regressions++;
+            }
+            System.out.printf(Locale.ROOT, "%-90s %14.3f -> %14.3f %-8s %+7.1f%%%s%n", entry.getKey(),
+                    previous.value, current.value, current.unit, change, worse ? "  REGRESSION" : "");
+        }
+        System.out.println(regressions + " regression(s) above " + threshold + "%");
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    /**
+     * Reads the primary scores and allocation rates of a result file, keyed by benchmark and parameters.
+     */
+    private static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            return scores;
+        }
+        List<String> header = fields(lines.get(0));
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        int unit = header.indexOf("Unit");
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = fields(line);
+            String benchmark = fields.get(0);
+            int metric = benchmark.indexOf(':');
+            if (metric >= 0 && !benchmark.endsWith(ALLOCATION_METRIC)) {
+                continue;
+            }
+
+            StringBuilder key = new StringBuilder(benchmark);
+            for (int i = unit + 1; i < fields.size(); i++) {
+                key.append(' ').append(header.get(i).replace("Param: ", "")).append('=').append(fields.get(i));
+            }
+            boolean higherIsBetter = metric < 0 && fields.get(mode).equals("thrpt");
+            scores.put(key.toString(), new Score(Double.parseDouble(fields.get(score)), fields.get(unit),
+                    higherIsBetter));
+        }
+        return scores;
+    }
+
+    /**
+     * Splits a CSV line into its fields, removing the quotes.
+     */
+    private static List<String> fields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private record Score(double value, String unit, boolean higherIsBetter) {
+    }
+}
@@ -0,0 +1,143 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Generates reproducible catalogues for the benchmarks.
+ */
+final class BenchmarkData {
+    private static final String[] WORDS = {
+            "night", "river", "shadow", "garden", "empire", "winter", "silent", "glass", "storm", "ocean",
+            "forest", "memory", "golden", "kingdom", "secret", "broken", "letter", "journey", "stranger", "house",
+            "mountain", "dream", "fire", "island", "crown", "sister", "war", "peace", "city", "machine",
+            "moon", "road", "voice", "child", "stone", "orchard", "harbor", "winds", "lantern", "promise",
+            "painter", "captain", "widow", "prince", "thief", "clock", "mirror", "bridge", "valley", "library"
+    };
+    private static final String[] FIRST_NAMES = {
+            "Anna", "Boris", "Clara", "David", "Elena", "Felix", "Grace", "Hugo", "Iris", "Jonas",
+            "Karin", "Louis", "Maria", "Nils", "Olga", "Pablo", "Rosa", "Simon", "Tessa", "Victor"
+    };
+    private static final String[] LAST_NAMES = {
+            "Austen", "Brontë", "Calvino", "Dumas", "Eliot", "Faulkner", "Gogol", "Hugo", "Ibsen", "Joyce",
+            "Kafka", "Lessing", "Mann", "Nabokov", "Orwell", "Proust", "Rilke", "Sand", "Tolstoy", "Woolf"
+    };
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Generates books with IDs from 0 to rows - 1. The same row count always gives the same books.
+     *
+     * @param rows the number of books
+     * @return the generated books
+     */
+    static List<Book> books(int rows) {
+        List<Book> books = new ArrayList<>(rows);
+        generate(rows).forEach(books::add);
+        return books;
+    }
+
+    /**
+     * Generates the same books as {@link #books(int)} while they are iterated, for catalogues too large
+     * to be held in a list.
+     *
+     * @param rows the number of books
+     * @return the generated books, generated again at each iteration
+     */
+    static Iterable<Book> generate(int rows) {
+        return () -> new Iterator<>() {
+            private final Random random = new Random(42);
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < rows;
+            }
+
+            @Override
+            public Book next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int i = next++;
+                String title = capitalize(word(random)) + " of the " + word(random);
+                String author = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                        + LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " " + (i % 500);
+                String publisher = capitalize(word(random)) + " Press " + (i % 100);
+                String synopsis = "A story about a " + word(random) + ", a " + word(random) + " and the "
+                        + word(random) + ".";
+                return new Book(i, title, author, publisher, 1800 + random.nextInt(225), synopsis);
+            }
+        };
+    }
+
+    /**
+     * Launches the database and fills it with the generated books.
+     *
+     * @param rows the number of books
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    static void load(int rows) throws SQLException {
+        Database.launchDatabase(Database.dataScript);
+        truncate();
+        Database.addBooks(generate(rows), 10_000, null);
+    }
+
+    /**
+     * Empties the BOOKS table, or the memory engine with {@code books.engine=memory}. Both go through
+     * {@link Database}, which notifies the listeners of a reload, so that the indexes, caches and
+     * counters do not keep the books removed.
+     *
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    static void truncate() throws SQLException {
+        if (Database.isMemoryEngine()) {
+            // The schema script holds no book, so loading it gives an empty store
+            Database.launchDatabase(Database.schemaScript);
+            return;
+        }
+        try {
+            Path script = Files.createTempFile("books-truncate", ".sql");
+            try {
+                Files.writeString(script, "TRUNCATE TABLE BOOKS;\n");
+                Database.runUpdateScript(script.toString());
+            } finally {
+                Files.deleteIfExists(script);
+            }
+        } catch (IOException e) {
+            throw new SQLException("Failed to write the truncate script", e);
+        }
+    }
+
+    /**
+     * Deletes the books from the given ID onwards with {@link Database#deleteBook(int)}, so that the
+     * listeners forget them too.
+     *
+     * @param firstId the first ID to delete
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    static void deleteFrom(int firstId) throws SQLException {
+        List<Book> page;
+        while (!(page = Database.listBooks(firstId - 1, 1_000)).isEmpty()) {
+            for (Book book : page) {
+                Database.deleteBook(book.id());
+            }
+        }
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,43 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the lookups of a keystroke of the live search: the completions of the title, author and
+ * publisher, which must stay well under a 16 ms frame on a catalogue of 1M books.
+ * The index is built during the setup, so the benchmark measures the lookups only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class CompletionBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"m", "moon of", "iris el"})
+    public String prefix;
+
+    @Setup(Level.Trial)
+    public void load() throws SQLException {
+        BenchmarkData.load(rows);
+        Database.complete(BookColumn.TITLE, prefix, 1);
+    }
+
+    @Benchmark
+    public List<String> keystroke() throws SQLException {
+        List<String> completions = new ArrayList<>();
+        completions.addAll(Database.complete(BookColumn.TITLE, prefix, 5));
+        completions.addAll(Database.complete(BookColumn.AUTHOR, prefix, 5));
+        completions.addAll(Database.complete(BookColumn.PUBLISHER, prefix, 5));
+        return completions;
+    }
+}
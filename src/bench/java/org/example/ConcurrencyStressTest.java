@@ -0,0 +1,138 @@
+package org.example;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Multi-threaded stress test of {@link Database}: runs a mixed read/write workload on 1, 2, 4... up to
+ * N threads and reports the throughput of each step and its scaling over one thread.
+ *
+ * Each call is 60% {@link Database#getBook(int)}, 15% {@link Database#listBooks(int, int)}, 10%
+ * {@link Database#findByAuthor(String)} and 15% {@link Database#updateBook}. With a reload period, a
+ * separate thread also reloads the database from a snapshot at that period, checking that calls in
+ * flight are drained instead of failing. Any failed call makes the test exit with status 1.
+ *
+ * Usage: {@code ConcurrencyStressTest [rows, default 100000] [seconds per step, default 10]
+ * [max threads, default the number of processors] [reload period in seconds, default 0 for none]}
+ */
+public class ConcurrencyStressTest {
+    private static final LongAdder operations = new LongAdder();
+    private static final LongAdder errors = new LongAdder();
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int reloadSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+        Database.poolSize = maxThreads;
+        BenchmarkData.load(rows);
+        Path snapshot = Files.createTempFile("books-stress", BookSnapshot.EXTENSION);
+        if (reloadSeconds > 0) {
+            Database.exportSnapshot(snapshot.toString(), null);
+        }
+
+        System.out.printf(Locale.ROOT, "%-8s %12s %10s %8s%n", "threads", "ops/s", "scaling", "errors");
+        double single = 0;
+        List<Integer> steps = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            steps.add(threads);
+        }
+        steps.add(maxThreads);
+        for (int threads : steps) {
+            // One short unmeasured step warms up the JIT and the caches at this thread count
+            run(threads, rows, Math.max(1, seconds / 5), reloadSeconds, snapshot);
+            operations.reset();
+            long elapsed = run(threads, rows, seconds, reloadSeconds, snapshot);
+            double throughput = operations.sum() * 1e9 / elapsed;
+            if (threads == 1) {
+                single = throughput;
+            }
+            System.out.printf(Locale.ROOT, "%-8d %12.0f %9.2fx %8d%n", threads, throughput, throughput / single,
+                    errors.sum());
+        }
+        Files.deleteIfExists(snapshot);
+        System.exit(errors.sum() == 0 ? 0 : 1);
+    }
+
+    /**
+     * Runs the workload on the given number of threads for the given time.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    private static long run(int threads, int rows, int seconds, int reloadSeconds, Path snapshot)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(Thread.ofPlatform().name("stress-" + i).start(() -> {
+                while (running.get()) {
+                    call(rows);
+                }
+            }));
+        }
+        Thread reloader = null;
+        if (reloadSeconds > 0) {
+            reloader = Thread.ofPlatform().name("stress-reload").start(() -> {
+                while (running.get()) {
+                    try {
+                        Thread.sleep(reloadSeconds * 1_000L);
+                        if (running.get()) {
+                            Database.launchDatabase(snapshot.toString());
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        errors.increment();
+                    }
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1_000L);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (reloader != null) {
+            reloader.join();
+        }
+        return elapsed;
+    }
+
+    private static void call(int rows) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = random.nextInt(rows);
+        int draw = random.nextInt(100);
+        try {
+            if (draw < 60) {
+                Database.getBook(id);
+            } else if (draw < 75) {
+                Database.listBooks(id, 50);
+            } else if (draw < 85) {
+                Book book = Database.getBook(id);
+                if (book != null) {
+                    Database.findByAuthor(book.author());
+                }
+            } else {
+                Database.updateBook(id, "Stress " + id, "Stress Author", "Stress Press", 2000 + id % 25,
+                        "Updated by the stress test.");
+            }
+            operations.increment();
+        } catch (Exception e) {
+            if (errors.sum() < 10) {
+                e.printStackTrace();
+            }
+            errors.increment();
+        }
+    }
+}
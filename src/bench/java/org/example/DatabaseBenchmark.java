@@ -0,0 +1,91 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the read operations of {@link Database} as the table grows from 1K to 1M books.
+ *
+ * The lookups rotate over a sample of books spread over the table. Past the first round they are
+ * answered by the find cache, as they would be in the application. The write operations are measured
+ * by {@link DatabaseWriteBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class DatabaseBenchmark {
+    private static final int SAMPLES = 64;
+    private static final int QUERY_ROWS = 100;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int rows;
+
+    private Book[] samples;
+    private int next;
+    private File output;
+
+    @Setup(Level.Trial)
+    public void load() throws SQLException, IOException {
+        BenchmarkData.load(rows);
+        samples = new Book[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = Database.getBook((int) ((long) i * rows / SAMPLES));
+        }
+        output = File.createTempFile("books-benchmark", ".sql");
+        output.deleteOnExit();
+    }
+
+    private Book sample() {
+        next = (next + 1) % SAMPLES;
+        return samples[next];
+    }
+
+    @Benchmark
+    public String findByTitle() throws SQLException {
+        return Database.findByTitle(sample().title());
+    }
+
+    @Benchmark
+    public String findByAuthor() throws SQLException {
+        return Database.findByAuthor(sample().author());
+    }
+
+    @Benchmark
+    public String findByPublisher() throws SQLException {
+        return Database.findByPublisher(sample().publisher());
+    }
+
+    @Benchmark
+    public String findByYear() throws SQLException {
+        return Database.findByYear(sample().year());
+    }
+
+    @Benchmark
+    public String executeQuery() throws SQLException {
+        int id = sample().id();
+        return Database.executeQuery("SELECT * FROM BOOKS WHERE ID BETWEEN " + id + " AND " + (id + QUERY_ROWS - 1));
+    }
+
+    @Benchmark
+    public List<Book> allItems() throws SQLException {
+        return Database.allItems();
+    }
+
+    @Benchmark
+    public String viewAllBooksAsString() throws SQLException {
+        return Database.viewAllBooksAsString();
+    }
+
+    @Benchmark
+    public long exportDatabase() throws SQLException, IOException {
+        return Database.exportDatabase(output.getPath(), Database.exportRowsPerStatement, false, null);
+    }
+}
@@ -0,0 +1,72 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Database#addBook}, {@link Database#updateBook} and {@link Database#deleteBook} as the
+ * table grows from 1K to 1M books.
+ *
+ * Each iteration runs a fixed batch of calls, so that the table keeps its size: the added books are
+ * removed after each iteration and the books to delete are added, after the IDs of the table, before it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, batchSize = DatabaseWriteBenchmark.BATCH)
+@Measurement(iterations = 10, batchSize = DatabaseWriteBenchmark.BATCH)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class DatabaseWriteBenchmark {
+    static final int BATCH = 1_000;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int rows;
+
+    private int nextId;
+    private int updated;
+
+    @Setup(Level.Trial)
+    public void load() throws SQLException {
+        BenchmarkData.load(rows);
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration(BenchmarkParams params) throws SQLException {
+        nextId = rows;
+        if (params.getBenchmark().endsWith(".deleteBook")) {
+            List<Book> books = BenchmarkData.books(BATCH).stream()
+                    .map(book -> new Book(rows + book.id(), book.title(), book.author(), book.publisher(),
+                            book.year(), book.synopsis()))
+                    .toList();
+            Database.addBooks(books);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeAdded() throws SQLException {
+        BenchmarkData.deleteFrom(rows);
+    }
+
+    @Benchmark
+    public void addBook() throws SQLException {
+        int id = nextId++;
+        Database.addBook(id, "Title " + id, "Author " + id % 500, "Publisher " + id % 100, 1800 + id % 225,
+                "Synopsis " + id);
+    }
+
+    @Benchmark
+    public void updateBook() throws SQLException {
+        int id = updated++ % rows;
+        Database.updateBook(id, "Updated title " + id, "Author " + id % 500, "Publisher " + id % 100,
+                1800 + updated % 225, "Updated synopsis " + id);
+    }
+
+    @Benchmark
+    public void deleteBook() throws SQLException {
+        Database.deleteBook(nextId++);
+    }
+}
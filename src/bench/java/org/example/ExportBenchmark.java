@@ -0,0 +1,78 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Database#exportDatabase(String, int, boolean, ProgressListener)} with the former
+ * exporter, which wrote one String.format INSERT per row through an unbuffered FileWriter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ExportBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private File output;
+
+    @Setup(Level.Trial)
+    public void load() throws SQLException, IOException {
+        BenchmarkData.load(rows);
+        output = File.createTempFile("books-export", ".sql");
+        output.deleteOnExit();
+    }
+
+    @Benchmark
+    public long multiRowInserts() throws SQLException, IOException {
+        return Database.exportDatabase(output.getPath(), 100, false, null);
+    }
+
+    @Benchmark
+    public long multiRowInsertsGzip() throws SQLException, IOException {
+        return Database.exportDatabase(output.getPath(), 100, true, null);
+    }
+
+    @Benchmark
+    public long formerExporter() throws SQLException, IOException {
+        long count = 0;
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:default");
+             Statement stmt = conn.createStatement();
+             FileWriter writer = new FileWriter(output)) {
+
+            ResultSet rs = stmt.executeQuery("SELECT * FROM BOOKS");
+            while (rs.next()) {
+                int id = rs.getInt("ID");
+                String title = rs.getString("TITLE").replace("'", "''");
+                String author = rs.getString("AUTHOR").replace("'", "''");
+                String publisher = rs.getString("PUBLISHER").replace("'", "''");
+                int year = rs.getInt("PUBLICATION_YEAR");
+                String synopsis = rs.getString("SYNOPSIS");
+
+                if (synopsis != null) {
+                    synopsis = synopsis.replace("'", "''");
+                    writer.write(String.format("INSERT INTO BOOKS (ID, TITLE, AUTHOR, PUBLISHER, PUBLICATION_YEAR, SYNOPSIS) VALUES (%d, '%s', '%s', '%s', %d, '%s');\n",
+                            id, title, author, publisher, year, synopsis));
+                } else {
+                    writer.write(String.format("INSERT INTO BOOKS (ID, TITLE, AUTHOR, PUBLISHER, PUBLICATION_YEAR) VALUES (%d, '%s', '%s', '%s', %d);\n",
+                            id, title, author, publisher, year));
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,52 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of the {@code Database.find*} lookups as the table grows.
+ * With the secondary indexes of schema.sql, the latency should depend on the number of matching
+ * rows rather than on the size of the table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class LookupBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int rows;
+
+    private Book sample;
+
+    @Setup(Level.Trial)
+    public void load() throws SQLException {
+        BenchmarkData.load(rows);
+        Database.verifyIndexes();
+        sample = Database.getBook(rows / 2);
+    }
+
+    @Benchmark
+    public String findByTitle() throws SQLException {
+        return Database.findByTitle(sample.title());
+    }
+
+    @Benchmark
+    public String findByAuthor() throws SQLException {
+        return Database.findByAuthor(sample.author());
+    }
+
+    @Benchmark
+    public String findByPublisher() throws SQLException {
+        return Database.findByPublisher(sample.publisher());
+    }
+
+    @Benchmark
+    public String findByYear() throws SQLException {
+        return Database.findByYear(sample.year());
+    }
+}
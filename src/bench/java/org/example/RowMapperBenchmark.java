@@ -0,0 +1,70 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost per row of the semicolon-joined strings formerly built by {@link Database#allItems()}
+ * and parsed back with split by the UI, with {@link BookRowMapper}.
+ * Run with {@code -prof gc} to see the allocation per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMapperBenchmark {
+    private static final int ROWS = 10_000;
+
+    private Connection connection;
+    private PreparedStatement select;
+
+    @Setup(Level.Trial)
+    public void launch() throws SQLException {
+        BenchmarkData.load(ROWS);
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:default");
+        select = connection.prepareStatement("SELECT * FROM BOOKS");
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void formatAndSplit(Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+                String line = String.format("%d;%s;%s;%s;%d;%s", rs.getInt("ID"), rs.getString("TITLE"),
+                        rs.getString("AUTHOR"), rs.getString("PUBLISHER"), rs.getInt("PUBLICATION_YEAR"),
+                        rs.getString("SYNOPSIS"));
+                String[] details = line.split(";");
+                blackhole.consume(Integer.parseInt(details[0]));
+                blackhole.consume(details);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void rowMapper(Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = select.executeQuery()) {
+            BookRowMapper mapper = new BookRowMapper(rs);
+            while (rs.next()) {
+                Book book = mapper.map(rs);
+                blackhole.consume(book.id());
+                blackhole.consume(book);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares saving a few changed books as a delta with {@link Database#saveChanges()} against writing the
+ * whole table again with {@link Database#exportDatabase(String, int, boolean, ProgressListener)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SaveChangesBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"1", "100"})
+    public int changes;
+
+    private File base;
+
+    @Setup(Level.Trial)
+    public void load() throws SQLException, IOException {
+        BenchmarkData.load(rows);
+        base = File.createTempFile("books-base", ".sql");
+        base.deleteOnExit();
+        Database.exportDatabase(base.getPath(), 100, false, null);
+    }
+
+    @Setup(Level.Invocation)
+    public void change() throws SQLException {
+        for (int i = 0; i < changes; i++) {
+            Book book = Database.getBook(i * (rows / changes));
+            Database.updateBook(book.id(), book.title(), book.author(), book.publisher(), book.year() + 1,
+                    book.synopsis());
+        }
+    }
+
+    @Benchmark
+    public Path saveChanges() throws IOException {
+        return Database.saveChanges();
+    }
+
+    @Benchmark
+    public long fullExport() throws SQLException, IOException {
+        return Database.exportDatabase(base.getPath(), 100, false, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDeltas() throws IOException {
+        ChangeJournal.deleteDeltas(Path.of(base.getPath()));
+    }
+}
@@ -0,0 +1,59 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Database#launchDatabase(String)}, which loads the data script with a
+ * {@link ScriptLoader}, with the former RUNSCRIPT of the whole script, on scripts written by the exporter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ScriptLoaderBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"1", "100"})
+    public int rowsPerStatement;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private File script;
+
+    @Setup(Level.Trial)
+    public void writeScript() throws SQLException, IOException {
+        BenchmarkData.load(rows);
+        script = File.createTempFile("books-load", ".sql");
+        script.deleteOnExit();
+        Database.exportDatabase(script.getPath(), rowsPerStatement, false, null);
+        Database.loaderThreads = threads;
+    }
+
+    @Benchmark
+    public long scriptLoader() throws SQLException {
+        return Database.launchDatabase(script.getPath()).rows();
+    }
+
+    @Benchmark
+    public void runScript() throws SQLException {
+        Database.launchDatabase(Database.dataScript);
+        BenchmarkData.truncate();
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:default");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("RUNSCRIPT FROM '" + script.getPath().replace("'", "''") + "'");
+        }
+    }
+}
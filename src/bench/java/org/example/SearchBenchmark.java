@@ -0,0 +1,45 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Database#search} with the LIKE scans users ran in the query box.
+ * The index is built during the setup, so the benchmark measures the lookups only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SearchBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"lantern", "golden harbor", "kingdm"})
+    public String words;
+
+    @Setup(Level.Trial)
+    public void load() throws SQLException {
+        BenchmarkData.load(rows);
+        Database.search(words, 1);
+    }
+
+    @Benchmark
+    public List<Book> fullTextIndex() throws SQLException {
+        return Database.search(words, 20);
+    }
+
+    @Benchmark
+    public String likeScan() throws SQLException {
+        String pattern = "'%" + words.split(" ")[0] + "%'";
+        return Database.executeQuery("SELECT * FROM BOOKS WHERE LOWER(TITLE) LIKE " + pattern
+                + " OR LOWER(AUTHOR) LIKE " + pattern + " OR LOWER(PUBLISHER) LIKE " + pattern
+                + " OR LOWER(SYNOPSIS) LIKE " + pattern + " LIMIT 20");
+    }
+}
@@ -0,0 +1,129 @@
+package org.example;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test of the {@link BooksServer}: closed-loop clients send a mix of requests for a fixed time,
+ * then the throughput and latency percentiles of each kind of request are reported.
+ *
+ * The mix is 50% {@code GET /books/<id>}, 20% {@code GET /books} pages, 20% {@code GET /search} and 10%
+ * {@code PUT /books/<id>}. Without a URL, the database is filled with generated books and a server is
+ * started on a free port in the same JVM.
+ *
+ * Usage: {@code ServerLoadTest [rows, default 100000] [clients, default 32] [seconds, default 30] [url]}
+ */
+public class ServerLoadTest {
+    private static final String[] KINDS = {"get", "page", "search", "update"};
+    private static final String[] SEARCHES = {"river", "shadow", "garden", "kafka", "press"};
+
+    private static final LogLinearHistogram[] latencies = new LogLinearHistogram[KINDS.length];
+    private static final LongAdder errors = new LongAdder();
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        BooksServer server = null;
+        String url;
+        if (args.length > 3) {
+            url = args[3];
+        } else {
+            BenchmarkData.load(rows);
+            server = new BooksServer(0);
+            server.start();
+            url = "http://localhost:" + server.getPort();
+        }
+        for (int i = 0; i < KINDS.length; i++) {
+            latencies[i] = new LogLinearHistogram();
+        }
+
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5)).build();
+        System.out.printf("Running %d clients for %d s against %s%n", clients, seconds, url);
+
+        // A first run warms up the JIT, then the histograms are cleared for the measured run
+        run(client, url, rows, clients, Math.max(1, seconds / 5));
+        for (LogLinearHistogram histogram : latencies) {
+            histogram.reset();
+        }
+        errors.reset();
+        long elapsed = run(client, url, rows, clients, seconds);
+
+        long total = 0;
+        System.out.printf(Locale.ROOT, "%-8s %10s %10s %10s %10s %10s %10s%n", "request", "count", "req/s",
+                "p50 (µs)", "p99 (µs)", "p99.9 (µs)", "max (µs)");
+        for (int i = 0; i < KINDS.length; i++) {
+            LogLinearHistogram histogram = latencies[i];
+            total += histogram.count();
+            System.out.printf(Locale.ROOT, "%-8s %10d %10.0f %10d %10d %10d %10d%n", KINDS[i], histogram.count(),
+                    histogram.count() * 1e9 / elapsed, histogram.percentile(50) / 1_000,
+                    histogram.percentile(99) / 1_000, histogram.percentile(99.9) / 1_000, histogram.max() / 1_000);
+        }
+        System.out.printf(Locale.ROOT, "total    %10d %10.0f, %d errors%n", total, total * 1e9 / elapsed,
+                errors.sum());
+
+        if (server != null) {
+            server.stop();
+        }
+        System.exit(errors.sum() == 0 ? 0 : 1);
+    }
+
+    /**
+     * Runs the clients, each on its own virtual thread, for the given time.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    private static long run(HttpClient client, String url, int rows, int clients, int seconds) {
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.execute(() -> {
+                    while (System.nanoTime() < end) {
+                        request(client, url, rows);
+                    }
+                });
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void request(HttpClient client, String url, int rows) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = random.nextInt(Math.max(1, rows));
+        int draw = random.nextInt(10);
+        int kind = draw < 5 ? 0 : draw < 7 ? 1 : draw < 9 ? 2 : 3;
+        HttpRequest.Builder request = switch (kind) {
+            case 0 -> HttpRequest.newBuilder(URI.create(url + "/books/" + id));
+            case 1 -> HttpRequest.newBuilder(URI.create(url + "/books?after=" + id + "&limit=50"));
+            case 2 -> HttpRequest.newBuilder(URI.create(url + "/search?limit=20&q="
+                    + SEARCHES[random.nextInt(SEARCHES.length)]));
+            default -> HttpRequest.newBuilder(URI.create(url + "/books/" + id))
+                    .PUT(HttpRequest.BodyPublishers.ofString("{\"TITLE\":\"Load test " + id
+                            + "\",\"AUTHOR\":\"Load\",\"PUBLISHER\":\"Test\",\"PUBLICATION_YEAR\":2024}"));
+        };
+
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = client.send(request.timeout(Duration.ofSeconds(30)).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            // Against a remote server, the generated IDs may not all exist
+            if (response.statusCode() >= 400 && response.statusCode() != 404) {
+                errors.increment();
+            }
+        } catch (Exception e) {
+            errors.increment();
+        }
+        latencies[kind].record(System.nanoTime() - start);
+    }
+}
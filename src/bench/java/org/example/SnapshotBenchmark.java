@@ -0,0 +1,51 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the binary snapshot with the SQL script, gzip compressed or not, for the time to write and
+ * load the table. The file sizes are printed when each trial starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SnapshotBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"snapshot", "sql", "sql.gz"})
+    public String format;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws SQLException, IOException {
+        BenchmarkData.load(rows);
+        file = File.createTempFile("books-snapshot", "." + format);
+        file.deleteOnExit();
+        save();
+        System.out.println(format + " file of " + rows + " books: " + file.length() + " bytes");
+    }
+
+    @Benchmark
+    public long save() throws SQLException, IOException {
+        if (format.equals("snapshot")) {
+            return Database.exportSnapshot(file.getPath(), null);
+        }
+        return Database.exportDatabase(file.getPath(), 100, Database.isCompressed(file.getPath()), null);
+    }
+
+    @Benchmark
+    public long load() throws SQLException {
+        return Database.launchDatabase(file.getPath()).rows();
+    }
+}
@@ -0,0 +1,67 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Database#startDatabase()} in memory, where the data script is loaded at every start,
+ * and with the file store, where a warm start only opens the existing store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class StartupBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"memory", "file"})
+    public String storage;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void createData() throws SQLException, IOException {
+        directory = Files.createTempDirectory("books-startup");
+        BenchmarkData.load(rows);
+        File script = directory.resolve("data.sql").toFile();
+        Database.exportDatabase(script.getPath(), 100, false, null);
+        Database.dataScript = script.getPath();
+
+        Database.storage = storage;
+        Database.storagePath = directory.resolve("books").toString();
+        if (Database.isFileStorage()) {
+            Database.startDatabase();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void stopDatabase() throws SQLException {
+        if (Database.isFileStorage()) {
+            try (Connection conn = DriverManager.getConnection("jdbc:h2:file:"
+                    + Path.of(Database.storagePath).toAbsolutePath());
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("SHUTDOWN");
+            }
+        } else {
+            BenchmarkData.truncate();
+        }
+    }
+
+    @Benchmark
+    public LoadReport startDatabase() throws SQLException {
+        return Database.startDatabase();
+    }
+}
@@ -0,0 +1,109 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the H2 engine with the memory engine of {@code books.engine=memory} on a catalogue of 10M
+ * books: the memory held once the books are loaded, printed when each trial starts, and the latency of
+ * the lookups, pages and updates.
+ *
+ * The books are loaded from a snapshot, as at launch, so that the change journal does not keep them.
+ * The calls rotate over more sample books than the find cache holds, so that the H2 lookups mostly
+ * reach the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx16g", "-XX:MaxDirectMemorySize=4g"})
+public class StorageEngineBenchmark {
+    private static final int SAMPLES = 4_096;
+
+    @Param({"h2", "memory"})
+    public String engine;
+
+    @Param({"10000000"})
+    public int rows;
+
+    private Book[] samples;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void load() throws SQLException, IOException {
+        File snapshot = File.createTempFile("books-engine", BookSnapshot.EXTENSION);
+        snapshot.deleteOnExit();
+        BookSnapshot.write(snapshot.toPath(), BenchmarkData.generate(rows).iterator(), null, rows);
+
+        Database.engine = engine;
+        LoadReport report = Database.launchDatabase(snapshot.getPath());
+        snapshot.delete();
+        printMemory(report);
+
+        samples = new Book[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = Database.getBook((int) ((long) i * rows / SAMPLES));
+        }
+    }
+
+    /**
+     * Prints the heap and direct memory in use after a full collection, once the books are loaded.
+     */
+    private void printMemory(LoadReport report) {
+        System.gc();
+        System.gc();
+        long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long direct = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                direct = pool.getMemoryUsed();
+            }
+        }
+        System.out.printf("%s engine, %d books loaded in %d ms: %d MB of heap, %d MB of direct memory%n", engine,
+                report.rows(), report.elapsedMillis(), heap >> 20, direct >> 20);
+    }
+
+    private Book sample() {
+        next = (next + 1) % SAMPLES;
+        return samples[next];
+    }
+
+    @Benchmark
+    public Book getBook() throws SQLException {
+        return Database.getBook(sample().id());
+    }
+
+    @Benchmark
+    public String findByAuthor() throws SQLException {
+        return Database.findByAuthor(sample().author());
+    }
+
+    @Benchmark
+    public List<Book> listBooks() throws SQLException {
+        return Database.listBooks(sample().id(), 50);
+    }
+
+    @Benchmark
+    public List<Book> listBooksBefore() throws SQLException {
+        return Database.listBooksBefore(sample().id(), 50);
+    }
+
+    @Benchmark
+    public void updateBook() throws SQLException {
+        Book book = sample();
+        // Alternates between two years, so that the year index changes at each call
+        Book updated = new Book(book.id(), book.title(), book.author(), book.publisher(), book.year() ^ 1,
+                book.synopsis());
+        Database.updateBook(updated.id(), updated.title(), updated.author(), updated.publisher(), updated.year(),
+                updated.synopsis());
+        samples[next] = updated;
+    }
+}
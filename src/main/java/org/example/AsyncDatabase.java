@@ -0,0 +1,79 @@
+package org.example;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs database calls on a dedicated executor so that callers, such as the JavaFX application thread,
+ * never block on them.
+ *
+ * The executor uses platform threads, one per pooled connection, or a virtual thread per call when the
+ * {@code books.async.virtualThreads} system property is true. Callers pick the executor their results
+ * are handed to, e.g. {@code future.whenCompleteAsync(handler, Platform::runLater)}.
+ */
+public class AsyncDatabase {
+    private static final ExecutorService executor = createExecutor();
+    private static final ThreadLocal<Future<?>> currentTask = new ThreadLocal<>();
+
+    /**
+     * Creates the executor running the database calls. Its threads are daemon threads so that they do
+     * not keep the JVM alive once the window is closed.
+     */
+    private static ExecutorService createExecutor() {
+        if (Boolean.getBoolean("books.async.virtualThreads")) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("database-", 0).factory());
+        }
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Database.poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "database-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs a database call in the background.
+     *
+     * Cancelling the returned future completes it right away; the call itself stops at its next
+     * {@link #checkCancelled()}, or runs to its end and its result is dropped.
+     *
+     * @param call the database call to run
+     * @param <T>  the type of the result
+     * @return a future completed with the result of the call, or with the exception it threw
+     */
+    public static <T> CompletableFuture<T> submit(Callable<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            currentTask.set(future);
+            try {
+                future.complete(call.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                currentTask.remove();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Stops the calling database call if its future was cancelled. Long operations call it between
+     * steps, for instance from a {@link ProgressListener}.
+     *
+     * @throws CancellationException If the future of the running call was cancelled.
+     */
+    public static void checkCancelled() {
+        Future<?> task = currentTask.get();
+        if (task != null && task.isCancelled()) {
+            throw new CancellationException("Database operation cancelled");
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.example;
+
+/**
+ * A row of the BOOKS table.
+ *
+ * @param id        The ID of the book.
+ * @param title     The title of the book.
+ * @param author    The author of the book.
+ * @param publisher The publisher of the book.
+ * @param year      The publication year of the book.
+ * @param synopsis  The synopsis of the book, may be null.
+ */
+public record Book(int id, String title, String author, String publisher, int year, String synopsis) {
+
+    /**
+     * Formats the book with the name of each field, as shown in the query results.
+     *
+     * @return the labelled book details on one line
+     */
+    public String describe() {
+        return "ID: " + id + ", Title: " + title + ", Author: " + author + ", Publisher: " + publisher
+                + ", Year: " + year + ", Synopsis: " + synopsis;
+    }
+
+    /**
+     * Formats the book on one line, fields separated by semicolons, as shown in the book selection lists.
+     *
+     * @return the book details on one line
+     */
+    public String toLine() {
+        return id + ";" + title + ";" + author + ";" + publisher + ";" + year + ";" + synopsis;
+    }
+}
@@ -1,5 +1,6 @@
 package org.example;
 
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
@@ -8,8 +9,6 @@ import javafx.scene.control.TextField;
 import javafx.scene.layout.GridPane;
 import javafx.stage.Stage;
 
-import java.sql.SQLException;
-
 public class BookAdd extends Stage {
 
     private final TextField idField;
@@ -62,8 +61,8 @@ public class BookAdd extends Stage {
 
         Button addButton = new Button("Add");
         addButton.setOnAction(event -> {
+            addButton.setDisable(true);
             addBook();
-            close();
         });
 
         Button cancelButton = new Button("Cancel");
@@ -78,23 +77,37 @@ public class BookAdd extends Stage {
     }
 
     /**
-     * Tries to add a new book to the database using the input from the text fields.
-     * If the input is valid and the book is successfully added, sets bookAddedSuccessfully to true.
+     * Tries to add a new book to the database using the input from the text fields, in the background,
+     * then closes the form. If the input is valid and the book is successfully added, sets
+     * bookAddedSuccessfully to true.
      */
     private void addBook() {
+        int id;
+        int year;
         try {
-            int id = Integer.parseInt(idField.getText());
-            String title = titleField.getText();
-            String author = authorField.getText();
-            String publisher = publisherField.getText();
-            int year = Integer.parseInt(yearField.getText());
-            String synopsis = synopsisField.getText();
-
-            Database.addBook(id, title, author, publisher, year, synopsis);
-            bookAddedSuccessfully = true;
-        } catch (NumberFormatException | SQLException e) {
+            id = Integer.parseInt(idField.getText());
+            year = Integer.parseInt(yearField.getText());
+        } catch (NumberFormatException e) {
             e.printStackTrace();
+            close();
+            return;
         }
+        String title = titleField.getText();
+        String author = authorField.getText();
+        String publisher = publisherField.getText();
+        String synopsis = synopsisField.getText();
+
+        AsyncDatabase.submit(() -> {
+            Database.addBook(id, title, author, publisher, year, synopsis);
+            return null;
+        }).whenCompleteAsync((result, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+            } else {
+                bookAddedSuccessfully = true;
+            }
+            close();
+        }, Platform::runLater);
     }
 
     /**
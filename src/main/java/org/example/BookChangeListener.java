@@ -0,0 +1,41 @@
+package org.example;
+
+import java.sql.SQLException;
+
+/**
+ * Listener notified by {@link Database} after each change to the BOOKS table, used to keep derived
+ * in-memory structures such as indexes and caches up to date.
+ *
+ * The callbacks run on the thread that made the change, after it was committed.
+ */
+public interface BookChangeListener {
+
+    /**
+     * Called after a book was added.
+     *
+     * @param book the added book
+     */
+    void onAdded(Book book);
+
+    /**
+     * Called after a book was updated.
+     *
+     * @param oldBook the book before the update
+     * @param newBook the book after the update
+     */
+    void onUpdated(Book oldBook, Book newBook);
+
+    /**
+     * Called after a book was deleted.
+     *
+     * @param book the deleted book
+     */
+    void onDeleted(Book book);
+
+    /**
+     * Called after the content of the table was loaded from a script, which may have changed any row.
+     *
+     * @throws SQLException If the listener fails to read the new content.
+     */
+    void onReloaded() throws SQLException;
+}
@@ -0,0 +1,45 @@
+package org.example;
+
+/**
+ * The columns of the BOOKS table.
+ */
+public enum BookColumn {
+    ID("ID"),
+    TITLE("TITLE"),
+    AUTHOR("AUTHOR"),
+    PUBLISHER("PUBLISHER"),
+    YEAR("PUBLICATION_YEAR"),
+    SYNOPSIS("SYNOPSIS");
+
+    private final String columnName;
+
+    BookColumn(String columnName) {
+        this.columnName = columnName;
+    }
+
+    /**
+     * Retrieves the name of the column in the database.
+     *
+     * @return the SQL column name
+     */
+    public String columnName() {
+        return columnName;
+    }
+
+    /**
+     * Retrieves the value of this column for a book.
+     *
+     * @param book the book to read
+     * @return the value of the field, an Integer for ID and YEAR, a String otherwise
+     */
+    public Object get(Book book) {
+        return switch (this) {
+            case ID -> book.id();
+            case TITLE -> book.title();
+            case AUTHOR -> book.author();
+            case PUBLISHER -> book.publisher();
+            case YEAR -> book.year();
+            case SYNOPSIS -> book.synopsis();
+        };
+    }
+}
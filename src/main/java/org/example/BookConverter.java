@@ -0,0 +1,22 @@
+package org.example;
+
+import javafx.util.StringConverter;
+
+/**
+ * Shows books on one line in the book selection lists.
+ */
+public class BookConverter extends StringConverter<Book> {
+
+    @Override
+    public String toString(Book book) {
+        return book == null ? "" : book.toLine();
+    }
+
+    /**
+     * The selection lists are not editable, so text is never converted back to a book.
+     */
+    @Override
+    public Book fromString(String string) {
+        return null;
+    }
+}
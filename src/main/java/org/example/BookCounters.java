@@ -0,0 +1,254 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Materialized counters of the BOOKS table: the number of books, and the number of books of each
+ * author, publisher, year and decade.
+ *
+ * The counters are kept up to date as a {@link BookChangeListener}, each change adding or removing one
+ * to the groups of the books it touched, so reading a count or the range of years costs the same
+ * whatever the size of the table. After a reload they are stale until {@link Database} recounts them
+ * from the books, on the next read.
+ */
+public class BookCounters implements BookChangeListener {
+    private static final BookGrouping[] GROUPINGS = BookGrouping.values();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<BookGrouping, Map<Object, Long>> groups = new EnumMap<>(BookGrouping.class);
+    private long books;
+    private boolean stale = true;
+
+    /**
+     * Creates empty counters, stale until the first recount.
+     */
+    public BookCounters() {
+        groups.put(BookGrouping.AUTHOR, new HashMap<>());
+        groups.put(BookGrouping.PUBLISHER, new HashMap<>());
+        // Sorted, so that the first and last years are read from the ends of the map
+        groups.put(BookGrouping.YEAR, new TreeMap<>());
+        groups.put(BookGrouping.DECADE, new TreeMap<>());
+    }
+
+    @Override
+    public void onAdded(Book book) {
+        lock.writeLock().lock();
+        try {
+            if (!stale) {
+                count(book, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onUpdated(Book oldBook, Book newBook) {
+        lock.writeLock().lock();
+        try {
+            if (!stale) {
+                count(oldBook, -1);
+                count(newBook, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDeleted(Book book) {
+        lock.writeLock().lock();
+        try {
+            if (!stale) {
+                count(book, -1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onReloaded() {
+        lock.writeLock().lock();
+        try {
+            clear();
+            stale = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether the counters must be recounted since the last reload.
+     *
+     * @return true if the counters do not reflect the books
+     */
+    boolean isStale() {
+        lock.readLock().lock();
+        try {
+            return stale;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the books again, then replaces the counters if they are still stale. The caller makes sure
+     * that no change is made or notified meanwhile, as the change could be counted twice, once from the
+     * books and once by its notification.
+     *
+     * @param books all the books
+     */
+    void recount(Stream<Book> books) {
+        // Counted without the lock, so that the reads of the counters wait only for the swap
+        BookCounters counted = new BookCounters();
+        books.forEach(book -> counted.count(book, 1));
+
+        lock.writeLock().lock();
+        try {
+            if (stale) {
+                groups = counted.groups;
+                this.books = counted.books;
+                stale = false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the totals of the table.
+     *
+     * @return the number of books, of distinct authors and publishers, and the range of the years
+     */
+    public Summary summary() {
+        lock.readLock().lock();
+        try {
+            SortedMap<Object, Long> years = (SortedMap<Object, Long>) groups.get(BookGrouping.YEAR);
+            return new Summary(books, groups.get(BookGrouping.AUTHOR).size(), groups.get(BookGrouping.PUBLISHER).size(),
+                    years.isEmpty() ? null : (Integer) years.firstKey(), years.isEmpty() ? null : (Integer) years.lastKey());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of books of a group.
+     *
+     * @param grouping how the books are grouped
+     * @param key      the group, as returned by {@link BookGrouping#key(Book)}
+     * @return the number of books in the group, 0 if there is none
+     */
+    public long count(BookGrouping grouping, Object key) {
+        lock.readLock().lock();
+        try {
+            return groups.get(grouping).getOrDefault(key, 0L);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of books of every group, such as the histogram of the decades.
+     *
+     * @param grouping how the books are grouped
+     * @return a copy of the counts, ordered by group
+     */
+    public SortedMap<Object, Long> counts(BookGrouping grouping) {
+        lock.readLock().lock();
+        try {
+            return Collections.unmodifiableSortedMap(new TreeMap<>(groups.get(grouping)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the groups having the most books, with a bounded heap over the counts.
+     *
+     * @param grouping how the books are grouped
+     * @param limit    the maximum number of groups to return
+     * @return the largest groups, largest first, the groups of the same size ordered by key
+     */
+    public List<GroupCount> largest(BookGrouping grouping, int limit) {
+        Comparator<GroupCount> order = Comparator.comparingLong(GroupCount::books).reversed()
+                .thenComparing(GroupCount::key, BookCounters::compareKeys);
+        PriorityQueue<GroupCount> heap = new PriorityQueue<>(order.reversed());
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Object, Long> group : groups.get(grouping).entrySet()) {
+                // Most groups are smaller than the smallest kept, and are skipped without being compared by key
+                if (heap.size() == limit && group.getValue() < heap.peek().books()) {
+                    continue;
+                }
+                heap.add(new GroupCount(group.getKey(), group.getValue()));
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<GroupCount> largest = new ArrayList<>(heap);
+        largest.sort(order);
+        return largest;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareKeys(Object a, Object b) {
+        return ((Comparable) a).compareTo(b);
+    }
+
+    /**
+     * Adds a book to the counters of its groups, or removes it. Must hold the write lock.
+     *
+     * @param delta 1 to add the book, -1 to remove it
+     */
+    private void count(Book book, int delta) {
+        books += delta;
+        for (BookGrouping grouping : GROUPINGS) {
+            // A group whose count drops to 0 is removed
+            groups.get(grouping).merge(grouping.key(book), (long) delta,
+                    (count, change) -> count + change == 0 ? null : count + change);
+        }
+    }
+
+    private void clear() {
+        books = 0;
+        for (Map<Object, Long> counts : groups.values()) {
+            counts.clear();
+        }
+    }
+
+    /**
+     * The totals of the table.
+     *
+     * @param books      the number of books
+     * @param authors    the number of distinct authors
+     * @param publishers the number of distinct publishers
+     * @param minYear    the earliest publication year, or null if there is no book
+     * @param maxYear    the latest publication year, or null if there is no book
+     */
+    public record Summary(long books, int authors, int publishers, Integer minYear, Integer maxYear) {
+    }
+
+    /**
+     * The number of books of a group.
+     *
+     * @param key   the group, as returned by {@link BookGrouping#key(Book)}
+     * @param books the number of books in the group
+     */
+    public record GroupCount(Object key, long books) {
+    }
+}
@@ -1,5 +1,6 @@
 package org.example;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
@@ -9,12 +10,12 @@ import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
-import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class BookDelete extends Stage {
 
-    private ComboBox<String> comboBox;
+    private final ComboBox<Book> comboBox = new ComboBox<>();
     private boolean isDeleted = false;
 
     /**
@@ -25,24 +26,37 @@ public class BookDelete extends Stage {
      */
     public BookDelete(Scene primaryScene) {
         Label label = new Label("Select a book to delete:");
-        try {
-            List<String> allBooks = Database.allItems();
-            comboBox = new ComboBox<>(FXCollections.observableArrayList(allBooks));
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        comboBox.setConverter(new BookConverter());
+        comboBox.setPromptText("Loading books...");
+        // The books are read in the background, as reading the whole table would freeze the dialog
+        CompletableFuture<List<Book>> loading = AsyncDatabase.submit(Database::allItems);
+        loading.whenCompleteAsync((allBooks, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                comboBox.setPromptText("Failed to load the books");
+            } else {
+                comboBox.setItems(FXCollections.observableArrayList(allBooks));
+                comboBox.setPromptText(null);
+            }
+        }, Platform::runLater);
+        setOnHidden(event -> loading.cancel(false));
 
         Button deleteButton = new Button("Delete book");
         deleteButton.setOnAction(event -> {
-            String selectedBook = comboBox.getSelectionModel().getSelectedItem();
+            Book selectedBook = comboBox.getSelectionModel().getSelectedItem();
             if (selectedBook != null) {
-                try {
-                    Database.deleteBook(getId(selectedBook));
-                    isDeleted = true;
-                    this.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
+                deleteButton.setDisable(true);
+                AsyncDatabase.submit(() -> {
+                    Database.deleteBook(selectedBook.id());
+                    return null;
+                }).whenCompleteAsync((result, error) -> {
+                    if (error != null) {
+                        error.printStackTrace();
+                    } else {
+                        isDeleted = true;
+                    }
+                    close();
+                }, Platform::runLater);
             }
         });
 
@@ -67,17 +81,6 @@ public class BookDelete extends Stage {
         setTitle("Delete Book");
     }
 
-    /**
-     * Extracts the ID of the selected book from the ComboBox item.
-     *
-     * @param selectedBook the selected book string from the ComboBox
-     * @return the ID of the selected book
-     */
-    private int getId(String selectedBook) {
-        String[] split = selectedBook.split(";");
-        return Integer.parseInt(split[0]);
-    }
-
     /**
      * Checks if the book was successfully deleted.
      *
@@ -0,0 +1,44 @@
+package org.example;
+
+import java.util.Locale;
+
+/**
+ * Interchange file formats of the books, besides SQL scripts and snapshots.
+ */
+public enum BookFileFormat {
+    /**
+     * Comma separated values with a header line, quoted as in RFC 4180.
+     */
+    CSV(".csv"),
+    /**
+     * One flat JSON object per line.
+     */
+    JSON_LINES(".jsonl", ".ndjson");
+
+    private final String[] extensions;
+
+    BookFileFormat(String... extensions) {
+        this.extensions = extensions;
+    }
+
+    /**
+     * Finds the format of a file from its name, ignoring a trailing ".gz".
+     *
+     * @param file the path of the file
+     * @return the format of the file, or null if its extension is not one of the formats
+     */
+    public static BookFileFormat forFile(String file) {
+        String name = file.toLowerCase(Locale.ROOT);
+        if (Database.isCompressed(name)) {
+            name = name.substring(0, name.length() - ".gz".length());
+        }
+        for (BookFileFormat format : values()) {
+            for (String extension : format.extensions) {
+                if (name.endsWith(extension)) {
+                    return format;
+                }
+            }
+        }
+        return null;
+    }
+}
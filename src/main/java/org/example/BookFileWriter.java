@@ -0,0 +1,183 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes books as CSV, with a header line, or as JSON Lines, optionally gzip compressed.
+ *
+ * The fields and their names come from a {@link ColumnMapping}. Books are written through a large
+ * buffer as they come, so memory use does not depend on their number.
+ */
+class BookFileWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer writer;
+    private final BookFileFormat format;
+    private final Map<BookColumn, String> fields;
+
+    /**
+     * Opens the file, replacing its content, and writes the CSV header.
+     *
+     * @param file     the file to write
+     * @param format   the format of the file
+     * @param mapping  the columns to write and their field names
+     * @param compress whether to gzip the file
+     * @throws IOException If the file cannot be opened.
+     */
+    BookFileWriter(Path file, BookFileFormat format, ColumnMapping mapping, boolean compress) throws IOException {
+        this(open(file, compress, mapping), format, mapping);
+    }
+
+    /**
+     * Writes the books to a character stream, such as the standard output, and writes the CSV header.
+     *
+     * @param writer  the stream to write, closed with this writer
+     * @param format  the format of the books
+     * @param mapping the columns to write and their field names
+     * @throws IOException If there is an issue with writing the header.
+     */
+    BookFileWriter(Writer writer, BookFileFormat format, ColumnMapping mapping) throws IOException {
+        this.writer = writer;
+        this.format = format;
+        this.fields = mapping.exportFields();
+        if (fields.isEmpty()) {
+            writer.close();
+            throw new IllegalArgumentException("The mapping has no column to export");
+        }
+
+        if (format == BookFileFormat.CSV) {
+            boolean first = true;
+            for (String field : fields.values()) {
+                if (!first) {
+                    writer.write(',');
+                }
+                writeCsv(field);
+                first = false;
+            }
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Opens the file, once the mapping is known to have columns to export.
+     */
+    private static Writer open(Path file, boolean compress, ColumnMapping mapping) throws IOException {
+        if (mapping.exportFields().isEmpty()) {
+            throw new IllegalArgumentException("The mapping has no column to export");
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        OutputStream out = Files.newOutputStream(file);
+        if (compress) {
+            try {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            } catch (IOException e) {
+                // The gzip header is written right away; failing to write it must not leak the file
+                out.close();
+                throw e;
+            }
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Writes a book as one line, or one CSV record.
+     *
+     * @param book the book to write
+     * @throws IOException If there is an issue with writing to the file.
+     */
+    void write(Book book) throws IOException {
+        boolean first = true;
+        if (format == BookFileFormat.JSON_LINES) {
+            writer.write('{');
+        }
+        for (Map.Entry<BookColumn, String> field : fields.entrySet()) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            Object value = field.getKey().get(book);
+            if (format == BookFileFormat.CSV) {
+                if (value != null) {
+                    writeCsv(value.toString());
+                }
+            } else {
+                writeJsonString(field.getValue());
+                writer.write(':');
+                if (value == null || value instanceof Integer) {
+                    writer.write(String.valueOf(value));
+                } else {
+                    writeJsonString((String) value);
+                }
+            }
+        }
+        if (format == BookFileFormat.JSON_LINES) {
+            writer.write('}');
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Writes a CSV field, quoted only if it contains a separator, a quote, a line break or surrounding
+     * spaces.
+     */
+    private void writeCsv(String value) throws IOException {
+        boolean quote = !value.isEmpty() && (value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ');
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private void writeJsonString(String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+        writer.write('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,402 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A condition on the columns of a book, the WHERE clause of a {@link BookQuery}.
+ *
+ * Filters are immutable and built with the static factories, then combined with {@link #and} and
+ * {@link #or}, for instance
+ * {@code BookFilter.between(BookColumn.YEAR, 1900, 1950).and(BookFilter.equalTo(BookColumn.PUBLISHER, "Gallimard"))}.
+ * Values are an Integer for ID and YEAR and a String for the other columns. A filter compiles to SQL with
+ * a {@code ?} placeholder per value, so that two filters of the same shape share their statement, and
+ * can also be tested on a book in memory with the same result as in H2: a null synopsis matches no
+ * condition.
+ */
+public abstract class BookFilter {
+
+    private BookFilter() {
+    }
+
+    /**
+     * Creates a filter on the books whose column is equal to a value.
+     *
+     * @param column the column to compare
+     * @param value  the value, an Integer for ID and YEAR and a String otherwise
+     * @return the filter
+     * @throws IllegalArgumentException If the value is null or not of the type of the column.
+     */
+    public static BookFilter equalTo(BookColumn column, Object value) {
+        return new Comparison(column, Operator.EQUAL, value);
+    }
+
+    /**
+     * Creates a filter on the books whose column is not equal to a value.
+     *
+     * @see #equalTo(BookColumn, Object)
+     */
+    public static BookFilter notEqualTo(BookColumn column, Object value) {
+        return new Comparison(column, Operator.NOT_EQUAL, value);
+    }
+
+    /**
+     * Creates a filter on the books whose column is strictly less than a value. Strings are compared
+     * character by character.
+     *
+     * @see #equalTo(BookColumn, Object)
+     */
+    public static BookFilter lessThan(BookColumn column, Object value) {
+        return new Comparison(column, Operator.LESS, value);
+    }
+
+    /**
+     * Creates a filter on the books whose column is less than or equal to a value.
+     *
+     * @see #lessThan(BookColumn, Object)
+     */
+    public static BookFilter atMost(BookColumn column, Object value) {
+        return new Comparison(column, Operator.LESS_OR_EQUAL, value);
+    }
+
+    /**
+     * Creates a filter on the books whose column is strictly greater than a value.
+     *
+     * @see #lessThan(BookColumn, Object)
+     */
+    public static BookFilter greaterThan(BookColumn column, Object value) {
+        return new Comparison(column, Operator.GREATER, value);
+    }
+
+    /**
+     * Creates a filter on the books whose column is greater than or equal to a value.
+     *
+     * @see #lessThan(BookColumn, Object)
+     */
+    public static BookFilter atLeast(BookColumn column, Object value) {
+        return new Comparison(column, Operator.GREATER_OR_EQUAL, value);
+    }
+
+    /**
+     * Creates a filter on the books whose column is within a range, bounds included.
+     *
+     * @param column the column to compare
+     * @param low    the lowest value accepted
+     * @param high   the highest value accepted
+     * @return the filter
+     * @throws IllegalArgumentException If a bound is null or not of the type of the column.
+     */
+    public static BookFilter between(BookColumn column, Object low, Object high) {
+        return new Between(column, low, high);
+    }
+
+    /**
+     * Creates a filter on the books whose column is equal to one of a list of values. The list is sent as
+     * a single array parameter, so that the statement does not depend on its length.
+     *
+     * @param column the column to compare
+     * @param values the values accepted, at least one
+     * @return the filter
+     * @throws IllegalArgumentException If the list is empty, or a value is null or not of the type of the column.
+     */
+    public static BookFilter in(BookColumn column, List<?> values) {
+        return new In(column, values);
+    }
+
+    /**
+     * Combines this filter with another one, both having to match.
+     *
+     * @param other the other filter
+     * @return the combined filter
+     */
+    public BookFilter and(BookFilter other) {
+        return new Junction(true, this, Objects.requireNonNull(other));
+    }
+
+    /**
+     * Combines this filter with another one, either having to match.
+     *
+     * @param other the other filter
+     * @return the combined filter
+     */
+    public BookFilter or(BookFilter other) {
+        return new Junction(false, this, Objects.requireNonNull(other));
+    }
+
+    /**
+     * Writes the condition as SQL, with a {@code ?} placeholder for each value.
+     *
+     * @param sql        the SQL being written
+     * @param parameters receives the values of the placeholders, in order; arrays for the IN lists
+     */
+    abstract void appendSql(StringBuilder sql, List<Object> parameters);
+
+    /**
+     * Checks whether a book matches the condition.
+     *
+     * @param book the book to test
+     * @return true if the book matches
+     */
+    abstract boolean test(Book book);
+
+    /**
+     * Checks whether the condition reads a column, so that a book read without it cannot be tested.
+     *
+     * @param column the column
+     * @return true if a condition of this filter is on the column
+     */
+    abstract boolean uses(BookColumn column);
+
+    /**
+     * Retrieves an equality every matching book satisfies, so that the books to test can be looked up
+     * in an index instead of scanning the table.
+     *
+     * @return this filter if it is an equality, one of the equalities it requires if it is a conjunction,
+     * or null
+     */
+    Comparison requiredEquality() {
+        return null;
+    }
+
+    /**
+     * Formats the filter as its SQL condition, with the values in place of the placeholders, as shown
+     * in the logs.
+     *
+     * @return the condition
+     */
+    @Override
+    public String toString() {
+        StringBuilder sql = new StringBuilder();
+        List<Object> parameters = new ArrayList<>();
+        appendSql(sql, parameters);
+        StringBuilder text = new StringBuilder();
+        int start = 0;
+        for (Object parameter : parameters) {
+            int placeholder = sql.indexOf("?", start);
+            text.append(sql, start, placeholder).append(format(parameter));
+            start = placeholder + 1;
+        }
+        return text.append(sql, start, sql.length()).toString();
+    }
+
+    private static String format(Object value) {
+        if (value instanceof Object[] values) {
+            StringBuilder list = new StringBuilder();
+            for (Object element : values) {
+                list.append(list.isEmpty() ? "" : ", ").append(format(element));
+            }
+            return list.toString();
+        }
+        return value instanceof String text ? "'" + text.replace("'", "''") + "'" : value.toString();
+    }
+
+    /**
+     * Checks that a value has the type of its column.
+     */
+    private static Object checkValue(BookColumn column, Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null value for " + column.columnName());
+        }
+        Class<?> type = isNumeric(column) ? Integer.class : String.class;
+        if (!type.isInstance(value)) {
+            throw new IllegalArgumentException(column.columnName() + " takes a " + type.getSimpleName() + ", not "
+                    + value.getClass().getSimpleName());
+        }
+        return value;
+    }
+
+    static boolean isNumeric(BookColumn column) {
+        return column == BookColumn.ID || column == BookColumn.YEAR;
+    }
+
+    /**
+     * Compares the value of a column with another value of the same type.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object columnValue, Object value) {
+        return ((Comparable) columnValue).compareTo(value);
+    }
+
+    private enum Operator {
+        EQUAL("="),
+        NOT_EQUAL("<>"),
+        LESS("<"),
+        LESS_OR_EQUAL("<="),
+        GREATER(">"),
+        GREATER_OR_EQUAL(">=");
+
+        private final String sql;
+
+        Operator(String sql) {
+            this.sql = sql;
+        }
+
+        boolean matches(int comparison) {
+            return switch (this) {
+                case EQUAL -> comparison == 0;
+                case NOT_EQUAL -> comparison != 0;
+                case LESS -> comparison < 0;
+                case LESS_OR_EQUAL -> comparison <= 0;
+                case GREATER -> comparison > 0;
+                case GREATER_OR_EQUAL -> comparison >= 0;
+            };
+        }
+    }
+
+    /**
+     * A column compared with a value.
+     */
+    static final class Comparison extends BookFilter {
+        private final BookColumn column;
+        private final Operator operator;
+        private final Object value;
+
+        private Comparison(BookColumn column, Operator operator, Object value) {
+            this.column = column;
+            this.operator = operator;
+            this.value = checkValue(column, value);
+        }
+
+        BookColumn column() {
+            return column;
+        }
+
+        Object value() {
+            return value;
+        }
+
+        @Override
+        void appendSql(StringBuilder sql, List<Object> parameters) {
+            sql.append(column.columnName()).append(' ').append(operator.sql).append(" ?");
+            parameters.add(value);
+        }
+
+        @Override
+        boolean test(Book book) {
+            Object columnValue = column.get(book);
+            return columnValue != null && operator.matches(compare(columnValue, value));
+        }
+
+        @Override
+        boolean uses(BookColumn column) {
+            return this.column == column;
+        }
+
+        @Override
+        Comparison requiredEquality() {
+            return operator == Operator.EQUAL ? this : null;
+        }
+    }
+
+    private static final class Between extends BookFilter {
+        private final BookColumn column;
+        private final Object low;
+        private final Object high;
+
+        private Between(BookColumn column, Object low, Object high) {
+            this.column = column;
+            this.low = checkValue(column, low);
+            this.high = checkValue(column, high);
+        }
+
+        @Override
+        void appendSql(StringBuilder sql, List<Object> parameters) {
+            sql.append(column.columnName()).append(" BETWEEN ? AND ?");
+            parameters.add(low);
+            parameters.add(high);
+        }
+
+        @Override
+        boolean test(Book book) {
+            Object columnValue = column.get(book);
+            return columnValue != null && compare(columnValue, low) >= 0 && compare(columnValue, high) <= 0;
+        }
+
+        @Override
+        boolean uses(BookColumn column) {
+            return this.column == column;
+        }
+    }
+
+    private static final class In extends BookFilter {
+        private final BookColumn column;
+        private final Object[] values;
+
+        private In(BookColumn column, List<?> values) {
+            if (values.isEmpty()) {
+                throw new IllegalArgumentException("No value for " + column.columnName() + " IN");
+            }
+            this.column = column;
+            // Typed arrays, so that the driver knows the type of the SQL array
+            this.values = isNumeric(column) ? new Integer[values.size()] : new String[values.size()];
+            for (int i = 0; i < values.size(); i++) {
+                this.values[i] = checkValue(column, values.get(i));
+            }
+        }
+
+        @Override
+        void appendSql(StringBuilder sql, List<Object> parameters) {
+            sql.append(column.columnName()).append(" = ANY(?)");
+            parameters.add(values.clone());
+        }
+
+        @Override
+        boolean test(Book book) {
+            Object columnValue = column.get(book);
+            if (columnValue != null) {
+                for (Object value : values) {
+                    if (columnValue.equals(value)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        boolean uses(BookColumn column) {
+            return this.column == column;
+        }
+    }
+
+    private static final class Junction extends BookFilter {
+        private final boolean all;
+        private final BookFilter left;
+        private final BookFilter right;
+
+        private Junction(boolean all, BookFilter left, BookFilter right) {
+            this.all = all;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void appendSql(StringBuilder sql, List<Object> parameters) {
+            sql.append('(');
+            left.appendSql(sql, parameters);
+            sql.append(all ? " AND " : " OR ");
+            right.appendSql(sql, parameters);
+            sql.append(')');
+        }
+
+        @Override
+        boolean test(Book book) {
+            return all ? left.test(book) && right.test(book) : left.test(book) || right.test(book);
+        }
+
+        @Override
+        boolean uses(BookColumn column) {
+            return left.uses(column) || right.uses(column);
+        }
+
+        @Override
+        Comparison requiredEquality() {
+            if (!all) {
+                return null;
+            }
+            Comparison equality = left.requiredEquality();
+            return equality != null ? equality : right.requiredEquality();
+        }
+    }
+}
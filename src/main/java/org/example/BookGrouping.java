@@ -0,0 +1,36 @@
+package org.example;
+
+/**
+ * The ways of grouping the books counted by {@link BookCounters}.
+ */
+public enum BookGrouping {
+    AUTHOR,
+    PUBLISHER,
+    YEAR,
+    DECADE;
+
+    /**
+     * Retrieves the group of a book.
+     *
+     * @param book the book to group
+     * @return the author or publisher name, the publication year, or the first year of the decade
+     */
+    public Object key(Book book) {
+        return switch (this) {
+            case AUTHOR -> book.author();
+            case PUBLISHER -> book.publisher();
+            case YEAR -> book.year();
+            case DECADE -> Math.floorDiv(book.year(), 10) * 10;
+        };
+    }
+
+    /**
+     * Formats the key of a group, as shown in the statistics.
+     *
+     * @param key a key returned by {@link #key(Book)}
+     * @return the key, with an "s" after a decade, e.g. "1990s"
+     */
+    public String format(Object key) {
+        return this == DECADE ? key + "s" : String.valueOf(key);
+    }
+}
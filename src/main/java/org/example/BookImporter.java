@@ -0,0 +1,140 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Turns the records of an interchange file into books, lazily, so that they can be streamed into
+ * {@link Database#addBooks(Iterable, int, ProgressListener)}.
+ *
+ * Records that are malformed or do not fit the BOOKS table are skipped and reported with their line.
+ * The iterable can only be iterated once.
+ */
+class BookImporter implements Iterable<Book> {
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private final BookRecordReader reader;
+    private final String[] values = new String[BookColumn.values().length];
+    private final List<ImportReport.Reject> rejects = new ArrayList<>();
+    private long rejectCount;
+
+    /**
+     * Creates an importer.
+     *
+     * @param reader the records to import
+     */
+    BookImporter(BookRecordReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Iterates over the books of the file. Reading errors are thrown as {@link UncheckedIOException}.
+     *
+     * @return an iterator over the valid records
+     */
+    @Override
+    public Iterator<Book> iterator() {
+        return new Iterator<>() {
+            private Book next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    try {
+                        if (!reader.next(values)) {
+                            return false;
+                        }
+                        next = toBook();
+                    } catch (RejectedRecordException e) {
+                        reject(e.getMessage());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Book next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Book book = next;
+                next = null;
+                return book;
+            }
+        };
+    }
+
+    /**
+     * Retrieves the number of rejected records.
+     *
+     * @return the number of records skipped so far
+     */
+    long rejectCount() {
+        return rejectCount;
+    }
+
+    /**
+     * Retrieves the first rejected records.
+     *
+     * @return at most {@link ImportReport#MAX_REPORTED_REJECTS} rejects, in file order
+     */
+    List<ImportReport.Reject> rejects() {
+        return List.copyOf(rejects);
+    }
+
+    private void reject(String reason) {
+        rejectCount++;
+        if (rejects.size() < ImportReport.MAX_REPORTED_REJECTS) {
+            rejects.add(new ImportReport.Reject(reader.line(), reason));
+        }
+    }
+
+    /**
+     * Checks the values of the record against the BOOKS table and builds the book.
+     */
+    private Book toBook() throws RejectedRecordException {
+        int id = integer(BookColumn.ID);
+        int year = integer(BookColumn.YEAR);
+        String title = text(BookColumn.TITLE, true);
+        String author = text(BookColumn.AUTHOR, true);
+        String publisher = text(BookColumn.PUBLISHER, true);
+        String synopsis = text(BookColumn.SYNOPSIS, false);
+        return new Book(id, title, author, publisher, year, synopsis);
+    }
+
+    private int integer(BookColumn column) throws RejectedRecordException {
+        String value = values[column.ordinal()];
+        if (value == null || value.isBlank()) {
+            throw new RejectedRecordException(column.columnName() + " is missing");
+        }
+        try {
+            return Integer.parseInt(value.strip());
+        } catch (NumberFormatException e) {
+            throw new RejectedRecordException(column.columnName() + " is not an integer: " + value);
+        }
+    }
+
+    /**
+     * Reads a text value. Empty values are missing values.
+     */
+    private String text(BookColumn column, boolean required) throws RejectedRecordException {
+        String value = values[column.ordinal()];
+        if (value == null || value.isEmpty()) {
+            if (required) {
+                throw new RejectedRecordException(column.columnName() + " is missing");
+            }
+            return null;
+        }
+        if (value.length() > MAX_TEXT_LENGTH) {
+            throw new RejectedRecordException(column.columnName() + " is longer than " + MAX_TEXT_LENGTH
+                    + " characters");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,307 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A query on the BOOKS table: which books, in which order, how many and which of their columns, run
+ * with {@link Database#findBooks(BookQuery)}.
+ *
+ * Queries are immutable; each method returns a new query, for instance
+ * {@code BookQuery.where(filter).orderBy(BookColumn.YEAR, false).limit(20).select(BookColumn.TITLE, BookColumn.YEAR)}.
+ * On H2 a query compiles to a SQL statement that only depends on its shape, the columns, conditions and
+ * order, with its values passed as parameters, so the statement cache of each connection prepares each
+ * shape once. When the query is ordered, the books that tie on every column of the order are ordered by
+ * ID, so that both engines return the same books under a limit.
+ */
+public final class BookQuery {
+    private static final Set<BookColumn> ALL_COLUMNS = Collections.unmodifiableSet(EnumSet.allOf(BookColumn.class));
+    private static final BookQuery ALL = new BookQuery(null, List.of(), -1, ALL_COLUMNS);
+
+    private final BookFilter filter;
+    private final List<Order> order;
+    private final int limit;
+    private final Set<BookColumn> columns;
+
+    private BookQuery(BookFilter filter, List<Order> order, int limit, Set<BookColumn> columns) {
+        this.filter = filter;
+        this.order = order;
+        this.limit = limit;
+        this.columns = columns;
+    }
+
+    /**
+     * Creates a query returning every book, with all their columns, in no particular order.
+     *
+     * @return the query
+     */
+    public static BookQuery all() {
+        return ALL;
+    }
+
+    /**
+     * Creates a query returning the books matching a filter, with all their columns, in no particular
+     * order.
+     *
+     * @param filter the condition the books must match
+     * @return the query
+     */
+    public static BookQuery where(BookFilter filter) {
+        return new BookQuery(Objects.requireNonNull(filter), List.of(), -1, ALL_COLUMNS);
+    }
+
+    /**
+     * Orders the books by a column, after the columns this query is already ordered by.
+     *
+     * @param column    the column to order by
+     * @param ascending true for the smallest values first, false for the greatest first; a null synopsis
+     *                  comes before any other in ascending order
+     * @return the ordered query
+     */
+    public BookQuery orderBy(BookColumn column, boolean ascending) {
+        List<Order> newOrder = new ArrayList<>(order);
+        newOrder.add(new Order(Objects.requireNonNull(column), ascending));
+        return new BookQuery(filter, List.copyOf(newOrder), limit, columns);
+    }
+
+    /**
+     * Limits the number of books returned.
+     *
+     * @param limit the maximum number of books, at least 1
+     * @return the limited query
+     * @throws IllegalArgumentException If the limit is less than 1.
+     */
+    public BookQuery limit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1: " + limit);
+        }
+        return new BookQuery(filter, order, limit, columns);
+    }
+
+    /**
+     * Reads only some columns of the books. The other fields of the books returned are null, or 0 for
+     * ID and YEAR.
+     *
+     * @param columns the columns to read, at least one
+     * @return the projected query
+     * @throws IllegalArgumentException If no column is given.
+     */
+    public BookQuery select(BookColumn... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("No column selected");
+        }
+        EnumSet<BookColumn> selected = EnumSet.noneOf(BookColumn.class);
+        Collections.addAll(selected, columns);
+        return new BookQuery(filter, order, limit, Collections.unmodifiableSet(selected));
+    }
+
+    /**
+     * Retrieves the condition of the query.
+     *
+     * @return the filter, or null if the query returns every book
+     */
+    public BookFilter filter() {
+        return filter;
+    }
+
+    /**
+     * Retrieves the maximum number of books returned.
+     *
+     * @return the limit, or -1 if there is none
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * Retrieves the columns read.
+     *
+     * @return the selected columns, in column order
+     */
+    public Set<BookColumn> columns() {
+        return columns;
+    }
+
+    /**
+     * Checks whether the filter or the order of the query reads a column.
+     *
+     * @param column the column
+     * @return true if the books must be read with the column to be tested and ordered
+     */
+    boolean uses(BookColumn column) {
+        return filter != null && filter.uses(column) || isOrderedBy(column);
+    }
+
+    /**
+     * Writes the SQL statement of the query, with a {@code ?} placeholder for each value, including the
+     * limit.
+     *
+     * @return the SQL text, the same for every query of the same shape
+     */
+    String sql() {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        if (columns.size() == ALL_COLUMNS.size()) {
+            sql.append('*');
+        } else {
+            for (BookColumn column : columns) {
+                sql.append(column.columnName()).append(", ");
+            }
+            sql.setLength(sql.length() - 2);
+        }
+        sql.append(" FROM BOOKS");
+        if (filter != null) {
+            sql.append(" WHERE ");
+            filter.appendSql(sql, new ArrayList<>());
+        }
+        if (!order.isEmpty()) {
+            sql.append(" ORDER BY ");
+            for (Order o : order) {
+                sql.append(o.column().columnName()).append(o.ascending() ? "" : " DESC").append(", ");
+            }
+            sql.setLength(sql.length() - 2);
+            if (!isOrderedBy(BookColumn.ID)) {
+                sql.append(", ID");
+            }
+        }
+        if (limit > 0) {
+            sql.append(" LIMIT ?");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Retrieves the values of the placeholders of {@link #sql()}, in order.
+     *
+     * @return the values, Integer or String, arrays of them for the IN lists
+     */
+    List<Object> parameters() {
+        List<Object> parameters = new ArrayList<>();
+        if (filter != null) {
+            filter.appendSql(new StringBuilder(), parameters);
+        }
+        if (limit > 0) {
+            parameters.add(limit);
+        }
+        return parameters;
+    }
+
+    /**
+     * Checks whether a book matches the filter of the query.
+     *
+     * @param book the book, read with the columns of the filter
+     * @return true if the book is returned by the query
+     */
+    boolean test(Book book) {
+        return filter == null || filter.test(book);
+    }
+
+    /**
+     * Retrieves the order of the books, as {@link #sql()} orders them.
+     *
+     * @return the comparator, or null if the query is not ordered
+     */
+    Comparator<Book> comparator() {
+        if (order.isEmpty()) {
+            return null;
+        }
+        Comparator<Book> comparator = null;
+        for (Order o : order) {
+            Comparator<Book> next = comparator(o.column(), o.ascending());
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return isOrderedBy(BookColumn.ID) ? comparator : comparator.thenComparingInt(Book::id);
+    }
+
+    private static Comparator<Book> comparator(BookColumn column, boolean ascending) {
+        Comparator<Book> comparator = switch (column) {
+            case ID -> Comparator.comparingInt(Book::id);
+            case YEAR -> Comparator.comparingInt(Book::year);
+            default -> Comparator.comparing(book -> (String) column.get(book),
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+        };
+        return ascending ? comparator : comparator.reversed();
+    }
+
+    private boolean isOrderedBy(BookColumn column) {
+        for (Order o : order) {
+            if (o.column() == column) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Keeps only the selected columns of a book.
+     *
+     * @param book the book read with all its columns
+     * @return the book with the columns that are not selected cleared
+     */
+    Book project(Book book) {
+        if (columns.size() == ALL_COLUMNS.size()) {
+            return book;
+        }
+        return new Book(columns.contains(BookColumn.ID) ? book.id() : 0,
+                columns.contains(BookColumn.TITLE) ? book.title() : null,
+                columns.contains(BookColumn.AUTHOR) ? book.author() : null,
+                columns.contains(BookColumn.PUBLISHER) ? book.publisher() : null,
+                columns.contains(BookColumn.YEAR) ? book.year() : 0,
+                columns.contains(BookColumn.SYNOPSIS) ? book.synopsis() : null);
+    }
+
+    /**
+     * Formats a book returned by the query with the name of each selected field, as
+     * {@link Book#describe()} does for all of them.
+     *
+     * @param book a book returned by the query
+     * @return the labelled selected fields on one line
+     */
+    public String describe(Book book) {
+        if (columns.size() == ALL_COLUMNS.size()) {
+            return book.describe();
+        }
+        StringBuilder line = new StringBuilder();
+        for (BookColumn column : columns) {
+            if (!line.isEmpty()) {
+                line.append(", ");
+            }
+            line.append(switch (column) {
+                case ID -> "ID";
+                case TITLE -> "Title";
+                case AUTHOR -> "Author";
+                case PUBLISHER -> "Publisher";
+                case YEAR -> "Year";
+                case SYNOPSIS -> "Synopsis";
+            }).append(": ").append(column.get(book));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Formats the query as SQL, with the values in place of the placeholders, as shown in the logs.
+     *
+     * @return the query
+     */
+    @Override
+    public String toString() {
+        String sql = sql();
+        if (filter != null) {
+            int where = sql.indexOf(" WHERE ") + " WHERE ".length();
+            StringBuilder shape = new StringBuilder();
+            filter.appendSql(shape, new ArrayList<>());
+            sql = sql.substring(0, where) + filter + sql.substring(where + shape.length());
+        }
+        return limit > 0 ? sql.substring(0, sql.length() - 1) + limit : sql;
+    }
+
+    /**
+     * A column of the ORDER BY clause.
+     */
+    private record Order(BookColumn column, boolean ascending) {
+    }
+}
@@ -0,0 +1,28 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the records of an interchange file one at a time, mapped onto the columns of the BOOKS table.
+ */
+interface BookRecordReader extends Closeable {
+
+    /**
+     * Reads the next record.
+     *
+     * @param values filled with the value of each column, indexed by {@link BookColumn#ordinal()}, null
+     *               when the record has no value for the column
+     * @return false at the end of the file
+     * @throws IOException             If there is an issue with reading the file.
+     * @throws RejectedRecordException If the record is malformed. The reader moves on to the next record.
+     */
+    boolean next(String[] values) throws IOException, RejectedRecordException;
+
+    /**
+     * Retrieves the line number of the record last read.
+     *
+     * @return the line, starting at 1, where the record starts
+     */
+    long line();
+}
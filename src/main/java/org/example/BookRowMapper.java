@@ -0,0 +1,70 @@
+package org.example;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Maps the rows of a result set over the BOOKS table to {@link Book} objects.
+ *
+ * The column indexes are looked up once when the mapper is created, so mapping a row only reads the
+ * six values by index. A mapper may read only some of the columns, for the queries of a
+ * {@link BookQuery} selecting them.
+ */
+class BookRowMapper {
+    private final int idColumn;
+    private final int titleColumn;
+    private final int authorColumn;
+    private final int publisherColumn;
+    private final int yearColumn;
+    private final int synopsisColumn;
+
+    /**
+     * Creates a mapper for the columns of the given result set.
+     *
+     * @param rs the result set the mapper will read
+     * @throws SQLException If one of the BOOKS columns is missing from the result set.
+     */
+    BookRowMapper(ResultSet rs) throws SQLException {
+        this(rs, EnumSet.allOf(BookColumn.class));
+    }
+
+    /**
+     * Creates a mapper reading some of the columns of the given result set. The fields of the other
+     * columns are null, or 0 for ID and YEAR.
+     *
+     * @param rs      the result set the mapper will read
+     * @param columns the columns to read
+     * @throws SQLException If one of the columns is missing from the result set.
+     */
+    BookRowMapper(ResultSet rs, Set<BookColumn> columns) throws SQLException {
+        idColumn = findColumn(rs, columns, BookColumn.ID);
+        titleColumn = findColumn(rs, columns, BookColumn.TITLE);
+        authorColumn = findColumn(rs, columns, BookColumn.AUTHOR);
+        publisherColumn = findColumn(rs, columns, BookColumn.PUBLISHER);
+        yearColumn = findColumn(rs, columns, BookColumn.YEAR);
+        synopsisColumn = findColumn(rs, columns, BookColumn.SYNOPSIS);
+    }
+
+    /**
+     * Looks up the index of a column, or 0 if it is not read.
+     */
+    private static int findColumn(ResultSet rs, Set<BookColumn> columns, BookColumn column) throws SQLException {
+        return columns.contains(column) ? rs.findColumn(column.columnName()) : 0;
+    }
+
+    /**
+     * Reads the book at the current row of the result set.
+     *
+     * @param rs the result set given to the constructor, positioned on a row
+     * @return the book of the current row
+     * @throws SQLException If there is an issue with reading the row.
+     */
+    Book map(ResultSet rs) throws SQLException {
+        return new Book(idColumn > 0 ? rs.getInt(idColumn) : 0, titleColumn > 0 ? rs.getString(titleColumn) : null,
+                authorColumn > 0 ? rs.getString(authorColumn) : null,
+                publisherColumn > 0 ? rs.getString(publisherColumn) : null, yearColumn > 0 ? rs.getInt(yearColumn) : 0,
+                synopsisColumn > 0 ? rs.getString(synopsisColumn) : null);
+    }
+}
@@ -0,0 +1,356 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary snapshot of the BOOKS table.
+ *
+ * The snapshot is stored by column. IDs are delta encoded and, like the years, written as zigzag
+ * varints; authors and publishers are replaced by varint indexes into a dictionary of their distinct
+ * values; titles and synopses are length prefixed UTF-8. The file is laid out as:
+ * <pre>
+ * magic "BKSN" | version | row count | 6 x (section length | section) | CRC32 of all the previous bytes
+ * </pre>
+ * with the sections in the order ID, PUBLICATION_YEAR, AUTHOR, PUBLISHER, TITLE, SYNOPSIS.
+ * Both writing and reading go through a memory-mapped file.
+ */
+class BookSnapshot {
+    /**
+     * File name extension of the snapshots written from the window.
+     */
+    static final String EXTENSION = ".books";
+
+    private static final byte[] MAGIC = {'B', 'K', 'S', 'N'};
+    private static final int VERSION = 1;
+    private static final int SECTIONS = 6;
+
+    private BookSnapshot() {
+    }
+
+    /**
+     * Checks whether a file is a snapshot, from its first bytes.
+     *
+     * @param file the file to check
+     * @return true if the file starts with the snapshot magic number
+     * @throws IOException If the file cannot be read.
+     */
+    static boolean isSnapshot(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+        }
+    }
+
+    /**
+     * Checks whether a file should be written as a snapshot, from its name.
+     *
+     * @param file the path of the file
+     * @return true if the file name ends with {@link #EXTENSION}
+     */
+    static boolean hasSnapshotExtension(String file) {
+        return file.toLowerCase(Locale.ROOT).endsWith(EXTENSION);
+    }
+
+    /**
+     * Writes books to a snapshot file, replacing its content.
+     *
+     * The columns are encoded in memory, then copied into the file mapped at its final size.
+     *
+     * @param file          the file to write
+     * @param books         the books to write
+     * @param listener      notified every {@code progressEvery} books with the number of books encoded so
+     *                      far, may be null
+     * @param progressEvery number of books between two progress notifications
+     * @return the number of books written
+     * @throws IOException If there is an issue with writing to the file, or the snapshot exceeds 2 GB.
+     */
+    static long write(Path file, Iterator<Book> books, ProgressListener listener, int progressEvery)
+            throws IOException {
+        ColumnBuffer ids = new ColumnBuffer();
+        ColumnBuffer years = new ColumnBuffer();
+        Dictionary authors = new Dictionary();
+        Dictionary publishers = new Dictionary();
+        ColumnBuffer titles = new ColumnBuffer();
+        ColumnBuffer synopses = new ColumnBuffer();
+
+        int rows = 0;
+        int previousId = 0;
+        while (books.hasNext()) {
+            Book book = books.next();
+            ids.writeVarint(zigzag((long) book.id() - previousId));
+            previousId = book.id();
+            years.writeVarint(zigzag(book.year()));
+            authors.add(book.author());
+            publishers.add(book.publisher());
+            titles.writeString(book.title());
+            synopses.writeString(book.synopsis());
+            if (++rows % progressEvery == 0 && listener != null) {
+                listener.onProgress(rows);
+            }
+        }
+
+        ColumnBuffer[] sections = {ids, years, authors.encode(), publishers.encode(), titles, synopses};
+        long size = MAGIC.length + 2 * Integer.BYTES + Integer.BYTES;
+        for (ColumnBuffer section : sections) {
+            size += Integer.BYTES + section.size;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot of " + rows + " books exceeds 2 GB");
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.put(MAGIC).putInt(VERSION).putInt(rows);
+            for (ColumnBuffer section : sections) {
+                out.putInt(section.size).put(section.bytes, 0, section.size);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(out.duplicate().flip());
+            out.putInt((int) crc.getValue());
+            out.force();
+        }
+        if (listener != null && rows % progressEvery != 0) {
+            listener.onProgress(rows);
+        }
+        return rows;
+    }
+
+    /**
+     * Opens a snapshot file and checks its header and checksum.
+     *
+     * @param file the snapshot to read
+     * @return a reader over the books of the snapshot
+     * @throws IOException If the file cannot be read, is not a snapshot, or is corrupted.
+     */
+    static Reader read(Path file) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot exceeds 2 GB: " + file);
+            }
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return new Reader(file, in);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads the books of a snapshot, in the order they were written.
+     */
+    static class Reader implements Iterator<Book> {
+        private final int rowCount;
+        private final ByteBuffer ids;
+        private final ByteBuffer years;
+        private final ByteBuffer authors;
+        private final ByteBuffer publishers;
+        private final ByteBuffer titles;
+        private final ByteBuffer synopses;
+        private final String[] authorDictionary;
+        private final String[] publisherDictionary;
+        private int row;
+        private int previousId;
+
+        private Reader(Path file, ByteBuffer in) throws IOException {
+            int headerSize = MAGIC.length + 2 * Integer.BYTES;
+            if (in.limit() < headerSize + SECTIONS * Integer.BYTES + Integer.BYTES) {
+                throw new IOException("Not a snapshot, or truncated: " + file);
+            }
+            byte[] magic = new byte[MAGIC.length];
+            in.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a snapshot: " + file);
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            }
+            rowCount = in.getInt();
+
+            int checksumOffset = in.limit() - Integer.BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(in.slice(0, checksumOffset));
+            if ((int) crc.getValue() != in.getInt(checksumOffset)) {
+                throw new IOException("Snapshot checksum mismatch, the file is corrupted: " + file);
+            }
+
+            ByteBuffer[] sections = new ByteBuffer[SECTIONS];
+            for (int i = 0; i < SECTIONS; i++) {
+                int length = in.getInt();
+                if (length < 0 || length > checksumOffset - in.position()) {
+                    throw new IOException("Invalid snapshot section length: " + file);
+                }
+                sections[i] = in.slice(in.position(), length);
+                in.position(in.position() + length);
+            }
+            ids = sections[0];
+            years = sections[1];
+            authors = sections[2];
+            publishers = sections[3];
+            titles = sections[4];
+            synopses = sections[5];
+            authorDictionary = readDictionary(authors);
+            publisherDictionary = readDictionary(publishers);
+        }
+
+        /**
+         * Retrieves the number of books of the snapshot.
+         *
+         * @return the number of books
+         */
+        int rowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return row < rowCount;
+        }
+
+        @Override
+        public Book next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            row++;
+            previousId = (int) (previousId + unzigzag(readVarint(ids)));
+            int year = (int) unzigzag(readVarint(years));
+            String author = authorDictionary[(int) readVarint(authors)];
+            String publisher = publisherDictionary[(int) readVarint(publishers)];
+            return new Book(previousId, readString(titles), author, publisher, year, readString(synopses));
+        }
+
+        private static String[] readDictionary(ByteBuffer section) {
+            String[] values = new String[(int) readVarint(section)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readString(section);
+            }
+            return values;
+        }
+
+        private static long readVarint(ByteBuffer in) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        /**
+         * Reads a string prefixed by its UTF-8 length plus one, 0 standing for null.
+         */
+        private static String readString(ByteBuffer in) {
+            int length = (int) readVarint(in) - 1;
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Growable byte array holding one encoded column.
+     */
+    private static class ColumnBuffer {
+        private byte[] bytes = new byte[1 << 12];
+        private int size;
+
+        void writeVarint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        /**
+         * Writes a string prefixed by its UTF-8 length plus one, 0 standing for null.
+         */
+        void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length + 1L);
+            ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        void writeBuffer(ColumnBuffer other) {
+            ensureCapacity(other.size);
+            System.arraycopy(other.bytes, 0, bytes, size, other.size);
+            size += other.size;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                long capacity = Math.max((long) bytes.length * 2, (long) size + extra);
+                if (capacity > Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Snapshot column exceeds 2 GB");
+                }
+                bytes = Arrays.copyOf(bytes, (int) capacity);
+            }
+        }
+    }
+
+    /**
+     * Dictionary encoded column: the distinct values in order of appearance, then one index per row.
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final ColumnBuffer values = new ColumnBuffer();
+        private final ColumnBuffer rows = new ColumnBuffer();
+
+        void add(String value) {
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = indexes.size();
+                indexes.put(value, index);
+                values.writeString(value);
+            }
+            rows.writeVarint(index);
+        }
+
+        ColumnBuffer encode() {
+            ColumnBuffer section = new ColumnBuffer();
+            section.writeVarint(indexes.size());
+            section.writeBuffer(values);
+            section.writeBuffer(rows);
+            return section;
+        }
+    }
+}
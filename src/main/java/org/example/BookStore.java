@@ -0,0 +1,123 @@
+package org.example;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Storage engine holding the BOOKS table behind {@link Database}.
+ *
+ * {@link Database} keeps what does not depend on the engine: the change listeners, the caches, the
+ * metrics, the per-book locks and the coordination with reloads. The engine is chosen with the
+ * {@code books.engine} system property: {@link H2BookStore} by default, or {@link MemoryBookStore}.
+ * Implementations are safe to call from any number of threads.
+ */
+interface BookStore {
+
+    /**
+     * Adds a book.
+     *
+     * @param book the book to add
+     * @throws SQLException If a book with the same ID exists, a required field is null, or there is an
+     *                      issue with SQL execution.
+     */
+    void insert(Book book) throws SQLException;
+
+    /**
+     * Adds many books in chunks, each chunk added atomically. If a chunk fails, none of its books is
+     * added and the exception is rethrown; the chunks added before it stay.
+     *
+     * @param books     the books to add, read lazily
+     * @param chunkSize the number of books added together
+     * @param committed called with the books of each chunk once it is added
+     * @return the number of books added
+     * @throws SQLException If a chunk cannot be added.
+     */
+    long insertAll(Iterable<Book> books, int chunkSize, Consumer<List<Book>> committed) throws SQLException;
+
+    /**
+     * Replaces the fields of a book with those of the given book, found by its ID.
+     *
+     * @param book the new fields of the book
+     * @return the book replaced, or null if there is no book with this ID
+     * @throws SQLException If a required field is null, or there is an issue with SQL execution.
+     */
+    Book update(Book book) throws SQLException;
+
+    /**
+     * Deletes a book.
+     *
+     * @param id the ID of the book
+     * @return the book deleted, or null if there is no book with this ID
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    Book delete(int id) throws SQLException;
+
+    /**
+     * Retrieves a book by its ID.
+     *
+     * @param id the ID of the book
+     * @return the book, or null if there is no book with this ID
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    Book get(int id) throws SQLException;
+
+    /**
+     * Retrieves the books of a list of IDs. The IDs without a book are skipped.
+     *
+     * @param ids the IDs of the books
+     * @return the books found, in no particular order
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    List<Book> getAll(List<Integer> ids) throws SQLException;
+
+    /**
+     * Retrieves the books whose column is equal to a value.
+     *
+     * @param column the column to look up, TITLE, AUTHOR, PUBLISHER or YEAR
+     * @param value  the value looked up, an Integer for YEAR and a String otherwise
+     * @return the books found, ordered by ID
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    List<Book> find(BookColumn column, Object value) throws SQLException;
+
+    /**
+     * Retrieves a page of books, ordered by ID.
+     *
+     * @param afterId the ID of the last book of the previous page, or null for the first page
+     * @param limit   the maximum number of books to return
+     * @return the books following afterId
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    List<Book> list(Integer afterId, int limit) throws SQLException;
+
+    /**
+     * Retrieves the page of books preceding an ID, ordered by ID, to page back from the first book of a
+     * page.
+     *
+     * @param beforeId the ID of the first book of the next page
+     * @param limit    the maximum number of books to return
+     * @return the books with the greatest IDs less than beforeId, in ascending order
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    List<Book> listBefore(int beforeId, int limit) throws SQLException;
+
+    /**
+     * Runs a query built with {@link BookQuery}.
+     *
+     * @param query the books to return, their order, their number and their columns
+     * @return the books found, in the order of the query
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    List<Book> query(BookQuery query) throws SQLException;
+
+    /**
+     * Streams all the books, read while the stream is consumed. The stream may hold resources until
+     * its last book has been read, so a consumer that may stop early must close it.
+     *
+     * @return a stream of all the books
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    Stream<Book> stream() throws SQLException;
+}
@@ -0,0 +1,184 @@
+package org.example;
+
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.skin.VirtualFlow;
+
+import javafx.application.Platform;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Table showing the books of the database.
+ *
+ * The books are loaded page by page with {@link Database#listBooks(int, int)}: the next page is only
+ * read when the user scrolls near the end of the rows loaded so far. At most {@code MAX_PAGES} pages
+ * are kept: once the window is full, the page farthest from the viewport is dropped as a new one is
+ * loaded, and read again with {@link Database#listBooksBefore(int, int)} when the user scrolls back to
+ * it. The table only creates cells for the visible rows, so neither rendering nor memory depends on
+ * the size of the catalogue or on how far the user scrolled. The pages are read on the
+ * {@link AsyncDatabase} executor.
+ */
+public class BookTable extends TableView<Book> {
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_PAGES = 5;
+    private static final double LOAD_THRESHOLD = 0.9;
+
+    private boolean firstPageLoaded;
+    private boolean lastPageLoaded;
+    private boolean loadingPage;
+    private int generation;
+
+    /**
+     * Constructs a new, empty BookTable. Call {@link #reload()} to load the first page.
+     */
+    public BookTable() {
+        getColumns().add(column("ID", 60, Book::id));
+        getColumns().add(column("Title", 160, Book::title));
+        getColumns().add(column("Author", 130, Book::author));
+        getColumns().add(column("Publisher", 130, Book::publisher));
+        getColumns().add(column("Year", 60, Book::year));
+        getColumns().add(column("Synopsis", 250, Book::synopsis));
+        setPlaceholder(new Label("No books found."));
+
+        skinProperty().addListener((observable, oldSkin, newSkin) -> watchScrollBar());
+    }
+
+    /**
+     * Creates a read-only column showing one field of the books.
+     */
+    private static <T> TableColumn<Book, T> column(String title, double width, Function<Book, T> field) {
+        TableColumn<Book, T> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(field.apply(cell.getValue())));
+        column.setPrefWidth(width);
+        return column;
+    }
+
+    /**
+     * Loads the next page when the vertical scroll bar gets near its end, and the previous one when it
+     * gets near its start.
+     */
+    private void watchScrollBar() {
+        for (Node node : lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar scrollBar && scrollBar.getOrientation() == Orientation.VERTICAL) {
+                scrollBar.valueProperty().addListener((observable, oldValue, value) -> {
+                    if (value.doubleValue() >= scrollBar.getMax() * LOAD_THRESHOLD) {
+                        loadNextPage();
+                    } else if (value.doubleValue() <= scrollBar.getMax() * (1 - LOAD_THRESHOLD)) {
+                        loadPreviousPage();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Drops the loaded rows and loads the first page again.
+     *
+     * @return a future completed with the first page once it is shown, or with the loading error
+     */
+    public CompletableFuture<List<Book>> reload() {
+        int reloadGeneration = ++generation;
+        loadingPage = true;
+        CompletableFuture<List<Book>> future = AsyncDatabase.submit(() -> Database.listBooks(PAGE_SIZE));
+        return future.whenCompleteAsync((page, error) -> {
+            if (reloadGeneration != generation) {
+                return;
+            }
+            loadingPage = false;
+            if (error == null) {
+                firstPageLoaded = true;
+                lastPageLoaded = page.size() < PAGE_SIZE;
+                getItems().setAll(page);
+                scrollTo(0);
+            }
+        }, Platform::runLater);
+    }
+
+    /**
+     * Appends the page following the last loaded book, unless a page is already loading or the
+     * last page was already loaded. Pages arriving after a reload are dropped. When the window is full,
+     * the first page is dropped.
+     */
+    private void loadNextPage() {
+        if (loadingPage || lastPageLoaded || getItems().isEmpty()) {
+            return;
+        }
+        int pageGeneration = generation;
+        int lastId = getItems().get(getItems().size() - 1).id();
+        loadingPage = true;
+        AsyncDatabase.submit(() -> Database.listBooks(lastId, PAGE_SIZE)).whenCompleteAsync((page, error) -> {
+            if (pageGeneration != generation) {
+                return;
+            }
+            loadingPage = false;
+            if (error != null) {
+                lastPageLoaded = true;
+                error.printStackTrace();
+                return;
+            }
+            lastPageLoaded = page.size() < PAGE_SIZE;
+            int firstVisible = firstVisibleIndex();
+            getItems().addAll(page);
+            int excess = getItems().size() - MAX_PAGES * PAGE_SIZE;
+            if (excess > 0) {
+                getItems().remove(0, excess);
+                firstPageLoaded = false;
+                // The rows shown move up by the number of rows dropped
+                scrollTo(Math.max(0, firstVisible - excess));
+            }
+        }, Platform::runLater);
+    }
+
+    /**
+     * Prepends the page preceding the first loaded book, once the first pages were dropped, unless a page
+     * is already loading. When the window is full, the last page is dropped.
+     */
+    private void loadPreviousPage() {
+        if (loadingPage || firstPageLoaded || getItems().isEmpty()) {
+            return;
+        }
+        int pageGeneration = generation;
+        int firstId = getItems().get(0).id();
+        loadingPage = true;
+        AsyncDatabase.submit(() -> Database.listBooksBefore(firstId, PAGE_SIZE)).whenCompleteAsync((page, error) -> {
+            if (pageGeneration != generation) {
+                return;
+            }
+            loadingPage = false;
+            if (error != null) {
+                firstPageLoaded = true;
+                error.printStackTrace();
+                return;
+            }
+            firstPageLoaded = page.size() < PAGE_SIZE;
+            int firstVisible = firstVisibleIndex();
+            getItems().addAll(0, page);
+            int excess = getItems().size() - MAX_PAGES * PAGE_SIZE;
+            if (excess > 0) {
+                getItems().remove(getItems().size() - excess, getItems().size());
+                lastPageLoaded = false;
+            }
+            // The rows shown move down by the number of rows added
+            scrollTo(firstVisible + page.size());
+        }, Platform::runLater);
+    }
+
+    /**
+     * Retrieves the index of the first row shown, to keep showing the same rows when pages are added or
+     * dropped above them.
+     */
+    private int firstVisibleIndex() {
+        if (lookup(".virtual-flow") instanceof VirtualFlow<?> flow && flow.getFirstVisibleCell() != null) {
+            return flow.getFirstVisibleCell().getIndex();
+        }
+        return 0;
+    }
+}
@@ -1,5 +1,6 @@
 package org.example;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
@@ -11,8 +12,8 @@ import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
-import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Stage for updating book details in the database.
@@ -25,7 +26,7 @@ public class BookUpdate extends Stage {
     private TextField publisherField;
     private TextField yearField;
     private TextField synopsisField;
-    private ComboBox<String> comboBox;
+    private final ComboBox<Book> comboBox = new ComboBox<>();
     private boolean isUpdated = false;
 
     /**
@@ -36,16 +37,24 @@ public class BookUpdate extends Stage {
      */
     public BookUpdate(Scene primaryScene) {
         Label label = new Label("Select a book to update:");
-        try {
-            List<String> allBooks = Database.allItems();
-            comboBox = new ComboBox<>(FXCollections.observableArrayList(allBooks));
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        comboBox.setConverter(new BookConverter());
+        comboBox.setPromptText("Loading books...");
+        // The books are read in the background, as reading the whole table would freeze the dialog
+        CompletableFuture<List<Book>> loading = AsyncDatabase.submit(Database::allItems);
+        loading.whenCompleteAsync((allBooks, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                comboBox.setPromptText("Failed to load the books");
+            } else {
+                comboBox.setItems(FXCollections.observableArrayList(allBooks));
+                comboBox.setPromptText(null);
+            }
+        }, Platform::runLater);
+        setOnHidden(event -> loading.cancel(false));
 
         Button updateButton = new Button("Update book");
         updateButton.setOnAction(event -> {
-            String selectedBook = comboBox.getSelectionModel().getSelectedItem();
+            Book selectedBook = comboBox.getSelectionModel().getSelectedItem();
             if (selectedBook != null) {
                 updateForm(primaryScene, selectedBook);
             }
@@ -77,9 +86,9 @@ public class BookUpdate extends Stage {
      * Updates the form with details of the selected book.
      *
      * @param primaryScene the primary scene to copy stylesheets from
-     * @param selectedBook string containing all the information about the book to update
+     * @param selectedBook the book to update
      */
-    private void updateForm(Scene primaryScene, String selectedBook) {
+    private void updateForm(Scene primaryScene, Book selectedBook) {
         setTitle("Update Book");
 
         GridPane gridPane = new GridPane();
@@ -116,8 +125,8 @@ public class BookUpdate extends Stage {
 
         Button updateButton = new Button("Update");
         updateButton.setOnAction(event -> {
+            updateButton.setDisable(true);
             updateBook();
-            close();
         });
 
         Button cancelButton = new Button("Cancel");
@@ -134,36 +143,49 @@ public class BookUpdate extends Stage {
     /**
      * Loads the details of the selected book into the form fields.
      *
-     * @param selectedBook the selected book string from the ComboBox
+     * @param selectedBook the selected book from the ComboBox
      */
-    private void loadBookDetails(String selectedBook) {
-        String[] details = selectedBook.split(";");
-        idField.setText(details[0]);
-        titleField.setText(details[1]);
-        authorField.setText(details[2]);
-        publisherField.setText(details[3]);
-        yearField.setText(details[4]);
-        synopsisField.setText(details.length > 5 ? details[5] : "");
+    private void loadBookDetails(Book selectedBook) {
+        idField.setText(String.valueOf(selectedBook.id()));
+        titleField.setText(selectedBook.title());
+        authorField.setText(selectedBook.author());
+        publisherField.setText(selectedBook.publisher());
+        yearField.setText(String.valueOf(selectedBook.year()));
+        synopsisField.setText(selectedBook.synopsis() == null ? "" : selectedBook.synopsis());
     }
 
     /**
-     * Tries to update the book in the database using the input from the text fields.
-     * If the input is valid and the book is successfully updated, sets isUpdated to true.
+     * Tries to update the book in the database using the input from the text fields, in the background,
+     * then closes the form. If the input is valid and the book is successfully updated, sets isUpdated
+     * to true.
      */
     private void updateBook() {
+        int id;
+        int year;
         try {
-            int id = Integer.parseInt(idField.getText());
-            String title = titleField.getText();
-            String author = authorField.getText();
-            String publisher = publisherField.getText();
-            int year = Integer.parseInt(yearField.getText());
-            String synopsis = synopsisField.getText().isEmpty() ? null : synopsisField.getText();
-
-            Database.updateBook(id, title, author, publisher, year, synopsis);
-            isUpdated = true;
-        } catch (NumberFormatException | SQLException e) {
+            id = Integer.parseInt(idField.getText());
+            year = Integer.parseInt(yearField.getText());
+        } catch (NumberFormatException e) {
             e.printStackTrace();
+            close();
+            return;
         }
+        String title = titleField.getText();
+        String author = authorField.getText();
+        String publisher = publisherField.getText();
+        String synopsis = synopsisField.getText().isEmpty() ? null : synopsisField.getText();
+
+        AsyncDatabase.submit(() -> {
+            Database.updateBook(id, title, author, publisher, year, synopsis);
+            return null;
+        }).whenCompleteAsync((result, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+            } else {
+                isUpdated = true;
+            }
+            close();
+        }, Platform::runLater);
     }
 
     /**
@@ -0,0 +1,332 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+/**
+ * Command line entry point running {@link Database} operations without the GUI.
+ *
+ * It only depends on the database classes, so no JavaFX class is loaded and the JVM starts in a
+ * fraction of the time of {@link Main}. Commands run in the order they are given, for instance
+ * <pre>
+ * BooksCli load catalogue.books import new.csv export catalogue.books
+ * </pre>
+ * Books returned by queries are streamed to the standard output; progress and reports go to the
+ * standard error. The exit code is {@link #EXIT_OK}, {@link #EXIT_FAILED}, {@link #EXIT_USAGE} or
+ * {@link #EXIT_REJECTED}.
+ */
+public class BooksCli {
+    /**
+     * Exit code when every command succeeded.
+     */
+    public static final int EXIT_OK = 0;
+    /**
+     * Exit code when a command failed. The commands after it are not run.
+     */
+    public static final int EXIT_FAILED = 1;
+    /**
+     * Exit code when the command line is invalid. No command is run.
+     */
+    public static final int EXIT_USAGE = 2;
+    /**
+     * Exit code when every command succeeded but an import skipped lines it could not read.
+     */
+    public static final int EXIT_REJECTED = 3;
+
+    private static final String USAGE = """
+            Usage: BooksCli [options] <command> [<command> ...]
+
+            Commands, run in order:
+              load <file>      load a SQL script or .books snapshot instead of the default data
+              query <sql>      stream the books returned by a query to the standard output
+              import <file>    import a CSV or JSON Lines file, optionally gzip compressed
+              export <file>    export to .csv or .jsonl, a .books snapshot, or else a SQL script
+              script <file>    run a SQL script of updates in one transaction
+              save             save the changes next to the loaded file, as a delta
+              serve <port>     answer HTTP requests on the port until the process is stopped
+
+            Options:
+              --format=text|csv|jsonl   format of the query output (default text)
+              --mapping=<mapping>       fields of the CSV or JSON Lines files and query output,
+                                        e.g. "book_id=ID,name=TITLE"
+              --host=<address>          address served by serve, e.g. 0.0.0.0 for all of them
+                                        (default the loopback address)
+              --help                    show this message
+            """;
+
+    private final PrintStream err;
+    private final Writer out;
+    private final List<String[]> commands = new ArrayList<>();
+    private String format = "text";
+    private ColumnMapping mapping = ColumnMapping.defaults();
+    private InetAddress host = InetAddress.getLoopbackAddress();
+    private boolean rejected;
+
+    private BooksCli(Writer out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * Runs the commands and exits with their status.
+     *
+     * @param args the options and commands
+     */
+    public static void main(String[] args) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out),
+                StandardCharsets.UTF_8), 1 << 16);
+        System.exit(new BooksCli(out, System.err).run(args));
+    }
+
+    /**
+     * Parses the command line, opens the database and runs the commands.
+     *
+     * @return the exit code
+     */
+    private int run(String[] args) {
+        try {
+            parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.print(USAGE);
+            return EXIT_USAGE;
+        }
+        if (commands.isEmpty()) {
+            err.print(USAGE);
+            return EXIT_OK;
+        }
+
+        String[] current = null;
+        try {
+            int first = 0;
+            if ("load".equals(commands.get(0)[0])) {
+                current = commands.get(0);
+                load(current[1]);
+                first = 1;
+            } else {
+                LoadReport report = Database.startDatabase();
+                err.println("Database opened in " + report.elapsedMillis() + " ms, " + report.rows()
+                        + " books loaded.");
+            }
+            for (String[] command : commands.subList(first, commands.size())) {
+                current = command;
+                runCommand(command);
+            }
+            out.flush();
+            if (Database.isFileStorage()) {
+                Database.checkpoint();
+            }
+        } catch (SQLException | IOException | UncheckedIOException | IllegalStateException
+                 | IllegalArgumentException e) {
+            flushQuietly();
+            err.println(current == null ? "Failed: " + e.getMessage()
+                    : "Failed to " + String.join(" ", current) + ": " + e.getMessage());
+            return EXIT_FAILED;
+        } catch (RuntimeException e) {
+            // An unexpected failure, reported with its stack trace
+            flushQuietly();
+            err.println(current == null ? "Failed:" : "Failed to " + String.join(" ", current) + ":");
+            e.printStackTrace(err);
+            return EXIT_FAILED;
+        } finally {
+            try {
+                Database.closeDatabase();
+            } catch (SQLException e) {
+                err.println("Failed to close the database: " + e.getMessage());
+            }
+        }
+        return rejected ? EXIT_REJECTED : EXIT_OK;
+    }
+
+    /**
+     * Reads the options and splits the commands from their arguments.
+     *
+     * @throws IllegalArgumentException If an option, a command or an argument is invalid or missing.
+     */
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--help")) {
+                commands.clear();
+                return;
+            } else if (arg.startsWith("--format=")) {
+                format = arg.substring("--format=".length());
+                if (!format.equals("text") && !format.equals("csv") && !format.equals("jsonl")) {
+                    throw new IllegalArgumentException("Unknown format: " + format);
+                }
+            } else if (arg.startsWith("--mapping=")) {
+                mapping = ColumnMapping.parse(arg.substring("--mapping=".length()));
+            } else if (arg.startsWith("--host=")) {
+                try {
+                    host = InetAddress.getByName(arg.substring("--host=".length()));
+                } catch (UnknownHostException e) {
+                    throw new IllegalArgumentException("Unknown host: " + e.getMessage());
+                }
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            } else if (arg.equals("save")) {
+                commands.add(new String[]{arg});
+            } else if (arg.equals("load") || arg.equals("query") || arg.equals("import") || arg.equals("export")
+                    || arg.equals("script") || arg.equals("serve")) {
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing argument of " + arg);
+                }
+                if (arg.equals("load") && !commands.isEmpty()) {
+                    throw new IllegalArgumentException("load must be the first command");
+                }
+                commands.add(new String[]{arg, args[++i]});
+            } else {
+                throw new IllegalArgumentException("Unknown command: " + arg);
+            }
+        }
+    }
+
+    private void runCommand(String[] command) throws SQLException, IOException {
+        switch (command[0]) {
+            case "query" -> query(command[1]);
+            case "import" -> importFile(command[1]);
+            case "export" -> export(command[1]);
+            case "script" -> {
+                LoadReport report = Database.runUpdateScript(command[1]);
+                err.println("Script run in " + report.elapsedMillis() + " ms: " + report.statements()
+                        + " statements, " + report.rows() + " rows changed.");
+            }
+            case "save" -> {
+                Path delta = Database.saveChanges();
+                err.println(delta == null ? "No change to save." : "Changes saved to " + delta + ".");
+            }
+            case "serve" -> serve(command[1]);
+            default -> throw new IllegalArgumentException("Unknown command: " + command[0]);
+        }
+    }
+
+    /**
+     * Runs a {@link BooksServer} until the JVM is stopped, on the loopback address unless {@code --host}
+     * names another one.
+     */
+    private void serve(String port) throws IOException {
+        int number;
+        try {
+            number = Integer.parseInt(port);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port: " + port);
+        }
+        BooksServer server = new BooksServer(host, number);
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            stopped.countDown();
+        }));
+        server.start();
+        err.println("Serving the books on http://" + server.getAddress().getHostAddress() + ":" + server.getPort()
+                + "/books");
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void load(String file) throws SQLException {
+        LoadReport report = Database.launchDatabase(file, rows -> err.println(rows + " books loaded..."));
+        err.println("Loaded " + report.rows() + " books from " + file + " in " + report.elapsedMillis()
+                + " ms (" + report.rowsPerSecond() + " rows/s).");
+    }
+
+    /**
+     * Streams the books returned by a query to the standard output, in the chosen format.
+     */
+    private void query(String sql) throws SQLException, IOException {
+        long rows = 0;
+        try (Stream<Book> books = Database.streamQuery(sql)) {
+            Iterator<Book> iterator = books.iterator();
+            if (format.equals("text")) {
+                while (iterator.hasNext()) {
+                    out.write(iterator.next().describe());
+                    out.write('\n');
+                    rows++;
+                }
+            } else {
+                BookFileWriter writer = new BookFileWriter(new NonClosingWriter(out),
+                        format.equals("csv") ? BookFileFormat.CSV : BookFileFormat.JSON_LINES, mapping);
+                while (iterator.hasNext()) {
+                    writer.write(iterator.next());
+                    rows++;
+                }
+                writer.close();
+            }
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        }
+        out.flush();
+        err.println(rows + " books returned.");
+    }
+
+    private void importFile(String file) throws SQLException, IOException {
+        BookFileFormat fileFormat = BookFileFormat.forFile(file);
+        if (fileFormat == null) {
+            throw new IllegalArgumentException("Not a .csv or .jsonl file: " + file);
+        }
+        ImportReport report = Database.importBooks(file, fileFormat, mapping, null);
+        err.println("Imported " + report.rows() + " books in " + report.elapsedMillis() + " ms, "
+                + report.rejectCount() + " lines rejected.");
+        for (ImportReport.Reject reject : report.rejects()) {
+            err.println("  line " + reject.line() + ": " + reject.reason());
+        }
+        if (report.rejectCount() > 0) {
+            rejected = true;
+        }
+    }
+
+    private void export(String file) throws SQLException, IOException {
+        BookFileFormat fileFormat = BookFileFormat.forFile(file);
+        long rows;
+        if (fileFormat != null) {
+            rows = Database.exportBooks(file, fileFormat, mapping, null);
+        } else if (BookSnapshot.hasSnapshotExtension(file)) {
+            rows = Database.exportSnapshot(file, null);
+        } else {
+            rows = Database.exportDatabase(file, Database.exportRowsPerStatement, Database.isCompressed(file), null);
+        }
+        err.println("Exported " + rows + " books to " + file + ".");
+    }
+
+    private void flushQuietly() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Keeps the standard output open when the writer of a query is closed.
+     */
+    private static class NonClosingWriter extends FilterWriter {
+        NonClosingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Embedded HTTP service exposing the books as JSON, so that several clients can use the catalogue at
+ * the same time as the window.
+ *
+ * Endpoints, books being JSON objects with the fields of {@link ColumnMapping#defaults()}:
+ * <pre>
+ * GET    /books?after=&lt;id&gt;&amp;limit=&lt;n&gt;  page of books ordered by ID: {"books": [...], "next": &lt;id or null&gt;}
+ * GET    /books/stream                all the books as JSON Lines, streamed while they are read
+ * GET    /books/&lt;id&gt;                  one book
+ * POST   /books                       add a book
+ * PUT    /books/&lt;id&gt;                  update a book
+ * DELETE /books/&lt;id&gt;                  delete a book
+ * GET    /search?q=&lt;words&gt;&amp;limit=&lt;n&gt;  full-text search, best match first
+ * </pre>
+ * Each request runs on its own virtual thread. Request bodies larger than
+ * {@code books.server.maxBodyBytes} (default 65536) are refused with 413, page and search limits are
+ * capped at {@code books.server.maxPageSize} (default 1000), and requests beyond
+ * {@code books.server.maxConcurrentRequests} (default 256) in flight get a 503.
+ */
+public class BooksServer {
+    static int maxBodyBytes = Integer.getInteger("books.server.maxBodyBytes", 65_536);
+    static int maxPageSize = Integer.getInteger("books.server.maxPageSize", 1_000);
+    static int maxConcurrentRequests = Integer.getInteger("books.server.maxConcurrentRequests", 256);
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String JSON_LINES = "application/x-ndjson; charset=utf-8";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore inFlight = new Semaphore(maxConcurrentRequests);
+
+    /**
+     * Creates a server listening on a port of the loopback address, so that only the clients of this
+     * machine reach it. The database must be launched.
+     *
+     * @param port the port to listen to, or 0 for any free port
+     * @throws IOException If the port cannot be bound.
+     */
+    public BooksServer(int port) throws IOException {
+        this(InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * Creates a server listening on a port of a local address. The database must be launched.
+     *
+     * @param address the address to listen to, or the wildcard address to listen to all of them
+     * @param port    the port to listen to, or 0 for any free port
+     * @throws IOException If the port cannot be bound.
+     */
+    public BooksServer(InetAddress address, int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        server.createContext("/books", exchange -> handle(exchange, this::books));
+        server.createContext("/search", exchange -> handle(exchange, this::search));
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts answering requests, in the background.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server, giving the requests in flight up to a second to complete.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * Retrieves the address the server listens to.
+     *
+     * @return the bound address
+     */
+    public InetAddress getAddress() {
+        return server.getAddress().getAddress();
+    }
+
+    /**
+     * Retrieves the port the server listens to.
+     *
+     * @return the bound port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Handles an exchange within the request limits and turns failures into JSON error responses.
+     */
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try (exchange) {
+            if (!inFlight.tryAcquire()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendError(exchange, 503, "Too many requests in flight");
+                return;
+            }
+            try {
+                handler.handle(exchange);
+            } catch (HttpException e) {
+                sendError(exchange, e.status, e.getMessage());
+            } catch (SQLException | RuntimeException e) {
+                sendError(exchange, 500, e.getMessage());
+            } finally {
+                inFlight.release();
+            }
+        }
+    }
+
+    private void books(HttpExchange exchange) throws IOException, SQLException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        if (path.equals("/books") || path.equals("/books/")) {
+            switch (method) {
+                case "GET" -> listBooks(exchange);
+                case "POST" -> addBook(exchange);
+                default -> throw new HttpException(405, "Method not allowed: " + method);
+            }
+        } else if (path.equals("/books/stream")) {
+            requireMethod(exchange, "GET");
+            streamBooks(exchange);
+        } else {
+            int id = parseInt(path.substring("/books/".length()), "book ID");
+            switch (method) {
+                case "GET" -> {
+                    Book book = Database.getBook(id);
+                    if (book == null) {
+                        throw new HttpException(404, "No book with ID " + id);
+                    }
+                    sendBooks(exchange, 200, List.of(book), false, null);
+                }
+                case "PUT" -> {
+                    Book book = readBook(exchange, id);
+                    if (Database.getBook(id) == null) {
+                        throw new HttpException(404, "No book with ID " + id);
+                    }
+                    Database.updateBook(id, book.title(), book.author(), book.publisher(), book.year(),
+                            book.synopsis());
+                    sendBooks(exchange, 200, List.of(book), false, null);
+                }
+                case "DELETE" -> {
+                    if (Database.getBook(id) == null) {
+                        throw new HttpException(404, "No book with ID " + id);
+                    }
+                    Database.deleteBook(id);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> throw new HttpException(405, "Method not allowed: " + method);
+            }
+        }
+    }
+
+    private void listBooks(HttpExchange exchange) throws IOException, SQLException {
+        Map<String, String> query = query(exchange);
+        int limit = limit(query);
+        List<Book> books = query.containsKey("after")
+                ? Database.listBooks(parseInt(query.get("after"), "after"), limit)
+                : Database.listBooks(limit);
+        Integer next = books.size() == limit ? books.get(books.size() - 1).id() : null;
+        sendBooks(exchange, 200, books, true, next);
+    }
+
+    private void addBook(HttpExchange exchange) throws IOException, SQLException {
+        Book book = readBook(exchange, null);
+        if (Database.getBook(book.id()) != null) {
+            throw new HttpException(409, "A book with ID " + book.id() + " already exists");
+        }
+        Database.addBook(book.id(), book.title(), book.author(), book.publisher(), book.year(), book.synopsis());
+        exchange.getResponseHeaders().set("Location", "/books/" + book.id());
+        sendBooks(exchange, 201, List.of(book), false, null);
+    }
+
+    /**
+     * Streams all the books as JSON Lines with chunked encoding, so that memory use does not depend on
+     * the size of the table.
+     */
+    private void streamBooks(HttpExchange exchange) throws IOException, SQLException {
+        try (Stream<Book> books = Database.streamBooks()) {
+            Iterator<Book> iterator = books.iterator();
+            // Read the first row before committing to a 200, so that a failing query still gets a 500
+            boolean hasNext = iterator.hasNext();
+            exchange.getResponseHeaders().set("Content-Type", JSON_LINES);
+            exchange.sendResponseHeaders(200, 0);
+            try (BookFileWriter writer = new BookFileWriter(responseWriter(exchange), BookFileFormat.JSON_LINES,
+                    ColumnMapping.defaults())) {
+                while (hasNext) {
+                    writer.write(iterator.next());
+                    hasNext = iterator.hasNext();
+                }
+            }
+        }
+    }
+
+    private void search(HttpExchange exchange) throws IOException, SQLException {
+        requireMethod(exchange, "GET");
+        Map<String, String> query = query(exchange);
+        String words = query.get("q");
+        if (words == null || words.isBlank()) {
+            throw new HttpException(400, "Missing search words: q");
+        }
+        sendBooks(exchange, 200, Database.search(words, limit(query)), true, null);
+    }
+
+    /**
+     * Reads a book from the JSON object of the request body, with the same checks as an import.
+     *
+     * @param id the ID of the book from the path, or null if the body must hold it
+     */
+    private Book readBook(HttpExchange exchange, Integer id) throws IOException {
+        String body;
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(maxBodyBytes + 1);
+            if (bytes.length > maxBodyBytes) {
+                throw new HttpException(413, "Request body larger than " + maxBodyBytes + " bytes");
+            }
+            body = new String(bytes, StandardCharsets.UTF_8);
+        }
+        // Line breaks can only be whitespace in a JSON object, so the body is read as one JSON line
+        BookRecordReader json = new JsonLinesBookReader(
+                new StringReader(body.replace('\r', ' ').replace('\n', ' ')), ColumnMapping.defaults());
+        BookImporter importer = new BookImporter(new BookRecordReader() {
+            @Override
+            public boolean next(String[] values) throws IOException, RejectedRecordException {
+                if (!json.next(values)) {
+                    return false;
+                }
+                String bodyId = values[BookColumn.ID.ordinal()];
+                if (id != null && bodyId == null) {
+                    values[BookColumn.ID.ordinal()] = id.toString();
+                } else if (id != null && !bodyId.strip().equals(id.toString())) {
+                    throw new RejectedRecordException("ID " + bodyId + " does not match the path");
+                }
+                return true;
+            }
+
+            @Override
+            public long line() {
+                return json.line();
+            }
+
+            @Override
+            public void close() throws IOException {
+                json.close();
+            }
+        });
+        Iterator<Book> books = importer.iterator();
+        Book book = books.hasNext() ? books.next() : null;
+        if (book == null || books.hasNext()) {
+            List<ImportReport.Reject> rejects = importer.rejects();
+            throw new HttpException(400, rejects.isEmpty() ? "Expected one JSON object"
+                    : "Invalid book: " + rejects.get(0).reason());
+        }
+        return book;
+    }
+
+    /**
+     * Sends books as a JSON object, or as an array in a {"books": ...} object with the next page.
+     */
+    private static void sendBooks(HttpExchange exchange, int status, List<Book> books, boolean list, Integer next)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, 0);
+        Writer out = responseWriter(exchange);
+        try (BookFileWriter writer = new BookFileWriter(out, BookFileFormat.JSON_LINES, ColumnMapping.defaults())) {
+            if (!list) {
+                writer.write(books.get(0));
+                return;
+            }
+            out.write("{\"books\":[");
+            for (int i = 0; i < books.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writer.write(books.get(i));
+            }
+            out.write("],\"next\":" + next + "}");
+        }
+    }
+
+    /**
+     * Sends an error as a JSON object. If the response has already started, it is only cut short.
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            return;
+        }
+        byte[] body = ("{\"error\":" + jsonString(String.valueOf(message)) + "}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static Writer responseWriter(HttpExchange exchange) {
+        return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8),
+                1 << 16);
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) {
+            throw new HttpException(405, "Method not allowed: " + exchange.getRequestMethod());
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int equals = pair.indexOf('=');
+                String name = equals < 0 ? pair : pair.substring(0, equals);
+                String value = equals < 0 ? "" : pair.substring(equals + 1);
+                parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                        URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static int limit(Map<String, String> query) {
+        String limit = query.get("limit");
+        int value = limit == null ? DEFAULT_PAGE_SIZE : parseInt(limit, "limit");
+        if (value < 1) {
+            throw new HttpException(400, "The limit must be at least 1");
+        }
+        return Math.min(value, maxPageSize);
+    }
+
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new HttpException(400, "Invalid " + name + ": " + value);
+        }
+    }
+
+    private static String jsonString(String value) {
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    /**
+     * Handles the requests of one context.
+     */
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException, SQLException;
+    }
+
+    /**
+     * Ends a request with an error status.
+     */
+    private static class HttpException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        HttpException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
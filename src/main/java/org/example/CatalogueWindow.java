@@ -0,0 +1,134 @@
+package org.example;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Window showing the statistics of the catalogue from the materialized counters of {@link Database}:
+ * the totals and the range of the publication years, and the number of books per author, publisher,
+ * decade or year. The authors and publishers with the most books are listed first; the decades and
+ * years in order, as a histogram.
+ */
+public class CatalogueWindow extends Stage {
+    private static final int GROUP_LIMIT = 100;
+
+    private final TableView<BookCounters.GroupCount> table = new TableView<>();
+    private final Label summaryLabel = new Label();
+    private final ComboBox<BookGrouping> groupingBox =
+            new ComboBox<>(FXCollections.observableArrayList(BookGrouping.values()));
+
+    /**
+     * Constructs a new CatalogueWindow stage.
+     *
+     * @param primaryScene the primary scene to copy stylesheets from
+     */
+    public CatalogueWindow(Scene primaryScene) {
+        table.getColumns().add(column("Group", 300, BookCounters.GroupCount::key));
+        table.getColumns().add(column("Books", 100, BookCounters.GroupCount::books));
+        table.setPlaceholder(new Label("No books."));
+        VBox.setVgrow(table, Priority.ALWAYS);
+
+        groupingBox.getSelectionModel().selectFirst();
+        groupingBox.setOnAction(event -> refresh());
+
+        Button refreshButton = new Button("Refresh");
+        refreshButton.setOnAction(event -> refresh());
+
+        Button closeButton = new Button("Close");
+        closeButton.setOnAction(event -> close());
+
+        GridPane grid = new GridPane();
+        grid.addRow(0, new Label("Books per:"), groupingBox, refreshButton, closeButton);
+        grid.setHgap(10);
+
+        VBox vbox = new VBox();
+        vbox.getChildren().addAll(summaryLabel, grid, table);
+        vbox.setSpacing(10);
+
+        Scene scene = new Scene(vbox);
+        scene.getStylesheets().addAll(primaryScene.getStylesheets());
+        setMinWidth(500);
+        setMinHeight(400);
+        setScene(scene);
+        setTitle("Catalogue Statistics");
+
+        refresh();
+    }
+
+    /**
+     * Creates a read-only column showing one field of the groups.
+     */
+    private static <T> TableColumn<BookCounters.GroupCount, T> column(String title, double width,
+                                                                      Function<BookCounters.GroupCount, T> field) {
+        TableColumn<BookCounters.GroupCount, T> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(field.apply(cell.getValue())));
+        column.setPrefWidth(width);
+        return column;
+    }
+
+    /**
+     * Reads the counters in the background, as the first read after a reload counts the books, and
+     * shows them.
+     */
+    private void refresh() {
+        BookGrouping grouping = groupingBox.getValue();
+        AsyncDatabase.submit(() -> new Statistics(Database.getBookSummary(), groups(grouping)))
+                .whenCompleteAsync((statistics, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        cause.printStackTrace();
+                        summaryLabel.setText("Failed to read the statistics: " + cause.getMessage());
+                    } else if (grouping == groupingBox.getValue()) {
+                        BookCounters.Summary summary = statistics.summary();
+                        summaryLabel.setText(summary.books() + " books, " + summary.authors() + " authors, "
+                                + summary.publishers() + " publishers"
+                                + (summary.minYear() == null ? ""
+                                : ", published from " + summary.minYear() + " to " + summary.maxYear()));
+                        table.setItems(FXCollections.observableArrayList(statistics.groups()));
+                    }
+                }, Platform::runLater);
+    }
+
+    /**
+     * Reads the groups shown for a grouping: the largest authors and publishers, every decade and year.
+     *
+     * @return the groups, with their keys formatted
+     */
+    private static List<BookCounters.GroupCount> groups(BookGrouping grouping) throws SQLException {
+        List<BookCounters.GroupCount> groups = new ArrayList<>();
+        if (grouping == BookGrouping.AUTHOR || grouping == BookGrouping.PUBLISHER) {
+            for (BookCounters.GroupCount count : Database.largestGroups(grouping, GROUP_LIMIT)) {
+                groups.add(new BookCounters.GroupCount(grouping.format(count.key()), count.books()));
+            }
+        } else {
+            for (Map.Entry<Object, Long> count : Database.countBooksBy(grouping).entrySet()) {
+                groups.add(new BookCounters.GroupCount(grouping.format(count.getKey()), count.getValue()));
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * The statistics read for a refresh.
+     */
+    private record Statistics(BookCounters.Summary summary, List<BookCounters.GroupCount> groups) {
+    }
+}
@@ -0,0 +1,189 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Journal of the changes made to the books since they were last saved to, or loaded from, a base file.
+ *
+ * The changes are coalesced by ID, so the journal holds the last state of each changed book, or its
+ * deletion. Flushing the journal writes a delta file next to the base: a SQL script deleting every
+ * changed ID, then inserting the changed books again. Deltas are named after their base, e.g.
+ * {@code books.sql.delta-000001.sql}, and replayed in order after it. Replaying a delta twice gives the
+ * same result, so a change made while a file is written can safely end up in the next delta too.
+ */
+class ChangeJournal implements BookChangeListener {
+    private static final String DELTA_MARKER = ".delta-";
+    private static final String DELTA_SUFFIX = ".sql";
+
+    private final Map<Integer, Book> pending = new LinkedHashMap<>();
+    private Path base;
+
+    @Override
+    public synchronized void onAdded(Book book) {
+        pending.put(book.id(), book);
+    }
+
+    @Override
+    public synchronized void onUpdated(Book oldBook, Book newBook) {
+        if (oldBook.id() != newBook.id()) {
+            pending.put(oldBook.id(), null);
+        }
+        pending.put(newBook.id(), newBook);
+    }
+
+    @Override
+    public synchronized void onDeleted(Book book) {
+        pending.put(book.id(), null);
+    }
+
+    /**
+     * Forgets the changes and the base: after a reload, the books come from a file again.
+     */
+    @Override
+    public synchronized void onReloaded() {
+        pending.clear();
+        base = null;
+    }
+
+    /**
+     * Retrieves the file the changes are saved next to.
+     *
+     * @return the absolute path of the base file, or null if the books were not loaded from or saved to a file
+     */
+    synchronized Path base() {
+        return base;
+    }
+
+    /**
+     * Sets the file the changes are saved next to.
+     *
+     * @param base the base file, holding every change made before the journal was drained
+     */
+    synchronized void setBase(Path base) {
+        this.base = base.toAbsolutePath();
+    }
+
+    /**
+     * Retrieves the number of books changed since the last save.
+     *
+     * @return the number of pending changes
+     */
+    synchronized int pendingChanges() {
+        return pending.size();
+    }
+
+    /**
+     * Removes the pending changes, before they are written to a file.
+     *
+     * @return the changes, the value of a deleted book being null
+     */
+    synchronized Map<Integer, Book> drain() {
+        Map<Integer, Book> changes = new LinkedHashMap<>(pending);
+        pending.clear();
+        return changes;
+    }
+
+    /**
+     * Puts back changes that could not be written, unless the same books changed again since.
+     *
+     * @param changes the changes returned by {@link #drain()}
+     */
+    synchronized void restore(Map<Integer, Book> changes) {
+        for (Map.Entry<Integer, Book> change : changes.entrySet()) {
+            pending.putIfAbsent(change.getKey(), change.getValue());
+        }
+    }
+
+    /**
+     * Writes the pending changes to the next delta file of the base.
+     *
+     * @param rowsPerStatement the maximum number of rows of each statement of the delta
+     * @return the delta file, or null if there was no change to write
+     * @throws IOException           If the delta cannot be written. The changes stay in the journal.
+     * @throws IllegalStateException If there is no base file.
+     */
+    Path flush(int rowsPerStatement) throws IOException {
+        Path target = base();
+        if (target == null) {
+            throw new IllegalStateException("No file to save the changes to, save the whole database first");
+        }
+        Map<Integer, Book> changes = drain();
+        if (changes.isEmpty()) {
+            return null;
+        }
+
+        Path delta = nextDelta(target);
+        try (SqlScriptWriter writer = new SqlScriptWriter(delta, rowsPerStatement, false)) {
+            for (Integer id : changes.keySet()) {
+                writer.delete(id);
+            }
+            for (Book book : changes.values()) {
+                if (book != null) {
+                    writer.write(book);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            restore(changes);
+            Files.deleteIfExists(delta);
+            throw e;
+        }
+        return delta;
+    }
+
+    /**
+     * Lists the delta files of a base file.
+     *
+     * @param base the base file
+     * @return the delta files, in the order they were written
+     * @throws IOException If the directory of the base cannot be read.
+     */
+    static List<Path> deltas(Path base) throws IOException {
+        Path absolute = base.toAbsolutePath();
+        String prefix = absolute.getFileName() + DELTA_MARKER;
+        TreeMap<Long, Path> deltas = new TreeMap<>();
+        try (Stream<Path> files = Files.list(absolute.getParent())) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(prefix) && name.endsWith(DELTA_SUFFIX)) {
+                    String number = name.substring(prefix.length(), name.length() - DELTA_SUFFIX.length());
+                    if (!number.isEmpty() && number.chars().allMatch(Character::isDigit)) {
+                        deltas.put(Long.parseLong(number), file);
+                    }
+                }
+            });
+        }
+        return new ArrayList<>(deltas.values());
+    }
+
+    /**
+     * Deletes the delta files of a base file, once it holds their changes.
+     *
+     * @param base the base file
+     * @throws IOException If a delta cannot be deleted.
+     */
+    static void deleteDeltas(Path base) throws IOException {
+        for (Path delta : deltas(base)) {
+            Files.deleteIfExists(delta);
+        }
+    }
+
+    private static Path nextDelta(Path base) throws IOException {
+        List<Path> existing = deltas(base);
+        long number = 1;
+        if (!existing.isEmpty()) {
+            String last = existing.get(existing.size() - 1).getFileName().toString();
+            String prefix = base.getFileName() + DELTA_MARKER;
+            number = Long.parseLong(last.substring(prefix.length(), last.length() - DELTA_SUFFIX.length())) + 1;
+        }
+        return base.resolveSibling(String.format("%s%s%06d%s", base.getFileName(), DELTA_MARKER, number,
+                DELTA_SUFFIX));
+    }
+}
@@ -0,0 +1,107 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps the fields of an interchange file, CSV header names or JSON keys, onto the columns of the BOOKS
+ * table.
+ *
+ * Field names are matched case-insensitively. On import, the fields that are not mapped are ignored. On
+ * export, each mapped column is written under the first field mapped onto it, in column order.
+ */
+public final class ColumnMapping {
+    private static final ColumnMapping DEFAULTS =
+            parse("ID=ID, TITLE=TITLE, AUTHOR=AUTHOR, PUBLISHER=PUBLISHER, PUBLICATION_YEAR=YEAR, YEAR=YEAR, "
+                    + "SYNOPSIS=SYNOPSIS");
+
+    private final Map<String, BookColumn> columns;
+    private final Map<BookColumn, String> fields;
+
+    private ColumnMapping(Map<String, BookColumn> columns, Map<BookColumn, String> fields) {
+        this.columns = columns;
+        this.fields = fields;
+    }
+
+    /**
+     * Retrieves the mapping of the fields named after the columns, such as the ones written by default.
+     * YEAR is accepted for PUBLICATION_YEAR.
+     *
+     * @return the default mapping
+     */
+    public static ColumnMapping defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Parses a mapping written as comma separated {@code field=COLUMN} pairs, for instance
+     * {@code "book_id=ID, name=TITLE, writer=AUTHOR"}. A column is named after its {@link BookColumn}
+     * constant or its SQL column name. A blank specification gives the default mapping.
+     *
+     * @param specification the mapping to parse
+     * @return the parsed mapping
+     * @throws IllegalArgumentException If a pair is malformed, names an unknown column or maps a field twice.
+     */
+    public static ColumnMapping parse(String specification) {
+        if (specification == null || specification.isBlank()) {
+            return DEFAULTS;
+        }
+        Map<String, BookColumn> columns = new HashMap<>();
+        Map<BookColumn, String> fields = new EnumMap<>(BookColumn.class);
+        int start = 0;
+        while (start <= specification.length()) {
+            int end = specification.indexOf(',', start);
+            if (end < 0) {
+                end = specification.length();
+            }
+            String pair = specification.substring(start, end).strip();
+            start = end + 1;
+            if (pair.isEmpty()) {
+                continue;
+            }
+
+            int equals = pair.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Expected field=COLUMN, found: " + pair);
+            }
+            String field = pair.substring(0, equals).strip();
+            BookColumn column = column(pair.substring(equals + 1).strip());
+            if (columns.put(field.toUpperCase(Locale.ROOT), column) != null) {
+                throw new IllegalArgumentException("Field mapped twice: " + field);
+            }
+            fields.putIfAbsent(column, field);
+        }
+        return new ColumnMapping(Collections.unmodifiableMap(columns), Collections.unmodifiableMap(fields));
+    }
+
+    private static BookColumn column(String name) {
+        for (BookColumn column : BookColumn.values()) {
+            if (column.name().equalsIgnoreCase(name) || column.columnName().equalsIgnoreCase(name)) {
+                return column;
+            }
+        }
+        throw new IllegalArgumentException("Unknown column: " + name);
+    }
+
+    /**
+     * Finds the column a field is mapped onto.
+     *
+     * @param field the name of the field
+     * @return the column, or null if the field is not mapped
+     */
+    BookColumn columnFor(String field) {
+        return columns.get(field.strip().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Retrieves the fields written on export.
+     *
+     * @return the name of each mapped column, in column order
+     */
+    Map<BookColumn, String> exportFields() {
+        return fields;
+    }
+}
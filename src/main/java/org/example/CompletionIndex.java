@@ -0,0 +1,220 @@
+package org.example;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory sorted index of the distinct titles, authors and publishers of the BOOKS table, completing
+ * a prefix typed by the user.
+ *
+ * Each column keeps its distinct values in a sorted map, ignoring case, with the number of books
+ * having each value. A completion is a lookup of the prefix followed by a scan of the values starting
+ * with it, so it costs the same whatever the size of the table. A change adds or removes a value in
+ * logarithmic time, so a bulk import into a built index does not hold the lock for long.
+ *
+ * The index is kept up to date as a {@link BookChangeListener}. After a reload it is rebuilt from the
+ * database on the next completion.
+ */
+public class CompletionIndex implements BookChangeListener {
+    private static final BookColumn[] COLUMNS = {BookColumn.TITLE, BookColumn.AUTHOR, BookColumn.PUBLISHER};
+    // Case-insensitive first, so that the values starting with a prefix in any case are contiguous
+    private static final Comparator<String> ORDER =
+            String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<BookColumn, SortedValues> columns = new EnumMap<>(BookColumn.class);
+    private boolean stale = true;
+
+    /**
+     * Creates an empty index, filled on the first completion.
+     */
+    public CompletionIndex() {
+        for (BookColumn column : COLUMNS) {
+            columns.put(column, new SortedValues());
+        }
+    }
+
+    @Override
+    public void onAdded(Book book) {
+        lock.writeLock().lock();
+        try {
+            if (!stale) {
+                for (BookColumn column : COLUMNS) {
+                    columns.get(column).add((String) column.get(book));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onUpdated(Book oldBook, Book newBook) {
+        lock.writeLock().lock();
+        try {
+            if (!stale) {
+                for (BookColumn column : COLUMNS) {
+                    String oldValue = (String) column.get(oldBook);
+                    String newValue = (String) column.get(newBook);
+                    if (!oldValue.equals(newValue)) {
+                        columns.get(column).remove(oldValue);
+                        columns.get(column).add(newValue);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDeleted(Book book) {
+        lock.writeLock().lock();
+        try {
+            if (!stale) {
+                for (BookColumn column : COLUMNS) {
+                    columns.get(column).remove((String) column.get(book));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onReloaded() {
+        lock.writeLock().lock();
+        try {
+            for (SortedValues values : columns.values()) {
+                values.clear();
+            }
+            stale = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Completes a prefix with the values of a column starting with it, ignoring case.
+     *
+     * @param column the column, TITLE, AUTHOR or PUBLISHER
+     * @param prefix the start of the value typed
+     * @param limit  the maximum number of values to return
+     * @return the distinct values starting with the prefix, in alphabetical order
+     * @throws SQLException If the index had to be rebuilt and reading the books failed.
+     * @throws IllegalArgumentException If the column is not completed.
+     */
+    public List<String> complete(BookColumn column, String prefix, int limit) throws SQLException {
+        if (!columns.containsKey(column)) {
+            throw new IllegalArgumentException("No completion on " + column.columnName());
+        }
+        rebuildIfStale();
+
+        lock.readLock().lock();
+        try {
+            return columns.get(column).startingWith(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the database if a reload made it stale, counting the values of the three
+     * columns in one pass and sorting each column once. The values are counted and sorted without holding
+     * the lock, then swapped in under it; the changes wait meanwhile, so that none is both counted from the
+     * books and notified.
+     */
+    private void rebuildIfStale() throws SQLException {
+        lock.readLock().lock();
+        try {
+            if (!stale) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Database.readBooksWithoutChanges(books -> {
+            Map<BookColumn, Map<String, Integer>> counts = new EnumMap<>(BookColumn.class);
+            for (BookColumn column : COLUMNS) {
+                counts.put(column, new HashMap<>());
+            }
+            books.forEach(book -> {
+                for (BookColumn column : COLUMNS) {
+                    counts.get(column).merge((String) column.get(book), 1, Integer::sum);
+                }
+            });
+            Map<BookColumn, SortedValues> loaded = new EnumMap<>(BookColumn.class);
+            for (BookColumn column : COLUMNS) {
+                loaded.put(column, new SortedValues(counts.get(column)));
+            }
+
+            lock.writeLock().lock();
+            try {
+                if (stale) {
+                    for (BookColumn column : COLUMNS) {
+                        columns.get(column).load(loaded.get(column));
+                    }
+                    stale = false;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * The distinct values of a column in a sorted map, with the number of books having each.
+     */
+    private static final class SortedValues {
+        private TreeMap<String, Integer> counts = new TreeMap<>(ORDER);
+
+        SortedValues() {
+        }
+
+        SortedValues(Map<String, Integer> counted) {
+            counts.putAll(counted);
+        }
+
+        void add(String value) {
+            counts.merge(value, 1, Integer::sum);
+        }
+
+        void remove(String value) {
+            // A value no book has any more is removed
+            counts.computeIfPresent(value, (key, count) -> count == 1 ? null : count - 1);
+        }
+
+        void load(SortedValues loaded) {
+            counts = loaded.counts;
+        }
+
+        void clear() {
+            counts = new TreeMap<>(ORDER);
+        }
+
+        List<String> startingWith(String prefix, int limit) {
+            // The values equal to the prefix ignoring case may sort before it by their case
+            String first = prefix;
+            String lower;
+            while ((lower = counts.lowerKey(first)) != null && lower.equalsIgnoreCase(prefix)) {
+                first = lower;
+            }
+            List<String> found = new ArrayList<>(Math.min(limit, 16));
+            for (String value : counts.tailMap(first, true).keySet()) {
+                if (found.size() >= limit || !value.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                    break;
+                }
+                found.add(value);
+            }
+            return found;
+        }
+    }
+}
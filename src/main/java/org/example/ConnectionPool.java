@@ -0,0 +1,329 @@
+package org.example;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded pool of long-lived JDBC connections.
+ *
+ * Connections are opened lazily up to the maximum size, handed out with {@link #borrow()} and given
+ * back by closing the returned {@link PooledConnection}. Connections that stayed idle for a while are
+ * validated before being reused, and a background task closes the ones idle for longer than the
+ * idle timeout.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private final String url;
+    private final int maxSize;
+    private final int minIdle;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final int statementCacheSize;
+    private final int adHocCacheSize;
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+    private int total;
+    private boolean closed;
+
+    private long borrowCount;
+    private long timeoutCount;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    /**
+     * Creates a new pool. No connection is opened until the first borrow.
+     *
+     * @param url                 JDBC url used to open the physical connections
+     * @param maxSize             maximum number of open connections
+     * @param minIdle             number of idle connections kept open by the idle eviction
+     * @param borrowTimeoutMillis maximum time to wait for a free connection
+     * @param idleTimeoutMillis   idle time after which a connection gets closed
+     * @param statementCacheSize  number of prepared statements cached per connection
+     * @param adHocCacheSize      number of user-typed statements cached per connection
+     */
+    public ConnectionPool(String url, int maxSize, int minIdle, long borrowTimeoutMillis, long idleTimeoutMillis,
+                          int statementCacheSize, int adHocCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.url = url;
+        this.maxSize = maxSize;
+        this.minIdle = Math.min(minIdle, maxSize);
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIntervalMillis = Math.min(idleTimeoutMillis, 5_000);
+        this.statementCacheSize = statementCacheSize;
+        this.adHocCacheSize = adHocCacheSize;
+
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(idleTimeoutMillis / 2, 1_000);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if none is idle and the pool is not full.
+     * The caller must close the returned connection to give it back.
+     *
+     * @return a valid pooled connection
+     * @throws SQLException If no connection could be obtained before the borrow timeout or the pool is closed.
+     */
+    public PooledConnection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long remaining = TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean open = false;
+
+            lock.lock();
+            try {
+                while (!closed && idle.isEmpty() && total >= maxSize) {
+                    if (remaining <= 0) {
+                        timeoutCount++;
+                        throw new SQLTimeoutException("Timed out after " + borrowTimeoutMillis
+                                + " ms waiting for a database connection");
+                    }
+                    try {
+                        remaining = available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    }
+                }
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+                if (!idle.isEmpty()) {
+                    candidate = idle.pollLast();
+                } else {
+                    total++;
+                    open = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (open) {
+                try {
+                    candidate = new PooledConnection(this, DriverManager.getConnection(url),
+                            statementCacheSize, adHocCacheSize, statementCounters);
+                } catch (SQLException e) {
+                    discard(null);
+                    throw e;
+                }
+            } else if (!isUsable(candidate)) {
+                discard(candidate);
+                continue;
+            }
+
+            candidate.markBorrowed();
+            recordWait(System.nanoTime() - start);
+            return candidate;
+        }
+    }
+
+    /**
+     * Gives a borrowed connection back to the pool. Called by {@link PooledConnection#close()}.
+     *
+     * @param connection the connection to give back
+     */
+    void release(PooledConnection connection) {
+        boolean healthy;
+        try {
+            Connection physical = connection.connection();
+            healthy = !physical.isClosed();
+            if (healthy && !physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            healthy = false;
+        }
+
+        lock.lock();
+        try {
+            if (healthy && !closed) {
+                connection.markIdle();
+                idle.addLast(connection);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        discard(connection);
+    }
+
+    /**
+     * Checks whether an idle connection can be handed out again. Connections that were used recently
+     * are trusted, older ones are validated against the database.
+     */
+    private boolean isUsable(PooledConnection connection) {
+        try {
+            if (connection.connection().isClosed()) {
+                return false;
+            }
+            if (System.currentTimeMillis() - connection.getLastUsed() < validationIntervalMillis) {
+                return true;
+            }
+            return connection.connection().isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Removes a connection from the pool accounting and closes it.
+     *
+     * @param connection the connection to close, or null if it could not be opened
+     */
+    private void discard(PooledConnection connection) {
+        lock.lock();
+        try {
+            total--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (connection != null) {
+            connection.closePhysical();
+        }
+    }
+
+    /**
+     * Closes the connections that stayed idle longer than the idle timeout, keeping at least
+     * the minimum number of idle connections open.
+     */
+    private void evictIdle() {
+        List<PooledConnection> evicted = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        lock.lock();
+        try {
+            Iterator<PooledConnection> iterator = idle.iterator();
+            while (iterator.hasNext() && idle.size() > minIdle) {
+                PooledConnection connection = iterator.next();
+                if (now - connection.getLastUsed() >= idleTimeoutMillis) {
+                    iterator.remove();
+                    total--;
+                    evicted.add(connection);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (PooledConnection connection : evicted) {
+            connection.closePhysical();
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        lock.lock();
+        try {
+            borrowCount++;
+            totalWaitNanos += waitNanos;
+            maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a snapshot of the pool metrics.
+     *
+     * @return the current pool statistics
+     */
+    public PoolStats getStats() {
+        lock.lock();
+        try {
+            long averageWait = borrowCount == 0 ? 0 : totalWaitNanos / borrowCount;
+            return new PoolStats(total - idle.size(), idle.size(), maxSize, borrowCount, timeoutCount,
+                    TimeUnit.NANOSECONDS.toMicros(averageWait), TimeUnit.NANOSECONDS.toMicros(maxWaitNanos));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a snapshot of the prepared statement cache counters of all the pooled connections.
+     *
+     * @return the current statement cache statistics
+     */
+    public StatementCacheStats getStatementCacheStats() {
+        return new StatementCacheStats(statementCounters.hits.sum(), statementCounters.misses.sum(),
+                statementCounters.evictions.sum());
+    }
+
+    /**
+     * Closes the pool and all its idle connections. Connections still borrowed are closed
+     * when they are given back.
+     */
+    @Override
+    public void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            total -= idle.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        evictor.shutdownNow();
+        for (PooledConnection connection : toClose) {
+            connection.closePhysical();
+        }
+    }
+
+    /**
+     * Snapshot of the pool metrics.
+     *
+     * @param active          connections currently borrowed
+     * @param idle            connections open and waiting in the pool
+     * @param maxSize         maximum number of connections
+     * @param borrowCount     number of successful borrows
+     * @param timeoutCount    number of borrows that timed out
+     * @param averageWaitMicros average time spent waiting for a connection
+     * @param maxWaitMicros   longest time spent waiting for a connection
+     */
+    public record PoolStats(int active, int idle, int maxSize, long borrowCount, long timeoutCount,
+                            long averageWaitMicros, long maxWaitMicros) {
+    }
+
+    /**
+     * Snapshot of the prepared statement cache counters.
+     *
+     * @param hits      statements found in a cache
+     * @param misses    statements that had to be prepared
+     * @param evictions statements closed to make room in a full cache
+     */
+    public record StatementCacheStats(long hits, long misses, long evictions) {
+    }
+}
@@ -0,0 +1,177 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads CSV records as specified by RFC 4180: comma separated fields, optionally enclosed in double
+ * quotes, with doubled quotes for the quotes they contain and line breaks allowed inside them.
+ *
+ * The first record is the header. Its field names are mapped onto the columns with a {@link ColumnMapping}.
+ * The file is read through a buffer, one character at a time, so memory use only depends on the size of
+ * the longest record.
+ */
+class CsvBookReader implements BookRecordReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private BookColumn[] columns;
+    private int position;
+    private int limit;
+    private long currentLine = 1;
+    private long recordLine;
+
+    /**
+     * Creates a reader and reads the header.
+     *
+     * @param reader  the file to read, closed with this reader
+     * @param mapping maps the header names onto the columns
+     * @throws IOException If the file cannot be read, has no header, or its header maps no column.
+     */
+    CsvBookReader(Reader reader, ColumnMapping mapping) throws IOException {
+        this.reader = reader;
+        if (peek() == '\uFEFF') {
+            read();
+        }
+        try {
+            if (!readRecord()) {
+                throw new IOException("The CSV file is empty, a header line is expected");
+            }
+        } catch (RejectedRecordException e) {
+            throw new IOException("Malformed CSV header: " + e.getMessage(), e);
+        }
+        columns = new BookColumn[fields.size()];
+        boolean mapped = false;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = mapping.columnFor(fields.get(i));
+            mapped |= columns[i] != null;
+        }
+        if (!mapped) {
+            throw new IOException("No field of the CSV header is mapped onto a column: " + fields);
+        }
+    }
+
+    @Override
+    public boolean next(String[] values) throws IOException, RejectedRecordException {
+        if (!readRecord()) {
+            return false;
+        }
+        if (fields.size() != columns.length) {
+            throw new RejectedRecordException("Expected " + columns.length + " fields, found " + fields.size());
+        }
+        Arrays.fill(values, null);
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] != null) {
+                values[columns[i].ordinal()] = fields.get(i);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long line() {
+        return recordLine;
+    }
+
+    /**
+     * Reads the fields of the next record, skipping blank lines.
+     *
+     * @return false at the end of the file
+     */
+    private boolean readRecord() throws IOException, RejectedRecordException {
+        fields.clear();
+        int c;
+        while ((c = peek()) == '\r' || c == '\n') {
+            readLineBreak();
+        }
+        if (c < 0) {
+            return false;
+        }
+
+        recordLine = currentLine;
+        while (true) {
+            field.setLength(0);
+            if (peek() == '"') {
+                read();
+                readQuoted();
+            }
+            while ((c = peek()) >= 0 && c != ',' && c != '\r' && c != '\n') {
+                field.append((char) read());
+            }
+            fields.add(field.toString());
+            if (c == ',') {
+                read();
+            } else {
+                readLineBreak();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reads a quoted field after its opening quote, up to its closing quote.
+     */
+    private void readQuoted() throws IOException, RejectedRecordException {
+        int c;
+        while ((c = read()) >= 0) {
+            if (c == '"') {
+                if (peek() != '"') {
+                    return;
+                }
+                read();
+            } else if (c == '\n') {
+                currentLine++;
+            }
+            field.append((char) c);
+        }
+        throw new RejectedRecordException("Unterminated quoted field");
+    }
+
+    /**
+     * Consumes a line break: LF, CR LF or a lone CR.
+     */
+    private void readLineBreak() throws IOException {
+        int c = read();
+        if (c == '\r' && peek() == '\n') {
+            read();
+        }
+        if (c >= 0) {
+            currentLine++;
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        limit = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
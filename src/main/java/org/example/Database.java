@@ -1,62 +1,558 @@
 package org.example;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Utility class for interacting with an in-memory H2 database.
+ * With the {@code books.storage=file} system property the database is an H2 file database instead,
+ * kept between runs. With {@code books.engine=memory}, the books are kept by a {@link MemoryBookStore}
+ * instead of H2, without SQL.
  */
 public class Database {
     private static final String H2_MEM_URL = "jdbc:h2:mem:default";
-    private static Connection currentConnection;
+    private static final String H2_FILE_URL = "jdbc:h2:file:";
+    private static final String H2_FILE_SUFFIX = ".mv.db";
+    static final String INSERT_SQL = "INSERT INTO BOOKS (ID, TITLE, AUTHOR, PUBLISHER, PUBLICATION_YEAR, SYNOPSIS) VALUES (?, ?, ?, ?, ?, ?)";
+    private static volatile ConnectionPool pool;
     static String schemaScript = "src/main/resources/schema.sql";
     static String dataScript = "src/main/resources/default.sql";
+    static int poolSize = Integer.getInteger("books.pool.size", 4);
+    static long poolBorrowTimeoutMillis = Long.getLong("books.pool.borrowTimeoutMillis", 30_000);
+    static long poolIdleTimeoutMillis = Long.getLong("books.pool.idleTimeoutMillis", 60_000);
+    static int statementCacheSize = Integer.getInteger("books.statementCache.size", 32);
+    static int adHocStatementCacheSize = Integer.getInteger("books.statementCache.adHocSize", 8);
+    static int fetchSize = Integer.getInteger("books.fetchSize", 100);
+    static int batchChunkSize = Integer.getInteger("books.batch.chunkSize", 1_000);
+    static int exportRowsPerStatement = Integer.getInteger("books.export.rowsPerStatement", 100);
+    static boolean verifyIndexes = Boolean.getBoolean("books.verifyIndexes");
+    static String storage = System.getProperty("books.storage", "memory");
+    static String storagePath = System.getProperty("books.storage.path", "data/books");
+    static int storageCacheSizeKb = Integer.getInteger("books.storage.cacheSizeKb", 65_536);
+    static int loaderThreads = Integer.getInteger("books.loader.threads", Runtime.getRuntime().availableProcessors());
+    static long findCacheMaxRows = Long.getLong("books.findCache.maxRows", 10_000);
+    static long findCacheTtlMillis = Long.getLong("books.findCache.ttlMillis", 300_000);
+    static long reloadDrainTimeoutMillis = Long.getLong("books.reload.drainTimeoutMillis", 30_000);
+    static String engine = System.getProperty("books.engine", "h2");
+    private static final H2BookStore h2Store = new H2BookStore(Database::getConnection);
+    private static volatile MemoryBookStore memoryStore = new MemoryBookStore();
+    private static final ReloadLock reloadLock = new ReloadLock();
+    private static final ReentrantLock[] bookLocks = new ReentrantLock[64];
+    private static final List<BookChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private static final FullTextIndex searchIndex = new FullTextIndex();
+    private static final CompletionIndex completionIndex = new CompletionIndex();
+    private static final BookCounters counters = new BookCounters();
+    private static final FindCache findCache = new FindCache(findCacheMaxRows, findCacheTtlMillis);
+    private static final ChangeJournal journal = new ChangeJournal();
+
+    static {
+        for (int i = 0; i < bookLocks.length; i++) {
+            bookLocks[i] = new ReentrantLock();
+        }
+        addChangeListener(searchIndex);
+        addChangeListener(completionIndex);
+        addChangeListener(counters);
+        addChangeListener(findCache);
+        addChangeListener(journal);
+    }
 
     /**
      * Instantiate the H2 in-memory database and load it with the schema and data from provided scripts.
      *
-     * The database will stay in the memory and keep its content until JVM is terminated or the connection
-     * is explicitly closed.
+     * The database will stay in the memory and keep its content until JVM is terminated.
+     * A new connection pool is created and every later call borrows its connections from it.
+     * The schema script is idempotent and runs at every launch, so it also creates the indexes missing
+     * from an existing database. With {@code books.verifyIndexes} set, the lookups are then checked
+     * with {@link #verifyIndexes()}.
      *
      * @param dataScript sql script containing commands to insert data into tables
+     * @return the number of books loaded and the load duration
      * @throws SQLException sql exception
      */
-    public static void launchDatabase(String dataScript) throws SQLException {
-        closeCurrentConnection();
+    public static LoadReport launchDatabase(String dataScript) throws SQLException {
+        return launchDatabase(dataScript, null);
+    }
+
+    /**
+     * Instantiate the H2 in-memory database and load it with the schema and data from provided scripts.
+     *
+     * The schema script runs with RUNSCRIPT. The data script, or snapshot written by
+     * {@link #exportSnapshot(String, ProgressListener)}, is loaded by a {@link ScriptLoader}: the script
+     * INSERT statements are parsed on {@code books.loader.threads} threads and sent in batches committed
+     * every {@code books.batch.chunkSize} rows.
+     *
+     * @param dataScript sql script containing commands to insert data into tables, or a binary snapshot
+     * @param listener   notified after each committed chunk with the number of books loaded so far, may be null
+     * @return the number of books loaded and the load duration
+     * @throws SQLException If there is an issue with SQL execution or with reading the data script.
+     */
+    public static LoadReport launchDatabase(String dataScript, ProgressListener listener) throws SQLException {
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("launchDatabase")) {
+            LoadReport report = openDatabase(dataScript, listener);
+            timer.success(report.rows());
+            return report;
+        }
+    }
+
+    /**
+     * Starts the database when the application starts.
+     *
+     * In memory, or when the file store does not exist yet, the database is launched with the default
+     * data script. When the file store exists, only the schema script runs: the books are already in the
+     * store, so the start time no longer depends on the size of the catalogue.
+     *
+     * @return the number of books loaded, 0 on a warm start, and the duration of the whole start
+     * @throws SQLException If there is an issue with SQL execution or with reading the data script.
+     */
+    public static LoadReport startDatabase() throws SQLException {
+        long start = System.nanoTime();
+        LoadReport report = openDatabase(isFileStorage() && storeExists() ? null : dataScript, null);
+        return new LoadReport(report.rows(), report.statements(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Creates a new connection pool, runs the schema script, then loads the data script if there is one,
+     * followed by the deltas saved next to it by {@link #saveChanges()}.
+     *
+     * The calls in flight are drained first, waiting up to {@code books.reload.drainTimeoutMillis}, and the
+     * calls made during the reload wait for it to end, so none of them sees a half-loaded database.
+     * With H2, the BOOKS table is emptied before a data script is loaded. With the memory engine, the files
+     * are loaded into a new, empty store, which replaces the current one once loaded; meanwhile the reads
+     * are still answered by the current store.
+     *
+     * @param dataScript the data script or snapshot to load, or null to only run the schema script
+     * @param listener   notified after each committed chunk with the number of books loaded so far, may be null
+     * @return the number of books loaded and the load duration
+     * @throws SQLException If there is an issue with SQL execution or with reading the data script.
+     */
+    private static LoadReport openDatabase(String dataScript, ProgressListener listener) throws SQLException {
+        reloadLock.acquireExclusive(reloadDrainTimeoutMillis);
+        try {
+            closePool();
+
+            LoadReport report;
+            boolean replaced = false;
+            try {
+                if (isMemoryEngine()) {
+                    MemoryBookStore loaded = new MemoryBookStore();
+                    report = loadFiles(dataScript, listener, (loader, file) -> loader.load(loaded, file));
+                    memoryStore = loaded;
+                    replaced = true;
+                } else {
+                    pool = createPool();
+                    try (PooledConnection conn = getConnection()) {
+                        try (Statement stmt = conn.createStatement()) {
+                            stmt.execute(runScript(schemaScript));
+                            if (dataScript != null) {
+                                // The table outlives the pool, so the data script replaces its rows as it
+                                // replaces the memory store, instead of being added to them
+                                stmt.execute("TRUNCATE TABLE BOOKS");
+                                replaced = true;
+                            }
+                        }
+                        report = loadFiles(dataScript, listener, (loader, file) -> loader.load(conn, file));
+                    }
+                }
+            } catch (IOException e) {
+                throw new SQLException("Failed to read the data script " + dataScript, e);
+            } finally {
+                // The journal is reset before any change is made to the new books
+                journal.onReloaded();
+            }
+            // Deltas are only saved next to a file holding exactly the books loaded, not some of them
+            if (replaced && dataScript != null) {
+                journal.setBase(Path.of(dataScript));
+            }
+            if (verifyIndexes) {
+                verifyIndexes();
+            }
+            return report;
+        } finally {
+            reloadLock.releaseExclusive();
+            notifyReloaded();
+        }
+    }
+
+    /**
+     * Notifies the listeners other than the journal that the books were replaced. This is done once the
+     * exclusive lock is released, so that no lock of a listener is taken while it is held: a thread
+     * holding one could be waiting for the reload to end. A change made in between is only dropped by
+     * the listeners with the rest of their state, which they rebuild from books that include it.
+     *
+     * @throws SQLException If a listener fails to read the new content.
+     */
+    private static void notifyReloaded() throws SQLException {
+        for (BookChangeListener changeListener : changeListeners) {
+            if (changeListener != journal) {
+                changeListener.onReloaded();
+            }
+        }
+    }
+
+    /**
+     * Loads a data script or snapshot followed by the deltas saved next to it, each with a new
+     * {@link ScriptLoader}.
+     *
+     * @param dataScript the data script or snapshot to load, or null to load nothing
+     * @param listener   notified after each committed chunk of each file, may be null
+     * @param fileLoader loads one file into the database
+     * @return the total number of books and statements loaded, and the total load duration
+     */
+    private static LoadReport loadFiles(String dataScript, ProgressListener listener, FileLoader fileLoader)
+            throws SQLException, IOException {
+        LoadReport report = new LoadReport(0, 0, 0);
+        if (dataScript == null) {
+            return report;
+        }
+        List<Path> files = new ArrayList<>();
+        files.add(Path.of(dataScript));
+        files.addAll(ChangeJournal.deltas(Path.of(dataScript)));
+        for (Path file : files) {
+            LoadReport fileReport = fileLoader.load(new ScriptLoader(loaderThreads, batchChunkSize, listener), file);
+            report = new LoadReport(report.rows() + fileReport.rows(),
+                    report.statements() + fileReport.statements(),
+                    report.elapsedMillis() + fileReport.elapsedMillis());
+        }
+        return report;
+    }
+
+    /**
+     * Loads one file with a loader.
+     */
+    @FunctionalInterface
+    private interface FileLoader {
+        LoadReport load(ScriptLoader loader, Path file) throws SQLException, IOException;
+    }
+
+    /**
+     * Runs a SQL script of updates, such as a bulk UPDATE or DELETE of the catalogue, against the
+     * current books.
+     *
+     * The script is read and split into statements while it runs, gzip compressed if its name ends with
+     * ".gz", and all its statements run in a single transaction: if one fails, the whole script is
+     * rolled back. As the script can change any row, the listeners are notified of a reload once it is
+     * committed: the caches and the search index are rebuilt, and the changes can no longer be saved as
+     * a delta.
+     *
+     * @param script The script to run.
+     * @return The number of rows changed and of statements run, and the duration of the script.
+     * @throws SQLException If there is an issue with SQL execution, or the books are in the memory engine.
+     * @throws IOException  If there is an issue with reading the script.
+     */
+    public static LoadReport runUpdateScript(String script) throws SQLException, IOException {
+        requireSql("Update scripts");
+        long start = System.nanoTime();
+        long rows = 0;
+        long statements = 0;
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("runUpdateScript", script);
+             // Opened on its own, so that it is closed if the gzip header cannot be read
+             InputStream file = Files.newInputStream(Path.of(script));
+             SqlStatementReader reader = new SqlStatementReader(new InputStreamReader(
+                     isCompressed(script) ? new GZIPInputStream(file, 1 << 16) : file, StandardCharsets.UTF_8));
+             PooledConnection conn = getConnection();
+             Statement stmt = conn.createStatement()) {
+            Connection connection = conn.connection();
+            connection.setAutoCommit(false);
+            try {
+                String sql;
+                while ((sql = reader.next()) != null) {
+                    if (!stmt.execute(sql)) {
+                        rows += Math.max(0, stmt.getUpdateCount());
+                    }
+                    statements++;
+                }
+                connection.commit();
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            timer.success(rows);
+        }
+        for (BookChangeListener changeListener : changeListeners) {
+            changeListener.onReloaded();
+        }
+        return new LoadReport(rows, statements, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Closes the connections to the database, once the calls in flight are done. With file storage, H2
+     * then writes and closes the store. The next call to the database opens a new connection pool.
+     *
+     * @throws SQLException If the calls in flight do not finish within {@code books.reload.drainTimeoutMillis}.
+     */
+    public static void closeDatabase() throws SQLException {
+        reloadLock.acquireExclusive(reloadDrainTimeoutMillis);
+        try {
+            closePool();
+        } finally {
+            reloadLock.releaseExclusive();
+        }
+    }
+
+    /**
+     * Checks whether the books are stored in an H2 file database, from the {@code books.storage} system
+     * property, rather than in memory. The memory engine is never stored in a file.
+     *
+     * @return true if {@code books.storage} is "file" and the engine is H2
+     */
+    public static boolean isFileStorage() {
+        return "file".equalsIgnoreCase(storage) && !isMemoryEngine();
+    }
+
+    /**
+     * Checks whether the books are kept by the {@link MemoryBookStore}, from the {@code books.engine}
+     * system property, rather than by H2.
+     *
+     * @return true if {@code books.engine} is "memory"
+     */
+    public static boolean isMemoryEngine() {
+        return "memory".equalsIgnoreCase(engine);
+    }
+
+    /**
+     * Retrieves the storage engine chosen by {@code books.engine}.
+     */
+    private static BookStore store() {
+        return isMemoryEngine() ? memoryStore : h2Store;
+    }
+
+    /**
+     * Checks that the books are in H2, for the operations that need SQL.
+     *
+     * @param operation the operation, named in the exception
+     * @throws SQLFeatureNotSupportedException If the books are kept by the memory engine.
+     */
+    private static void requireSql(String operation) throws SQLFeatureNotSupportedException {
+        if (isMemoryEngine()) {
+            throw new SQLFeatureNotSupportedException(operation + " need SQL, which the memory engine does not support");
+        }
+    }
+
+    /**
+     * Runs a change on the current storage engine while holding a lease of the {@link ReloadLock}, so that
+     * a reload cannot replace the engine during the change and lose it.
+     *
+     * @param change the change to run
+     * @return the result of the change
+     * @throws SQLException If the change fails.
+     */
+    private static <T> T change(StoreChange<T> change) throws SQLException {
+        ReloadLock.Lease lease = reloadLock.acquireShared();
+        try {
+            return change.apply(store());
+        } finally {
+            lease.close();
+        }
+    }
+
+    /**
+     * Changes the books of a storage engine.
+     */
+    @FunctionalInterface
+    private interface StoreChange<T> {
+        T apply(BookStore store) throws SQLException;
+    }
+
+    /**
+     * Checks whether the file store exists.
+     *
+     * @return true if the MVStore file at {@code books.storage.path} exists
+     */
+    static boolean storeExists() {
+        return Files.exists(Path.of(storagePath + H2_FILE_SUFFIX));
+    }
+
+    /**
+     * Writes the pending changes of the file store to disk. Does nothing in memory.
+     *
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    public static void checkpoint() throws SQLException {
+        if (!isFileStorage()) {
+            return;
+        }
+        try (PooledConnection conn = getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CHECKPOINT SYNC");
+        }
+    }
+
+    /**
+     * Compacts the file store, so that it no longer holds the space of deleted and updated books.
+     * Does nothing in memory.
+     *
+     * The database is shut down to be compacted and reopened with a new connection pool. The calls in
+     * flight are drained first, and the calls made meanwhile wait for the compaction to end.
+     *
+     * @return the size of the store file after compaction, in bytes, or 0 in memory
+     * @throws SQLException If there is an issue with SQL execution or with reading the store size.
+     */
+    public static long compactDatabase() throws SQLException {
+        if (!isFileStorage()) {
+            return 0;
+        }
+        reloadLock.acquireExclusive(reloadDrainTimeoutMillis);
+        try (PooledConnection conn = getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("SHUTDOWN COMPACT");
+        } finally {
+            closePool();
+            pool = createPool();
+            reloadLock.releaseExclusive();
+        }
+        try {
+            return Files.size(Path.of(storagePath + H2_FILE_SUFFIX));
+        } catch (IOException e) {
+            throw new SQLException("Failed to read the size of the store " + storagePath, e);
+        }
+    }
 
-        String url = String.format("%s;DB_CLOSE_DELAY=-1;INIT=runscript from '%s'\\;runscript from '%s'",
-                H2_MEM_URL, schemaScript, dataScript);
+    /**
+     * Checks that every find query is answered from an index, by running EXPLAIN on each of them.
+     * The lookups of the memory engine always use its indexes, so there is nothing to check.
+     *
+     * @throws SQLException If one of the queries falls back to a full table scan.
+     */
+    public static void verifyIndexes() throws SQLException {
+        if (!isMemoryEngine()) {
+            h2Store.verifyIndexes();
+        }
+    }
 
-        currentConnection = DriverManager.getConnection(url);
+    /**
+     * Registers a listener notified after each change to the books.
+     *
+     * @param listener the listener to add
+     */
+    public static void addChangeListener(BookChangeListener listener) {
+        changeListeners.add(listener);
     }
 
     /**
-     * Closes the current database connection if it is open.
+     * Builds the RUNSCRIPT command for a script file, gzip compressed if its name ends with ".gz".
      *
-     * @throws SQLException If there is an issue with closing the connection.
+     * @param script path of the script to run
+     * @return the SQL command running the script
      */
-    private static void closeCurrentConnection() throws SQLException {
-        if (currentConnection != null && !currentConnection.isClosed()) {
-            currentConnection.close();
-            currentConnection = null;
+    private static String runScript(String script) {
+        String command = "RUNSCRIPT FROM '" + script.replace("'", "''") + "'";
+        return isCompressed(script) ? command + " COMPRESSION GZIP" : command;
+    }
+
+    /**
+     * Creates a connection pool on the in-memory database, or on the file database with
+     * {@code books.storage=file}, using an MVStore cache of {@code books.storage.cacheSizeKb}.
+     * DB_CLOSE_DELAY=-1 keeps the database alive when the pool closes idle connections, and lazy query
+     * execution lets H2 produce rows while they are read instead of building the whole result first.
+     *
+     * @return a new connection pool
+     */
+    private static ConnectionPool createPool() {
+        String url = isFileStorage()
+                ? H2_FILE_URL + Path.of(storagePath).toAbsolutePath() + ";CACHE_SIZE=" + storageCacheSizeKb
+                : H2_MEM_URL;
+        return new ConnectionPool(url + ";DB_CLOSE_DELAY=-1;LAZY_QUERY_EXECUTION=TRUE", poolSize, 1,
+                poolBorrowTimeoutMillis, poolIdleTimeoutMillis, statementCacheSize, adHocStatementCacheSize);
+    }
+
+    /**
+     * Closes the current connection pool if there is one.
+     */
+    private static void closePool() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
         }
     }
 
     /**
-     * Retrieves a connection to the in-memory H2 database.
+     * Borrows a connection to the in-memory H2 database from the pool.
+     * Closing the returned connection gives it back to the pool.
      *
-     * @return A valid database Connection object.
+     * The connection holds a lease of the {@link ReloadLock} until it is given back, from whichever
+     * thread: a reload waits for it, and no reload can replace the pool while it is borrowed.
+     *
+     * @return A valid pooled connection.
      * @throws SQLException If there is an issue with establishing the connection.
      */
-    private static Connection getConnection() throws SQLException {
-        if (currentConnection == null || currentConnection.isClosed()) {
-            currentConnection = DriverManager.getConnection(H2_MEM_URL);
+    private static PooledConnection getConnection() throws SQLException {
+        ReloadLock.Lease lease = reloadLock.acquireShared();
+        try {
+            PooledConnection conn = currentPool().borrow();
+            conn.onRelease(lease::close);
+            return conn;
+        } catch (SQLException | RuntimeException e) {
+            lease.close();
+            throw e;
         }
-        return currentConnection;
+    }
+
+    /**
+     * Retrieves the connection pool, creating it on the first call if the database was not launched.
+     */
+    private static ConnectionPool currentPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (Database.class) {
+                current = pool;
+                if (current == null) {
+                    current = createPool();
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Retrieves the metrics of the connection pool.
+     *
+     * @return the current pool statistics, or null if the database was not launched
+     */
+    public static ConnectionPool.PoolStats getPoolStats() {
+        ConnectionPool current = pool;
+        return current == null ? null : current.getStats();
+    }
+
+    /**
+     * Retrieves the hit and miss counters of the prepared statement caches.
+     *
+     * @return the current statement cache statistics, or null if the database was not launched
+     */
+    public static ConnectionPool.StatementCacheStats getStatementCacheStats() {
+        ConnectionPool current = pool;
+        return current == null ? null : current.getStatementCacheStats();
+    }
+
+    /**
+     * Retrieves the hit, miss and eviction counters of the cache of the find lookups.
+     *
+     * @return the current find cache statistics
+     */
+    public static FindCache.Stats getFindCacheStats() {
+        return findCache.getStats();
     }
 
     /**
@@ -71,16 +567,81 @@ public class Database {
      * @throws SQLException If there is an issue with SQL execution.
      */
     public static void addBook(int id, String title, String author, String publisher, int year, String synopsis) throws SQLException {
-        String insertSQL = "INSERT INTO BOOKS (ID, TITLE, AUTHOR, PUBLISHER, PUBLICATION_YEAR, SYNOPSIS) VALUES (?, ?, ?, ?, ?, ?)";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(insertSQL)) {
-            pstmt.setInt(1, id);
-            pstmt.setString(2, title);
-            pstmt.setString(3, author);
-            pstmt.setString(4, publisher);
-            pstmt.setInt(5, year);
-            pstmt.setString(6, synopsis);
-            pstmt.executeUpdate();
+        Book book = new Book(id, title, author, publisher, year, synopsis);
+        ReentrantLock bookLock = bookLock(id);
+        bookLock.lock();
+        try {
+            try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("addBook")) {
+                timer.success(change(store -> {
+                    store.insert(book);
+                    return 1;
+                }));
+            }
+            for (BookChangeListener changeListener : changeListeners) {
+                changeListener.onAdded(book);
+            }
+        } finally {
+            bookLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the lock serializing the changes of a book with the notification of the listeners, so
+     * that they see the changes of one book in the order they were committed.
+     *
+     * @param id The ID of the book.
+     * @return The lock of the stripe of the ID.
+     */
+    private static ReentrantLock bookLock(int id) {
+        return bookLocks[Math.floorMod(id, bookLocks.length)];
+    }
+
+    /**
+     * Adds many books with JDBC batching, committing every {@code books.batch.chunkSize} rows.
+     *
+     * @param books The books to add.
+     * @return The number of books added.
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    public static long addBooks(Iterable<Book> books) throws SQLException {
+        return addBooks(books, batchChunkSize, null);
+    }
+
+    /**
+     * Adds many books with JDBC batching. The rows are sent and committed in chunks, each chunk in its
+     * own transaction. If a chunk fails, it is rolled back and the exception is rethrown; the chunks
+     * committed before it stay in the database. The changes of single books wait for the batch to end, as
+     * it holds every per-book lock.
+     *
+     * @param books     The books to add. They are read lazily, so the iterable can stream from a file.
+     * @param chunkSize The number of rows sent and committed together.
+     * @param listener  Notified after each committed chunk with the number of rows added so far, may be null.
+     * @return The number of books added.
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    public static long addBooks(Iterable<Book> books, int chunkSize, ProgressListener listener) throws SQLException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+
+        long[] added = {0};
+        lockAllBooks();
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("addBooks")) {
+            long total = change(store -> store.insertAll(books, chunkSize, chunk -> {
+                for (Book book : chunk) {
+                    for (BookChangeListener changeListener : changeListeners) {
+                        changeListener.onAdded(book);
+                    }
+                }
+                added[0] += chunk.size();
+                if (listener != null) {
+                    listener.onProgress(added[0]);
+                }
+            }));
+            timer.success(total);
+            return total;
+        } finally {
+            unlockAllBooks();
         }
     }
 
@@ -91,11 +652,21 @@ public class Database {
      * @throws SQLException If there is an issue with SQL execution.
      */
     public static void deleteBook(int id) throws SQLException {
-        String deleteSQL = "DELETE FROM BOOKS WHERE ID = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(deleteSQL)) {
-            pstmt.setInt(1, id);
-            pstmt.executeUpdate();
+        ReentrantLock bookLock = bookLock(id);
+        bookLock.lock();
+        try {
+            Book deleted;
+            try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("deleteBook")) {
+                deleted = change(store -> store.delete(id));
+                timer.success(deleted == null ? 0 : 1);
+            }
+            if (deleted != null) {
+                for (BookChangeListener changeListener : changeListeners) {
+                    changeListener.onDeleted(deleted);
+                }
+            }
+        } finally {
+            bookLock.unlock();
         }
     }
 
@@ -111,37 +682,255 @@ public class Database {
      * @throws SQLException If there is an issue with SQL execution.
      */
     public static void updateBook(int id, String title, String author, String publisher, int year, String synopsis) throws SQLException {
-        String updateSQL = "UPDATE BOOKS SET TITLE = ?, AUTHOR = ?, PUBLISHER = ?, PUBLICATION_YEAR = ?, SYNOPSIS = ? WHERE ID = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(updateSQL)) {
-            pstmt.setString(1, title);
-            pstmt.setString(2, author);
-            pstmt.setString(3, publisher);
-            pstmt.setInt(4, year);
-            pstmt.setString(5, synopsis);
-            pstmt.setInt(6, id);
-            pstmt.executeUpdate();
+        Book newBook = new Book(id, title, author, publisher, year, synopsis);
+        ReentrantLock bookLock = bookLock(id);
+        bookLock.lock();
+        try {
+            Book oldBook;
+            try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("updateBook")) {
+                oldBook = change(store -> store.update(newBook));
+                timer.success(oldBook == null ? 0 : 1);
+            }
+            if (oldBook != null) {
+                for (BookChangeListener changeListener : changeListeners) {
+                    changeListener.onUpdated(oldBook, newBook);
+                }
+            }
+        } finally {
+            bookLock.unlock();
         }
     }
 
     /**
-     * Executes a SQL query and returns the result as a formatted string.
+     * Retrieves a book by its ID.
      *
-     * @param query The SQL query to execute.
-     * @return A formatted string containing the query result.
+     * @param id The ID of the book.
+     * @return The book, or null if there is no book with this ID.
      * @throws SQLException If there is an issue with SQL execution.
      */
-    public static String executeQuery(String query) throws SQLException {
-        StringBuilder result = new StringBuilder();
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
+    public static Book getBook(int id) throws SQLException {
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("getBook")) {
+            Book book = store().get(id);
+            timer.success(book == null ? 0 : 1);
+            return book;
+        }
+    }
+
+    /**
+     * Searches the books with the full-text index over their title, author, publisher and synopsis.
+     * Words match exactly, by prefix or with a small spelling difference.
+     *
+     * @param query The words to search for.
+     * @param limit The maximum number of books to return.
+     * @return The best matching books, best match first.
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    public static List<Book> search(String query, int limit) throws SQLException {
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("search")) {
+            List<Book> result = searchBooks(query, limit);
+            timer.success(result.size());
+            return result;
+        }
+    }
+
+    /**
+     * Completes the start of a title, author or publisher typed by the user with the values of the
+     * books, from an in-memory sorted index. The index is built from the books on the first call after a
+     * launch or reload, then kept up to date with the changes.
+     *
+     * @param column The column to complete, TITLE, AUTHOR or PUBLISHER.
+     * @param prefix The start of the value, matched ignoring case.
+     * @param limit  The maximum number of values to return.
+     * @return The distinct values starting with the prefix, in alphabetical order.
+     * @throws SQLException If there is an issue with SQL execution while building the index.
+     */
+    public static List<String> complete(BookColumn column, String prefix, int limit) throws SQLException {
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("complete")) {
+            List<String> values = completionIndex.complete(column, prefix, limit);
+            timer.success(values.size());
+            return values;
+        }
+    }
+
+    /**
+     * Retrieves the totals of the catalogue from the materialized counters: the number of books, of
+     * distinct authors and publishers, and the earliest and latest publication years.
+     *
+     * @return The totals.
+     * @throws SQLException If the counters had to be recounted and reading the books failed.
+     */
+    public static BookCounters.Summary getBookSummary() throws SQLException {
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("getBookSummary")) {
+            recountIfStale();
+            BookCounters.Summary summary = counters.summary();
+            timer.success(1);
+            return summary;
+        }
+    }
+
+    /**
+     * Retrieves the number of books of one author, publisher, year or decade from the materialized
+     * counters, without reading the books.
+     *
+     * @param grouping How the books are grouped.
+     * @param key      The group: an author or publisher name, a year, or the first year of a decade.
+     * @return The number of books in the group.
+     * @throws SQLException If the counters had to be recounted and reading the books failed.
+     */
+    public static long countBooks(BookGrouping grouping, Object key) throws SQLException {
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("countBooks")) {
+            recountIfStale();
+            long count = counters.count(grouping, key);
+            timer.success(1);
+            return count;
+        }
+    }
 
-            while (rs.next()) {
-                result.append(printBookAsString(rs)).append("\n");
+    /**
+     * Retrieves the number of books of every group, such as the books per decade, from the materialized
+     * counters. The cost depends on the number of groups, not of books.
+     *
+     * @param grouping How the books are grouped.
+     * @return The number of books of each group, ordered by group.
+     * @throws SQLException If the counters had to be recounted and reading the books failed.
+     */
+    public static SortedMap<Object, Long> countBooksBy(BookGrouping grouping) throws SQLException {
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("countBooksBy")) {
+            recountIfStale();
+            SortedMap<Object, Long> counts = counters.counts(grouping);
+            timer.success(counts.size());
+            return counts;
+        }
+    }
+
+    /**
+     * Retrieves the groups with the most books, such as the most published authors, from the
+     * materialized counters.
+     *
+     * @param grouping How the books are grouped.
+     * @param limit    The maximum number of groups to return.
+     * @return The largest groups, largest first.
+     * @throws SQLException If the counters had to be recounted and reading the books failed.
+     */
+    public static List<BookCounters.GroupCount> largestGroups(BookGrouping grouping, int limit) throws SQLException {
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("largestGroups")) {
+            recountIfStale();
+            List<BookCounters.GroupCount> groups = counters.largest(grouping, limit);
+            timer.success(groups.size());
+            return groups;
+        }
+    }
+
+    /**
+     * Counts the books again if a reload made the counters stale.
+     *
+     * @throws SQLException If reading the books failed.
+     */
+    private static void recountIfStale() throws SQLException {
+        if (counters.isStale()) {
+            readBooksWithoutChanges(counters::recount);
+        }
+    }
+
+    /**
+     * Reads every book while no change can be made, for a listener rebuilding its state from the books.
+     * Every per-book lock is taken, as by the changes of one book and the batches of additions, so that
+     * no change is between its commit and the notification of the listeners, and none starts before the
+     * reader returns: a change is either in the books read or notified after the reader installed its
+     * state, never both. The reads go on meanwhile.
+     *
+     * @param reader reads the books, then installs the state built from them
+     * @throws SQLException If reading the books failed.
+     */
+    static void readBooksWithoutChanges(Consumer<Stream<Book>> reader) throws SQLException {
+        lockAllBooks();
+        try (Stream<Book> books = streamBooks()) {
+            reader.accept(books);
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        } finally {
+            unlockAllBooks();
+        }
+    }
+
+    private static void lockAllBooks() {
+        for (ReentrantLock bookLock : bookLocks) {
+            bookLock.lock();
+        }
+    }
+
+    private static void unlockAllBooks() {
+        for (ReentrantLock bookLock : bookLocks) {
+            bookLock.unlock();
+        }
+    }
+
+    /**
+     * Looks the query up in the full-text index, then reads the matching books in the order of the index.
+     */
+    private static List<Book> searchBooks(String query, int limit) throws SQLException {
+        List<Integer> ids = searchIndex.search(query, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Integer, Book> found = new HashMap<>();
+        for (Book book : store().getAll(ids)) {
+            found.put(book.id(), book);
+        }
+
+        List<Book> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Book book = found.get(id);
+            if (book != null) {
+                result.add(book);
             }
         }
-        return result.toString();
+        return result;
+    }
+
+    /**
+     * Executes a SQL query and returns the result as a formatted string, one row per line.
+     * The rows of the BOOKS table are formatted as books; the rows of any other query, such as an
+     * aggregation with GROUP BY, as the label and value of each of their columns.
+     *
+     * @param query The SQL query to execute.
+     * @return A formatted string containing the query result.
+     * @throws SQLException If there is an issue with SQL execution, or the books are in the memory engine.
+     */
+    public static String executeQuery(String query) throws SQLException {
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("executeQuery", query)) {
+            requireSql("Queries");
+            StringBuilder result = new StringBuilder();
+            timer.success(h2Store.describeRows(query, result));
+            return result.toString();
+        }
+    }
+
+    /**
+     * Executes a SQL query typed by the user and streams the resulting books.
+     *
+     * @param query The SQL query to execute, returning the columns of the BOOKS table.
+     * @return A stream of the resulting books, see {@link #streamBooks()} for how to consume it.
+     * @throws SQLException If there is an issue with SQL execution, or the books are in the memory engine.
+     */
+    public static Stream<Book> streamQuery(String query) throws SQLException {
+        requireSql("Queries");
+        return h2Store.query(query, true, pstmt -> { });
+    }
+
+    /**
+     * Streams all the books of the database.
+     *
+     * The rows are read from the database while the stream is consumed, so memory use does not depend on
+     * the size of the table. The stream holds a pooled connection until the last row has been read; a
+     * consumer that may stop early must close it, for instance with try-with-resources.
+     *
+     * @return A stream of all the books.
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    public static Stream<Book> streamBooks() throws SQLException {
+        return store().stream();
     }
 
     /**
@@ -152,9 +941,7 @@ public class Database {
      * @throws SQLException If there is an issue with SQL execution.
      */
     public static String findByAuthor(String author) throws SQLException {
-        StringBuilder result = new StringBuilder();
-        String selectSQL = "SELECT * FROM BOOKS WHERE AUTHOR = ?";
-        return getString(author, result, selectSQL);
+        return getString("findByAuthor", BookColumn.AUTHOR, author);
     }
 
     /**
@@ -165,31 +952,28 @@ public class Database {
      * @throws SQLException If there is an issue with SQL execution.
      */
     public static String findByTitle(String title) throws SQLException {
-        StringBuilder result = new StringBuilder();
-        String selectSQL = "SELECT * FROM BOOKS WHERE TITLE = ?";
-        return getString(title, result, selectSQL);
+        return getString("findByTitle", BookColumn.TITLE, title);
     }
 
     /**
-     * Executes a SQL query with one parameter and returns the result as a formatted string.
+     * Looks up the books whose column is equal to a value and returns the result as a formatted string.
+     *
+     * H2 lookups go through the find cache. The memory engine answers them from its own indexes as fast
+     * as the cache would, so its lookups are not cached.
      *
-     * @param title  The parameter value for the SQL query.
-     * @param result StringBuilder to accumulate the formatted results.
-     * @param selectSQL The SQL SELECT query template with a placeholder for the parameter.
-     * @return A formatted string containing the result of the SQL query.
+     * @param operation The name of the operation in the metrics.
+     * @param column    The column the lookup filters on.
+     * @param value     The value looked up.
+     * @return A formatted string containing the books found.
      * @throws SQLException If there is an issue with SQL execution.
      */
-    private static String getString(String title, StringBuilder result, String selectSQL) throws SQLException {
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(selectSQL)) {
-            pstmt.setString(1, title);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    result.append(printBookAsString(rs)).append("\n");
-                }
-            }
+    private static String getString(String operation, BookColumn column, Object value) throws SQLException {
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start(operation)) {
+            List<Book> books = isMemoryEngine() ? memoryStore.find(column, value)
+                    : findCache.get(column, value, () -> h2Store.find(column, value));
+            timer.success(books.size());
+            return joinBooks(books.stream());
         }
-        return result.toString();
     }
 
     /**
@@ -200,9 +984,7 @@ public class Database {
      * @throws SQLException If there is an issue with SQL execution.
      */
     public static String findByPublisher(String publisher) throws SQLException {
-        StringBuilder result = new StringBuilder();
-        String selectSQL = "SELECT * FROM BOOKS WHERE PUBLISHER = ?";
-        return getString(publisher, result, selectSQL);
+        return getString("findByPublisher", BookColumn.PUBLISHER, publisher);
     }
 
     /**
@@ -213,18 +995,26 @@ public class Database {
      * @throws SQLException If there is an issue with SQL execution.
      */
     public static String findByYear(int year) throws SQLException {
-        StringBuilder result = new StringBuilder();
-        String selectSQL = "SELECT * FROM BOOKS WHERE PUBLICATION_YEAR = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(selectSQL)) {
-            pstmt.setInt(1, year);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    result.append(printBookAsString(rs)).append("\n");
-                }
-            }
+        return getString("findByYear", BookColumn.YEAR, year);
+    }
+
+    /**
+     * Runs a query built with {@link BookQuery}: any combination of conditions on the columns, an order,
+     * a limit and the columns to read.
+     *
+     * On H2 the query runs as a SQL statement prepared once per query shape. The memory engine tests the
+     * books in memory, starting from an index when the filter requires an equality.
+     *
+     * @param query The query to run.
+     * @return The books found, in the order of the query, with the columns it selects.
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    public static List<Book> findBooks(BookQuery query) throws SQLException {
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("findBooks", query.sql())) {
+            List<Book> books = store().query(query);
+            timer.success(books.size());
+            return books;
         }
-        return result.toString();
     }
 
     /**
@@ -234,100 +1024,360 @@ public class Database {
      * @throws SQLException If there is an issue with SQL execution.
      */
     public static String viewAllBooksAsString() throws SQLException {
-        StringBuilder result = new StringBuilder();
-
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT * FROM BOOKS")) {
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("viewAllBooksAsString")) {
+            String result = joinBooks(streamBooks().peek(timer::countRow));
+            timer.success(0);
+            return result;
+        }
+    }
 
-            while (rs.next()) {
-                result.append(printBookAsString(rs)).append("\n");
-            }
+    /**
+     * Retrieves the first page of books, ordered by ID.
+     *
+     * @param limit The maximum number of books to return.
+     * @return The books with the smallest IDs.
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    public static List<Book> listBooks(int limit) throws SQLException {
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("listBooks")) {
+            List<Book> books = store().list(null, limit);
+            timer.success(books.size());
+            return books;
         }
+    }
 
-        return result.toString();
+    /**
+     * Retrieves the page of books following the given ID, ordered by ID.
+     *
+     * The page starts from the last ID of the previous page rather than from an offset, so it costs the
+     * same wherever it is in the table.
+     *
+     * @param afterId The ID of the last book of the previous page.
+     * @param limit   The maximum number of books to return.
+     * @return The books with an ID greater than afterId.
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    public static List<Book> listBooks(int afterId, int limit) throws SQLException {
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("listBooks")) {
+            List<Book> books = store().list(afterId, limit);
+            timer.success(books.size());
+            return books;
+        }
     }
 
     /**
-     * Format the ResultSet passed as a parameter into a String.
+     * Retrieves the page of books preceding the given ID, ordered by ID, to page back through the table
+     * from the first book of a page. Like {@link #listBooks(int, int)}, it costs the same wherever it is
+     * in the table.
      *
-     * @param rs ResultSet containing the result of a query
-     * @return a formatted string containing the elements of the rs
+     * @param beforeId The ID of the first book of the next page.
+     * @param limit    The maximum number of books to return.
+     * @return The books with the greatest IDs less than beforeId, in ascending order.
      * @throws SQLException If there is an issue with SQL execution.
      */
-    private static String printBookAsString(ResultSet rs) throws SQLException {
-        int id = rs.getInt("ID");
-        String title = rs.getString("TITLE");
-        String author = rs.getString("AUTHOR");
-        String publisher = rs.getString("PUBLISHER");
-        int year = rs.getInt("PUBLICATION_YEAR");
-        String synopsis = rs.getString("SYNOPSIS");
+    public static List<Book> listBooksBefore(int beforeId, int limit) throws SQLException {
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("listBooksBefore")) {
+            List<Book> books = store().listBefore(beforeId, limit);
+            timer.success(books.size());
+            return books;
+        }
+    }
+
+    /**
+     * Consumes a stream of books into a formatted string, one book per line.
+     *
+     * @param books The books to format, closed once consumed.
+     * @return A formatted string containing the books.
+     * @throws SQLException If there is an issue with SQL execution while reading the books.
+     */
+    private static String joinBooks(Stream<Book> books) throws SQLException {
+        StringBuilder result = new StringBuilder();
+        try (books) {
+            books.forEach(book -> result.append(book.describe()).append("\n"));
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        }
+        return result.toString();
+    }
 
-        return String.format("ID: %d, Title: %s, Author: %s, Publisher: %s, Year: %d, Synopsis: %s",
-                id, title, author, publisher, year, synopsis);
+    /**
+     * Consumes a stream of books into a list.
+     *
+     * @param books The books to collect, closed once consumed.
+     * @return A list of the books.
+     * @throws SQLException If there is an issue with SQL execution while reading the books.
+     */
+    static List<Book> collect(Stream<Book> books) throws SQLException {
+        try (books) {
+            return books.toList();
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        }
     }
 
     /**
      * Exports the database contents to a SQL script file.
+     * The script is gzip compressed when the file name ends with ".gz".
      *
      * @param outputFile The output file to export the database contents to.
      * @throws SQLException If there is an issue with SQL execution.
      * @throws IOException  If there is an issue with writing to the output file.
      */
     public static void exportDatabase(String outputFile) throws SQLException, IOException {
-        File file = new File(outputFile);
-        if (!file.getParentFile().exists()) {
-            file.getParentFile().mkdirs();
-        }
-
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             FileWriter writer = new FileWriter(outputFile)) {
-
-            ResultSet rs = stmt.executeQuery("SELECT * FROM BOOKS");
-            while (rs.next()) {
-                int id = rs.getInt("ID");
-                String title = rs.getString("TITLE").replace("'", "''");
-                String author = rs.getString("AUTHOR").replace("'", "''");
-                String publisher = rs.getString("PUBLISHER").replace("'", "''");
-                int year = rs.getInt("PUBLICATION_YEAR");
-                String synopsis = rs.getString("SYNOPSIS");
-
-                if (synopsis != null) {
-                    synopsis = synopsis.replace("'", "''");
-                    writer.write(String.format("INSERT INTO BOOKS (ID, TITLE, AUTHOR, PUBLISHER, PUBLICATION_YEAR, SYNOPSIS) VALUES (%d, '%s', '%s', '%s', %d, '%s');\n",
-                            id, title, author, publisher, year, synopsis));
-                } else {
-                    writer.write(String.format("INSERT INTO BOOKS (ID, TITLE, AUTHOR, PUBLISHER, PUBLICATION_YEAR) VALUES (%d, '%s', '%s', '%s', %d);\n",
-                            id, title, author, publisher, year));
+        exportDatabase(outputFile, exportRowsPerStatement, isCompressed(outputFile), null);
+    }
+
+    /**
+     * Exports the database contents to a SQL script file of multi-row INSERT statements.
+     *
+     * The books are streamed from the database and written through a buffer, so memory use does not
+     * depend on the size of the table. The file then becomes the one {@link #saveChanges()} writes its
+     * deltas next to.
+     *
+     * @param outputFile       The output file to export the database contents to.
+     * @param rowsPerStatement The maximum number of rows of each INSERT statement.
+     * @param compress         Whether to gzip the script.
+     * @param listener         Notified every {@code books.batch.chunkSize} rows with the number of rows
+     *                         written so far, may be null.
+     * @return The number of books exported.
+     * @throws SQLException If there is an issue with SQL execution.
+     * @throws IOException  If there is an issue with writing to the output file.
+     */
+    public static long exportDatabase(String outputFile, int rowsPerStatement, boolean compress,
+                                      ProgressListener listener) throws SQLException, IOException {
+        return saveBase("exportDatabase", outputFile, file -> {
+            long rows = 0;
+            try (Stream<Book> books = streamBooks();
+                 SqlScriptWriter writer = new SqlScriptWriter(file, rowsPerStatement, compress)) {
+                Iterator<Book> iterator = books.iterator();
+                while (iterator.hasNext()) {
+                    writer.write(iterator.next());
+                    if (++rows % batchChunkSize == 0 && listener != null) {
+                        listener.onProgress(rows);
+                    }
                 }
+            } catch (UncheckedSQLException e) {
+                throw e.getCause();
+            }
+            if (listener != null && rows % batchChunkSize != 0) {
+                listener.onProgress(rows);
             }
+            return rows;
+        });
+    }
+
+    /**
+     * Exports the database contents to a binary {@link BookSnapshot}, smaller and faster to load than a
+     * SQL script. Snapshots are loaded by {@link #launchDatabase(String)} like scripts, and can be the base
+     * of the deltas written by {@link #saveChanges()}.
+     *
+     * @param outputFile The output file to export the database contents to.
+     * @param listener   Notified every {@code books.batch.chunkSize} rows with the number of rows
+     *                   encoded so far, may be null.
+     * @return The number of books exported.
+     * @throws SQLException If there is an issue with SQL execution.
+     * @throws IOException  If there is an issue with writing to the output file.
+     */
+    public static long exportSnapshot(String outputFile, ProgressListener listener) throws SQLException, IOException {
+        return saveBase("exportSnapshot", outputFile, file -> {
+            try (Stream<Book> books = streamBooks()) {
+                return BookSnapshot.write(file, books.iterator(), listener, batchChunkSize);
+            } catch (UncheckedSQLException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    /**
+     * Writes a full export to a temporary file, then moves it over the output file, which becomes the base
+     * of the change journal. The deltas of the output file are deleted, as the export holds their changes.
+     *
+     * @param operation  The name of the export in the metrics.
+     * @param outputFile The output file to export the database contents to.
+     * @param exporter   Writes the books to the file it is given.
+     * @return The number of books exported.
+     */
+    private static long saveBase(String operation, String outputFile, FileExporter exporter)
+            throws SQLException, IOException {
+        Path target = Path.of(outputFile).toAbsolutePath();
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        Map<Integer, Book> changes = journal.drain();
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start(operation)) {
+            long rows = exporter.export(temporary);
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            ChangeJournal.deleteDeltas(target);
+            journal.setBase(target);
+            timer.success(rows);
+            return rows;
+        } catch (SQLException | IOException | RuntimeException e) {
+            journal.restore(changes);
+            Files.deleteIfExists(temporary);
+            throw e;
         }
     }
 
     /**
-     * Retrieves a list of all book items in the database as formatted strings :
-     * each element of a book is separated by a semicolon.
+     * Writes the books to a file.
+     */
+    @FunctionalInterface
+    private interface FileExporter {
+        long export(Path file) throws SQLException, IOException;
+    }
+
+    /**
+     * Saves the books added, updated or deleted since the last load or full save as a delta file next to
+     * the file they came from. The cost depends on the number of changed books, not on the size of the
+     * table. The deltas are replayed when the file is loaded again.
+     *
+     * @return The delta file written, or null if nothing changed.
+     * @throws IOException           If there is an issue with writing the delta file.
+     * @throws IllegalStateException If the books were neither loaded from nor saved to a file.
+     */
+    public static Path saveChanges() throws IOException {
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("saveChanges")) {
+            Path delta = journal.flush(exportRowsPerStatement);
+            timer.success(0);
+            return delta;
+        }
+    }
+
+    /**
+     * Rewrites the file the changes are saved next to with the whole table, in its own format, and
+     * deletes its deltas.
+     *
+     * @return The number of books exported.
+     * @throws SQLException          If there is an issue with SQL execution.
+     * @throws IOException           If there is an issue with writing the file.
+     * @throws IllegalStateException If the books were neither loaded from nor saved to a file.
+     */
+    public static long compactChanges() throws SQLException, IOException {
+        Path base = journal.base();
+        if (base == null) {
+            throw new IllegalStateException("No file to compact, save the whole database first");
+        }
+        String file = base.toString();
+        if (Files.exists(base) && BookSnapshot.isSnapshot(base)) {
+            return exportSnapshot(file, null);
+        }
+        return exportDatabase(file, exportRowsPerStatement, isCompressed(file), null);
+    }
+
+    /**
+     * Retrieves the file the changes are saved next to by {@link #saveChanges()}.
+     *
+     * @return The absolute path of the file last loaded or fully saved, or null if there is none.
+     */
+    public static Path getSaveBase() {
+        return journal.base();
+    }
+
+    /**
+     * Retrieves the number of books changed since the last load or save.
+     *
+     * @return The number of changes {@link #saveChanges()} would write.
+     */
+    public static int getPendingChanges() {
+        return journal.pendingChanges();
+    }
+
+    /**
+     * Imports books from a CSV or JSON Lines file, gzip compressed if its name ends with ".gz".
+     *
+     * The file is parsed while it is read and the books are inserted in batches committed every
+     * {@code books.batch.chunkSize} rows, so memory use does not depend on the size of the file.
+     * Lines that cannot be parsed or do not fit the BOOKS table are skipped and listed in the report.
+     * If a batch fails, for instance on a duplicate ID, it is rolled back and the exception is rethrown;
+     * the batches committed before it stay in the database.
      *
-     * @return A list of formatted strings representing each book's details.
+     * @param inputFile The file to import.
+     * @param format    The format of the file.
+     * @param mapping   Maps the fields of the file onto the columns.
+     * @param listener  Notified after each committed chunk with the number of books added so far, may be null.
+     * @return The number of books added and the rejected lines.
      * @throws SQLException If there is an issue with SQL execution.
+     * @throws IOException  If there is an issue with reading the file.
      */
-    public static List<String> allItems() throws SQLException {
-        List<String> result = new ArrayList<>();
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT * FROM BOOKS")) {
-            while (rs.next()) {
-                int id = rs.getInt("ID");
-                String title = rs.getString("TITLE");
-                String author = rs.getString("AUTHOR");
-                String publisher = rs.getString("PUBLISHER");
-                int year = rs.getInt("PUBLICATION_YEAR");
-                String synopsis = rs.getString("SYNOPSIS");
-
-                result.add(String.format("%d;%s;%s;%s;%d;%s", id, title, author, publisher, year, synopsis));
+    public static ImportReport importBooks(String inputFile, BookFileFormat format, ColumnMapping mapping,
+                                           ProgressListener listener) throws SQLException, IOException {
+        long start = System.nanoTime();
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("importBooks");
+             // Opened on its own, so that it is closed if the gzip header cannot be read
+             InputStream file = Files.newInputStream(Path.of(inputFile))) {
+            InputStream in = isCompressed(inputFile) ? new GZIPInputStream(file, 1 << 16) : file;
+            Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+            try (BookRecordReader records = format == BookFileFormat.CSV
+                    ? new CsvBookReader(reader, mapping) : new JsonLinesBookReader(reader, mapping)) {
+                BookImporter importer = new BookImporter(records);
+                long rows = addBooks(importer, batchChunkSize, listener);
+                timer.success(rows);
+                return new ImportReport(rows, importer.rejectCount(), importer.rejects(),
+                        (System.nanoTime() - start) / 1_000_000);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                reader.close();
             }
         }
-        return result;
+    }
+
+    /**
+     * Exports the database contents to a CSV or JSON Lines file, gzip compressed if its name ends with
+     * ".gz". The books are streamed from the database to the file.
+     *
+     * @param outputFile The output file to export the database contents to.
+     * @param format     The format of the file.
+     * @param mapping    The columns to export and their field names.
+     * @param listener   Notified every {@code books.batch.chunkSize} rows with the number of rows
+     *                   written so far, may be null.
+     * @return The number of books exported.
+     * @throws SQLException If there is an issue with SQL execution.
+     * @throws IOException  If there is an issue with writing to the output file.
+     */
+    public static long exportBooks(String outputFile, BookFileFormat format, ColumnMapping mapping,
+                                   ProgressListener listener) throws SQLException, IOException {
+        long rows = 0;
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("exportBooks");
+             Stream<Book> books = streamBooks();
+             BookFileWriter writer = new BookFileWriter(Path.of(outputFile), format, mapping,
+                     isCompressed(outputFile))) {
+            Iterator<Book> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                if (++rows % batchChunkSize == 0 && listener != null) {
+                    listener.onProgress(rows);
+                }
+            }
+            timer.success(rows);
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        }
+        if (listener != null && rows % batchChunkSize != 0) {
+            listener.onProgress(rows);
+        }
+        return rows;
+    }
+
+    /**
+     * Checks whether a script file is gzip compressed, from its name.
+     *
+     * @param file the path of the script
+     * @return true if the file name ends with ".gz"
+     */
+    static boolean isCompressed(String file) {
+        return file.toLowerCase(Locale.ROOT).endsWith(".gz");
+    }
+
+    /**
+     * Retrieves a list of all the books in the database.
+     *
+     * @return A list of the books.
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    public static List<Book> allItems() throws SQLException {
+        try (DatabaseMetrics.Timer timer = DatabaseMetrics.start("allItems")) {
+            List<Book> books = collect(streamBooks());
+            timer.success(books.size());
+            return books;
+        }
     }
 }
@@ -0,0 +1,209 @@
+package org.example;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Per-operation metrics of the {@link Database} facade: call and error counts, latency and rows per
+ * call histograms.
+ *
+ * Each operation is measured with a {@link Timer} in a try-with-resources block. Operations slower than
+ * {@code books.metrics.slowQueryMillis} (default 500) are logged as warnings to the
+ * {@code org.example.Database.slow} logger, with their SQL text when they have one. The metrics are
+ * also published over JMX as {@code org.example:type=DatabaseStats}.
+ */
+public class DatabaseMetrics {
+    private static final Logger slowLog = Logger.getLogger("org.example.Database.slow");
+    private static final Map<String, OperationMetrics> operations = new ConcurrentSkipListMap<>();
+    private static volatile long slowQueryMillis = Long.getLong("books.metrics.slowQueryMillis", 500);
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Stats(),
+                    new ObjectName("org.example:type=DatabaseStats"));
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Starts measuring a call of an operation.
+     *
+     * @param operation the name of the operation
+     * @return the timer to close when the call ends
+     */
+    static Timer start(String operation) {
+        return start(operation, null);
+    }
+
+    /**
+     * Starts measuring a call of an operation running the given SQL, logged if the call is slow.
+     *
+     * @param operation the name of the operation
+     * @param sql       the SQL text of the call, may be null
+     * @return the timer to close when the call ends
+     */
+    static Timer start(String operation, String sql) {
+        return new Timer(operations.computeIfAbsent(operation, OperationMetrics::new), sql);
+    }
+
+    /**
+     * Retrieves the statistics of every operation called so far.
+     *
+     * @return the statistics, ordered by operation name
+     */
+    public static List<OperationStats> getStats() {
+        List<OperationStats> stats = new ArrayList<>(operations.size());
+        for (OperationMetrics metrics : operations.values()) {
+            stats.add(metrics.stats());
+        }
+        return stats;
+    }
+
+    /**
+     * Clears the statistics of every operation.
+     */
+    public static void reset() {
+        for (OperationMetrics metrics : operations.values()) {
+            metrics.reset();
+        }
+    }
+
+    /**
+     * Retrieves the duration above which operations are logged as slow.
+     *
+     * @return the threshold, in milliseconds
+     */
+    public static long getSlowQueryThresholdMillis() {
+        return slowQueryMillis;
+    }
+
+    /**
+     * Changes the duration above which operations are logged as slow.
+     *
+     * @param millis the threshold, in milliseconds
+     */
+    public static void setSlowQueryThresholdMillis(long millis) {
+        slowQueryMillis = millis;
+    }
+
+    /**
+     * Measures one call of an operation. The call counts as an error unless {@link #success(long)} is
+     * called before the timer is closed.
+     */
+    static final class Timer implements AutoCloseable {
+        private final OperationMetrics metrics;
+        private final String sql;
+        private final long start = System.nanoTime();
+        private long rows;
+        private boolean succeeded;
+
+        private Timer(OperationMetrics metrics, String sql) {
+            this.metrics = metrics;
+            this.sql = sql;
+        }
+
+        /**
+         * Counts one row read, for operations consuming a stream of books.
+         *
+         * @param book the book read
+         */
+        void countRow(Book book) {
+            rows++;
+        }
+
+        /**
+         * Marks the call as successful.
+         *
+         * @param rows the number of rows read or written by the call, added to the rows counted so far
+         */
+        void success(long rows) {
+            this.rows += rows;
+            succeeded = true;
+        }
+
+        @Override
+        public void close() {
+            long elapsed = System.nanoTime() - start;
+            metrics.record(elapsed, rows, succeeded);
+            long millis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+            if (millis >= slowQueryMillis) {
+                slowLog.warning(() -> "Slow " + metrics.name + ": " + millis + " ms, " + rows + " rows"
+                        + (succeeded ? "" : ", failed") + (sql == null ? "" : ", SQL: " + sql));
+            }
+        }
+    }
+
+    /**
+     * Counters and histograms of one operation.
+     */
+    private static final class OperationMetrics {
+        private final String name;
+        private final LongAdder errors = new LongAdder();
+        private final LogLinearHistogram latencyNanos = new LogLinearHistogram();
+        private final LogLinearHistogram rows = new LogLinearHistogram();
+
+        OperationMetrics(String name) {
+            this.name = name;
+        }
+
+        void record(long elapsedNanos, long rowCount, boolean succeeded) {
+            latencyNanos.record(elapsedNanos);
+            if (succeeded) {
+                rows.record(rowCount);
+            } else {
+                errors.increment();
+            }
+        }
+
+        OperationStats stats() {
+            return new OperationStats(name, latencyNanos.count(), errors.sum(),
+                    micros(latencyNanos.percentile(50)), micros(latencyNanos.percentile(99)),
+                    micros(latencyNanos.percentile(99.9)), micros(latencyNanos.max()), rows.mean(), rows.max());
+        }
+
+        void reset() {
+            errors.reset();
+            latencyNanos.reset();
+            rows.reset();
+        }
+
+        private static long micros(long nanos) {
+            return TimeUnit.NANOSECONDS.toMicros(nanos);
+        }
+    }
+
+    /**
+     * The MXBean publishing the metrics.
+     */
+    private static final class Stats implements DatabaseStatsMXBean {
+
+        @Override
+        public List<OperationStats> getOperations() {
+            return getStats();
+        }
+
+        @Override
+        public long getSlowQueryThresholdMillis() {
+            return DatabaseMetrics.getSlowQueryThresholdMillis();
+        }
+
+        @Override
+        public void setSlowQueryThresholdMillis(long millis) {
+            DatabaseMetrics.setSlowQueryThresholdMillis(millis);
+        }
+
+        @Override
+        public void reset() {
+            DatabaseMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.example;
+
+import java.util.List;
+
+/**
+ * JMX view of the {@link DatabaseMetrics}, registered as {@code org.example:type=DatabaseStats}.
+ */
+public interface DatabaseStatsMXBean {
+
+    /**
+     * Retrieves the statistics of every operation called so far.
+     *
+     * @return the statistics, ordered by operation name
+     */
+    List<OperationStats> getOperations();
+
+    /**
+     * Retrieves the duration above which operations are logged as slow.
+     *
+     * @return the threshold, in milliseconds
+     */
+    long getSlowQueryThresholdMillis();
+
+    /**
+     * Changes the duration above which operations are logged as slow.
+     *
+     * @param millis the threshold, in milliseconds
+     */
+    void setSlowQueryThresholdMillis(long millis);
+
+    /**
+     * Clears the statistics of every operation.
+     */
+    void reset();
+}
@@ -0,0 +1,174 @@
+package org.example;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-through cache of the results of the {@code Database.find*} lookups.
+ *
+ * Results are kept in LRU order and evicted when the cache holds more than the maximum number of rows,
+ * or when they are older than the time to live. As a {@link BookChangeListener}, the cache drops the
+ * lookups whose result a change may affect: those on the old and new values of each field of the
+ * changed book.
+ */
+public class FindCache implements BookChangeListener {
+    private static final BookColumn[] CACHED_COLUMNS = {
+            BookColumn.TITLE, BookColumn.AUTHOR, BookColumn.PUBLISHER, BookColumn.YEAR
+    };
+
+    private final long maxRows;
+    private final long ttlMillis;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long rows;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxRows   maximum number of rows held by all the cached results together
+     * @param ttlMillis time after which a cached result is read again from the database
+     */
+    public FindCache(long maxRows, long ttlMillis) {
+        this.maxRows = maxRows;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Retrieves the books whose column is equal to the value, from the cache or else from the loader.
+     *
+     * @param column the column of the lookup
+     * @param value  the value looked up
+     * @param loader reads the books from the database on a miss
+     * @return the books found
+     * @throws SQLException If the loader fails.
+     */
+    public List<Book> get(BookColumn column, Object value, Loader loader) throws SQLException {
+        Key key = new Key(column, value);
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hits++;
+                return entry.books;
+            }
+            if (entry != null) {
+                remove(key);
+                expirations++;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        List<Book> books = loader.load();
+
+        synchronized (this) {
+            // A change committed while loading may not be in the result, so it is not cached.
+            if (loadGeneration == generation && books.size() <= maxRows) {
+                Entry previous = entries.put(key, new Entry(books, System.currentTimeMillis() + ttlMillis));
+                if (previous != null) {
+                    rows -= previous.books.size();
+                }
+                rows += books.size();
+                evictOverweight();
+            }
+        }
+        return books;
+    }
+
+    /**
+     * Evicts the least recently used results until the cache holds at most the maximum number of rows.
+     */
+    private void evictOverweight() {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (rows > maxRows && iterator.hasNext()) {
+            rows -= iterator.next().getValue().books.size();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private void remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            rows -= entry.books.size();
+        }
+    }
+
+    /**
+     * Drops the cached lookups on the values of a book.
+     */
+    private void invalidate(Book book) {
+        for (BookColumn column : CACHED_COLUMNS) {
+            remove(new Key(column, column.get(book)));
+        }
+    }
+
+    @Override
+    public synchronized void onAdded(Book book) {
+        generation++;
+        invalidate(book);
+    }
+
+    @Override
+    public synchronized void onUpdated(Book oldBook, Book newBook) {
+        generation++;
+        invalidate(oldBook);
+        invalidate(newBook);
+    }
+
+    @Override
+    public synchronized void onDeleted(Book book) {
+        generation++;
+        invalidate(book);
+    }
+
+    @Override
+    public synchronized void onReloaded() {
+        generation++;
+        entries.clear();
+        rows = 0;
+    }
+
+    /**
+     * Takes a snapshot of the cache statistics.
+     *
+     * @return the current cache statistics
+     */
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, expirations, entries.size(), rows);
+    }
+
+    /**
+     * Reads the result of a lookup from the database.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        List<Book> load() throws SQLException;
+    }
+
+    private record Key(BookColumn column, Object value) {
+    }
+
+    private record Entry(List<Book> books, long expiresAt) {
+    }
+
+    /**
+     * Snapshot of the cache statistics.
+     *
+     * @param hits        lookups answered from the cache
+     * @param misses      lookups read from the database, including the expired ones
+     * @param evictions   results evicted to stay under the maximum number of rows
+     * @param expirations results dropped because they were older than the time to live
+     * @param entries     number of cached results
+     * @param rows        number of rows held by the cached results
+     */
+    public record Stats(long hits, long misses, long evictions, long expirations, int entries, long rows) {
+    }
+}
@@ -0,0 +1,315 @@
+package org.example;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the TITLE, AUTHOR, PUBLISHER and SYNOPSIS columns of the BOOKS table.
+ *
+ * Each term maps to the books containing it, with a weight depending on the column it was found in.
+ * A search term matches the indexed terms equal to it, starting with it, or within a small edit
+ * distance of it; the books are ranked by the sum of the weights of their matches, scaled by the
+ * rarity of the terms and by the share of the search terms they match.
+ *
+ * The index is kept up to date as a {@link BookChangeListener}. After a reload it is rebuilt from the
+ * database on the next search.
+ */
+public class FullTextIndex implements BookChangeListener {
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float AUTHOR_WEIGHT = 2f;
+    private static final float PUBLISHER_WEIGHT = 1f;
+    private static final float SYNOPSIS_WEIGHT = 0.5f;
+    private static final float PREFIX_FACTOR = 0.6f;
+    private static final float FUZZY_FACTOR = 0.4f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private TreeMap<String, Map<Integer, Float>> postings = new TreeMap<>();
+    private Map<Integer, Set<String>> documentTerms = new HashMap<>();
+    private boolean stale = true;
+
+    @Override
+    public void onAdded(Book book) {
+        lock.writeLock().lock();
+        try {
+            if (!stale) {
+                index(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onUpdated(Book oldBook, Book newBook) {
+        lock.writeLock().lock();
+        try {
+            if (!stale) {
+                remove(oldBook.id());
+                index(newBook);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDeleted(Book book) {
+        lock.writeLock().lock();
+        try {
+            if (!stale) {
+                remove(book.id());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onReloaded() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTerms.clear();
+            stale = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the index.
+     *
+     * @param query the words to search for
+     * @param limit the maximum number of results
+     * @return the IDs of the best matching books, best match first
+     * @throws SQLException If the index had to be rebuilt and reading the books failed.
+     */
+    public List<Integer> search(String query, int limit) throws SQLException {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        rebuildIfStale();
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Float> scores = new HashMap<>();
+            Map<Integer, Integer> matchedTerms = new HashMap<>();
+            for (String term : terms) {
+                for (Map.Entry<Integer, Float> match : matchTerm(term).entrySet()) {
+                    scores.merge(match.getKey(), match.getValue(), Float::sum);
+                    matchedTerms.merge(match.getKey(), 1, Integer::sum);
+                }
+            }
+            return topResults(scores, matchedTerms, terms.size(), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the books matching one search term, keeping the best score of each book among the exact,
+     * prefix and fuzzy matches of the term.
+     */
+    private Map<Integer, Float> matchTerm(String term) {
+        Map<Integer, Float> best = new HashMap<>();
+        addMatches(best, term, 1f);
+
+        if (term.length() >= 2) {
+            int expansions = 0;
+            for (String candidate : postings.subMap(term, false, term + Character.MAX_VALUE, false).keySet()) {
+                if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                addMatches(best, candidate, PREFIX_FACTOR);
+            }
+        }
+
+        if (term.length() >= 4) {
+            int maxEdits = term.length() >= 8 ? 2 : 1;
+            String first = term.substring(0, 1);
+            for (String candidate : postings.subMap(first, true, first + Character.MAX_VALUE, false).keySet()) {
+                if (!candidate.equals(term) && !candidate.startsWith(term)
+                        && withinDistance(term, candidate, maxEdits)) {
+                    addMatches(best, candidate, FUZZY_FACTOR);
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Scores the books containing an indexed term and keeps the best score of each book.
+     */
+    private void addMatches(Map<Integer, Float> best, String indexedTerm, float factor) {
+        Map<Integer, Float> documents = postings.get(indexedTerm);
+        if (documents == null) {
+            return;
+        }
+        float idf = (float) Math.log(1 + (double) documentTerms.size() / documents.size());
+        for (Map.Entry<Integer, Float> document : documents.entrySet()) {
+            best.merge(document.getKey(), document.getValue() * idf * factor, Math::max);
+        }
+    }
+
+    /**
+     * Keeps the best scored books with a bounded heap.
+     */
+    private static List<Integer> topResults(Map<Integer, Float> scores, Map<Integer, Integer> matchedTerms,
+                                            int termCount, int limit) {
+        PriorityQueue<Map.Entry<Integer, Float>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Integer, Float> score : scores.entrySet()) {
+            float coordination = (float) matchedTerms.get(score.getKey()) / termCount;
+            heap.add(Map.entry(score.getKey(), score.getValue() * coordination));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+
+        List<Integer> ids = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ids.add(heap.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    /**
+     * Rebuilds the index from the database if a reload made it stale. The books are indexed into a new
+     * index without holding the lock, as the reload may still be running, then swapped in; the changes
+     * wait meanwhile, so that none is both read and notified.
+     */
+    private void rebuildIfStale() throws SQLException {
+        lock.readLock().lock();
+        try {
+            if (!stale) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Database.readBooksWithoutChanges(books -> {
+            FullTextIndex rebuilt = new FullTextIndex();
+            books.forEach(rebuilt::index);
+
+            lock.writeLock().lock();
+            try {
+                if (stale) {
+                    postings = rebuilt.postings;
+                    documentTerms = rebuilt.documentTerms;
+                    stale = false;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Adds the terms of a book to the index, replacing the ones it had. Must hold the write lock.
+     */
+    private void index(Book book) {
+        remove(book.id());
+
+        Map<String, Float> weights = new HashMap<>();
+        addTerms(weights, book.title(), TITLE_WEIGHT);
+        addTerms(weights, book.author(), AUTHOR_WEIGHT);
+        addTerms(weights, book.publisher(), PUBLISHER_WEIGHT);
+        addTerms(weights, book.synopsis(), SYNOPSIS_WEIGHT);
+
+        for (Map.Entry<String, Float> weight : weights.entrySet()) {
+            postings.computeIfAbsent(weight.getKey(), term -> new HashMap<>()).put(book.id(), weight.getValue());
+        }
+        documentTerms.put(book.id(), weights.keySet());
+    }
+
+    private static void addTerms(Map<String, Float> weights, String text, float weight) {
+        for (String term : tokenize(text)) {
+            weights.merge(term, weight, Float::sum);
+        }
+    }
+
+    /**
+     * Removes the terms of a book from the index. Must hold the write lock.
+     */
+    private void remove(int id) {
+        Set<String> terms = documentTerms.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Integer, Float> documents = postings.get(term);
+            documents.remove(id);
+            if (documents.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    /**
+     * Splits a text into lower case terms made of letters and digits.
+     *
+     * @param text the text to split, may be null
+     * @return the terms of the text, in order
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean inTerm = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inTerm && start < 0) {
+                start = i;
+            } else if (!inTerm && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Checks whether the Levenshtein distance between two terms is at most the given number of edits,
+     * stopping as soon as a row of the distance matrix exceeds it.
+     */
+    static boolean withinDistance(String a, String b, int maxEdits) {
+        if (Math.abs(a.length() - b.length()) > maxEdits) {
+            return false;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > maxEdits) {
+                return false;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()] <= maxEdits;
+    }
+}
@@ -0,0 +1,373 @@
+package org.example;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Storage engine keeping the books in the BOOKS table of the H2 database, through JDBC.
+ *
+ * Connections are borrowed from the {@link ConnectionPool} of {@link Database}, and every statement is
+ * prepared once per connection by its statement cache.
+ */
+class H2BookStore implements BookStore {
+    private static final String SELECT_ALL_SQL = "SELECT * FROM BOOKS";
+    private static final String SELECT_BY_ID_SQL = "SELECT * FROM BOOKS WHERE ID = ?";
+    private static final String FIND_BY_TITLE_SQL = "SELECT * FROM BOOKS WHERE TITLE = ? ORDER BY ID";
+    private static final String FIND_BY_AUTHOR_SQL = "SELECT * FROM BOOKS WHERE AUTHOR = ? ORDER BY ID";
+    private static final String FIND_BY_PUBLISHER_SQL = "SELECT * FROM BOOKS WHERE PUBLISHER = ? ORDER BY ID";
+    private static final String FIND_BY_YEAR_SQL = "SELECT * FROM BOOKS WHERE PUBLICATION_YEAR = ? ORDER BY ID";
+    private static final String UPDATE_SQL =
+            "UPDATE BOOKS SET TITLE = ?, AUTHOR = ?, PUBLISHER = ?, PUBLICATION_YEAR = ?, SYNOPSIS = ? WHERE ID = ?";
+    private static final Set<BookColumn> ALL_COLUMNS = EnumSet.allOf(BookColumn.class);
+
+    private final ConnectionSource connections;
+
+    /**
+     * Creates the engine.
+     *
+     * @param connections borrows the pooled connections the statements run on
+     */
+    H2BookStore(ConnectionSource connections) {
+        this.connections = connections;
+    }
+
+    @Override
+    public void insert(Book book) throws SQLException {
+        try (PooledConnection conn = connections.get()) {
+            PreparedStatement pstmt = conn.prepare(Database.INSERT_SQL);
+            bind(pstmt, book);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Adds many books with JDBC batching. The rows are sent and committed in chunks, each chunk in its
+     * own transaction.
+     */
+    @Override
+    public long insertAll(Iterable<Book> books, int chunkSize, Consumer<List<Book>> committed) throws SQLException {
+        long total = 0;
+        try (PooledConnection conn = connections.get()) {
+            Connection connection = conn.connection();
+            PreparedStatement pstmt = conn.prepare(Database.INSERT_SQL);
+            connection.setAutoCommit(false);
+            List<Book> chunk = new ArrayList<>(Math.min(chunkSize, 10_000));
+            try {
+                for (Book book : books) {
+                    bind(pstmt, book);
+                    pstmt.addBatch();
+                    chunk.add(book);
+
+                    if (chunk.size() == chunkSize) {
+                        total += commitChunk(connection, pstmt, chunk, committed);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    total += commitChunk(connection, pstmt, chunk, committed);
+                }
+            } catch (SQLException | RuntimeException e) {
+                pstmt.clearBatch();
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Sends the pending batch, commits it and passes the chunk on.
+     *
+     * @param chunk the books of the batch, emptied once committed
+     * @return the number of rows of the chunk
+     */
+    private static int commitChunk(Connection connection, PreparedStatement pstmt, List<Book> chunk,
+                                   Consumer<List<Book>> committed) throws SQLException {
+        pstmt.executeBatch();
+        connection.commit();
+        int rows = chunk.size();
+        committed.accept(chunk);
+        chunk.clear();
+        return rows;
+    }
+
+    @Override
+    public Book update(Book book) throws SQLException {
+        try (PooledConnection conn = connections.get()) {
+            Connection connection = conn.connection();
+            connection.setAutoCommit(false);
+            Book oldBook = lockBook(conn, book.id());
+            PreparedStatement pstmt = conn.prepare(UPDATE_SQL);
+            pstmt.setString(1, book.title());
+            pstmt.setString(2, book.author());
+            pstmt.setString(3, book.publisher());
+            pstmt.setInt(4, book.year());
+            pstmt.setString(5, book.synopsis());
+            pstmt.setInt(6, book.id());
+            pstmt.executeUpdate();
+            connection.commit();
+            return oldBook;
+        }
+    }
+
+    @Override
+    public Book delete(int id) throws SQLException {
+        try (PooledConnection conn = connections.get()) {
+            Connection connection = conn.connection();
+            connection.setAutoCommit(false);
+            Book deleted = lockBook(conn, id);
+            PreparedStatement pstmt = conn.prepare("DELETE FROM BOOKS WHERE ID = ?");
+            pstmt.setInt(1, id);
+            pstmt.executeUpdate();
+            connection.commit();
+            return deleted;
+        }
+    }
+
+    /**
+     * Reads a book and locks its row until the end of the current transaction, so that the listeners
+     * are given the exact row a change replaced.
+     *
+     * @param conn The connection running the transaction, with auto-commit off.
+     * @param id   The ID of the book.
+     * @return The book, or null if there is no book with this ID.
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    private static Book lockBook(PooledConnection conn, int id) throws SQLException {
+        PreparedStatement pstmt = conn.prepare("SELECT * FROM BOOKS WHERE ID = ? FOR UPDATE");
+        pstmt.setInt(1, id);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? new BookRowMapper(rs).map(rs) : null;
+        }
+    }
+
+    @Override
+    public Book get(int id) throws SQLException {
+        List<Book> books = Database.collect(query(SELECT_BY_ID_SQL, false, pstmt -> pstmt.setInt(1, id)));
+        return books.isEmpty() ? null : books.get(0);
+    }
+
+    @Override
+    public List<Book> getAll(List<Integer> ids) throws SQLException {
+        return Database.collect(query("SELECT * FROM BOOKS WHERE ID = ANY(?)", false,
+                pstmt -> pstmt.setArray(1, pstmt.getConnection().createArrayOf("INTEGER", ids.toArray()))));
+    }
+
+    @Override
+    public List<Book> find(BookColumn column, Object value) throws SQLException {
+        String selectSQL = switch (column) {
+            case TITLE -> FIND_BY_TITLE_SQL;
+            case AUTHOR -> FIND_BY_AUTHOR_SQL;
+            case PUBLISHER -> FIND_BY_PUBLISHER_SQL;
+            case YEAR -> FIND_BY_YEAR_SQL;
+            default -> throw new IllegalArgumentException("No lookup on " + column.columnName());
+        };
+        return Database.collect(query(selectSQL, false, pstmt -> pstmt.setObject(1, value)));
+    }
+
+    @Override
+    public List<Book> list(Integer afterId, int limit) throws SQLException {
+        if (afterId == null) {
+            return Database.collect(query("SELECT * FROM BOOKS ORDER BY ID LIMIT ?", false,
+                    pstmt -> pstmt.setInt(1, limit)));
+        }
+        // The page starts from the last ID of the previous page rather than from an offset, so it is read
+        // from the primary key index and costs the same wherever it is in the table
+        return Database.collect(query("SELECT * FROM BOOKS WHERE ID > ? ORDER BY ID LIMIT ?", false, pstmt -> {
+            pstmt.setInt(1, afterId);
+            pstmt.setInt(2, limit);
+        }));
+    }
+
+    @Override
+    public List<Book> listBefore(int beforeId, int limit) throws SQLException {
+        // Read backwards from the primary key index, then put back in ascending order
+        List<Book> books = new ArrayList<>(Database.collect(query(
+                "SELECT * FROM BOOKS WHERE ID < ? ORDER BY ID DESC LIMIT ?", false, pstmt -> {
+                    pstmt.setInt(1, beforeId);
+                    pstmt.setInt(2, limit);
+                })));
+        Collections.reverse(books);
+        return books;
+    }
+
+    /**
+     * Runs the SQL statement of the query, prepared once per shape by the statement cache. The IN lists
+     * are bound as SQL arrays.
+     */
+    @Override
+    public List<Book> query(BookQuery query) throws SQLException {
+        List<Object> parameters = query.parameters();
+        return Database.collect(query(query.sql(), false, query.columns(), pstmt -> {
+            for (int i = 0; i < parameters.size(); i++) {
+                if (parameters.get(i) instanceof Object[] values) {
+                    String type = values instanceof Integer[] ? "INTEGER" : "VARCHAR";
+                    pstmt.setArray(i + 1, pstmt.getConnection().createArrayOf(type, values));
+                } else {
+                    pstmt.setObject(i + 1, parameters.get(i));
+                }
+            }
+        }));
+    }
+
+    /**
+     * Streams the rows from the database while the stream is consumed, so memory use does not depend on
+     * the size of the table. The stream holds a pooled connection until the last row has been read.
+     */
+    @Override
+    public Stream<Book> stream() throws SQLException {
+        return query(SELECT_ALL_SQL, false, pstmt -> { });
+    }
+
+    /**
+     * Executes a query on a pooled connection and streams the resulting books.
+     * The connection is given back to the pool when the stream is exhausted or closed.
+     *
+     * @param sql    The SQL query to execute.
+     * @param adHoc  Whether the query was typed by the user, see {@link PooledConnection#prepareAdHoc}.
+     * @param binder Sets the parameters of the query.
+     * @return A stream of the resulting books.
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    Stream<Book> query(String sql, boolean adHoc, StatementBinder binder) throws SQLException {
+        return query(sql, adHoc, ALL_COLUMNS, binder);
+    }
+
+    /**
+     * Executes a query returning some of the columns of the BOOKS table and streams the resulting books.
+     *
+     * @param sql     The SQL query to execute.
+     * @param adHoc   Whether the query was typed by the user, see {@link PooledConnection#prepareAdHoc}.
+     * @param columns The columns returned by the query, the other fields of the books being left empty.
+     * @param binder  Sets the parameters of the query.
+     * @return A stream of the resulting books.
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    private Stream<Book> query(String sql, boolean adHoc, Set<BookColumn> columns, StatementBinder binder)
+            throws SQLException {
+        PooledConnection conn = connections.get();
+        try {
+            PreparedStatement pstmt = adHoc ? conn.prepareAdHoc(sql) : conn.prepare(sql);
+            binder.bind(pstmt);
+            pstmt.setFetchSize(Database.fetchSize);
+            ResultSetSpliterator rows = new ResultSetSpliterator(conn, pstmt.executeQuery(), columns);
+            return StreamSupport.stream(rows, false).onClose(rows::close);
+        } catch (SQLException | RuntimeException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a query typed by the user and appends each of its rows on one line, while they are read:
+     * as {@link Book#describe()} when the query returns the columns of the BOOKS table, otherwise, as for
+     * an aggregation such as {@code SELECT AUTHOR, COUNT(*) FROM BOOKS GROUP BY AUTHOR}, as the label and
+     * value of each column.
+     *
+     * @param sql    The SQL query to execute.
+     * @param result The text the rows are appended to, in order.
+     * @return The number of rows appended.
+     * @throws SQLException If there is an issue with SQL execution.
+     */
+    long describeRows(String sql, StringBuilder result) throws SQLException {
+        try (PooledConnection conn = connections.get()) {
+            PreparedStatement pstmt = conn.prepareAdHoc(sql);
+            pstmt.setFetchSize(Database.fetchSize);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columns = metaData.getColumnCount();
+                BookRowMapper mapper = hasBookColumns(metaData) ? new BookRowMapper(rs) : null;
+                long rows = 0;
+                while (rs.next()) {
+                    if (mapper != null) {
+                        result.append(mapper.map(rs).describe());
+                    } else {
+                        for (int column = 1; column <= columns; column++) {
+                            if (column > 1) {
+                                result.append(", ");
+                            }
+                            result.append(metaData.getColumnLabel(column)).append(": ").append(rs.getObject(column));
+                        }
+                    }
+                    result.append("\n");
+                    rows++;
+                }
+                return rows;
+            }
+        }
+    }
+
+    private static boolean hasBookColumns(ResultSetMetaData metaData) throws SQLException {
+        Set<String> labels = new HashSet<>();
+        for (int column = 1; column <= metaData.getColumnCount(); column++) {
+            labels.add(metaData.getColumnLabel(column).toUpperCase(Locale.ROOT));
+        }
+        for (BookColumn column : BookColumn.values()) {
+            if (!labels.contains(column.columnName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that every find query is answered from an index, by running EXPLAIN on each of them.
+     *
+     * @throws SQLException If one of the queries falls back to a full table scan.
+     */
+    void verifyIndexes() throws SQLException {
+        String[] lookups = {FIND_BY_TITLE_SQL, FIND_BY_AUTHOR_SQL, FIND_BY_PUBLISHER_SQL, FIND_BY_YEAR_SQL};
+        try (PooledConnection conn = connections.get()) {
+            for (String lookup : lookups) {
+                try (PreparedStatement explain = conn.prepareStatement("EXPLAIN " + lookup)) {
+                    explain.setObject(1, lookup.equals(FIND_BY_YEAR_SQL) ? 0 : "");
+                    try (ResultSet rs = explain.executeQuery()) {
+                        String plan = rs.next() ? rs.getString(1) : "";
+                        if (plan.contains("tableScan")) {
+                            throw new SQLException("Query does not use an index: " + lookup + "\nPlan: " + plan);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement pstmt, Book book) throws SQLException {
+        pstmt.setInt(1, book.id());
+        pstmt.setString(2, book.title());
+        pstmt.setString(3, book.author());
+        pstmt.setString(4, book.publisher());
+        pstmt.setInt(5, book.year());
+        pstmt.setString(6, book.synopsis());
+    }
+
+    /**
+     * Borrows a pooled connection.
+     */
+    @FunctionalInterface
+    interface ConnectionSource {
+        PooledConnection get() throws SQLException;
+    }
+
+    /**
+     * Sets the parameters of a prepared statement.
+     */
+    @FunctionalInterface
+    interface StatementBinder {
+        void bind(PreparedStatement pstmt) throws SQLException;
+    }
+}
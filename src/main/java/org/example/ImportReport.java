@@ -0,0 +1,27 @@
+package org.example;
+
+import java.util.List;
+
+/**
+ * Summary of an import from a CSV or JSON Lines file.
+ *
+ * @param rows          number of books inserted
+ * @param rejectCount   number of lines rejected
+ * @param rejects       the first rejected lines, at most {@link #MAX_REPORTED_REJECTS}
+ * @param elapsedMillis duration of the import
+ */
+public record ImportReport(long rows, long rejectCount, List<Reject> rejects, long elapsedMillis) {
+    /**
+     * Maximum number of rejected lines kept in a report, so that memory use stays bounded.
+     */
+    public static final int MAX_REPORTED_REJECTS = 1_000;
+
+    /**
+     * A line of the file that could not be imported.
+     *
+     * @param line   the line number, starting at 1, of the first line of the record
+     * @param reason why the line was rejected
+     */
+    public record Reject(long line, String reason) {
+    }
+}
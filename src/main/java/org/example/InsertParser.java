@@ -0,0 +1,289 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parses INSERT statements into the BOOKS table, such as the ones written by {@link SqlScriptWriter},
+ * into books, and the DELETE statements of their deltas into IDs.
+ *
+ * Only statements made of literal values are recognised: integers, string literals and NULL.
+ * For anything else the parser returns null and the statement should be run by the database as is.
+ */
+class InsertParser {
+    private static final BookColumn[] ALL_COLUMNS = {
+            BookColumn.ID, BookColumn.TITLE, BookColumn.AUTHOR, BookColumn.PUBLISHER, BookColumn.YEAR,
+            BookColumn.SYNOPSIS
+    };
+
+    private final String sql;
+    private int position;
+
+    private InsertParser(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * Parses a statement.
+     *
+     * @param sql a SQL statement without its semicolon
+     * @return the books inserted by the statement, or null if it is not a recognised INSERT INTO BOOKS
+     */
+    static List<Book> parse(String sql) {
+        return new InsertParser(sql).parseInsert();
+    }
+
+    /**
+     * Parses a {@code DELETE FROM BOOKS WHERE ID IN (...)} statement, as written by
+     * {@link SqlScriptWriter#delete(int)}.
+     *
+     * @param sql a SQL statement without its semicolon
+     * @return the IDs deleted by the statement, or null if it is not a recognised DELETE FROM BOOKS
+     */
+    static List<Integer> parseDelete(String sql) {
+        return new InsertParser(sql).parseDeleteIds();
+    }
+
+    private List<Integer> parseDeleteIds() {
+        if (!keyword("DELETE") || !keyword("FROM") || !tableName() || !keyword("WHERE")
+                || !"ID".equals(identifier()) || !keyword("IN")) {
+            return null;
+        }
+        skipWhitespace();
+        if (!accept('(')) {
+            return null;
+        }
+        List<Integer> ids = new ArrayList<>();
+        do {
+            skipWhitespace();
+            if (!(value() instanceof Integer id)) {
+                return null;
+            }
+            ids.add(id);
+            skipWhitespace();
+        } while (accept(','));
+        if (!accept(')')) {
+            return null;
+        }
+        skipWhitespace();
+        return position == sql.length() ? ids : null;
+    }
+
+    private List<Book> parseInsert() {
+        if (!keyword("INSERT") || !keyword("INTO") || !tableName()) {
+            return null;
+        }
+
+        BookColumn[] columns = ALL_COLUMNS;
+        skipWhitespace();
+        if (accept('(')) {
+            columns = columnList();
+            if (columns == null) {
+                return null;
+            }
+        }
+        if (!keyword("VALUES")) {
+            return null;
+        }
+
+        List<Book> books = new ArrayList<>();
+        do {
+            Book book = row(columns);
+            if (book == null) {
+                return null;
+            }
+            books.add(book);
+            skipWhitespace();
+        } while (accept(','));
+
+        skipWhitespace();
+        return position == sql.length() ? books : null;
+    }
+
+    /**
+     * Parses BOOKS, optionally quoted and prefixed by the PUBLIC schema.
+     */
+    private boolean tableName() {
+        String name = identifier();
+        skipWhitespace();
+        if ("PUBLIC".equals(name) && accept('.')) {
+            name = identifier();
+        }
+        return "BOOKS".equals(name);
+    }
+
+    /**
+     * Parses the column list after its opening parenthesis.
+     */
+    private BookColumn[] columnList() {
+        List<BookColumn> columns = new ArrayList<>();
+        do {
+            String name = identifier();
+            BookColumn column = null;
+            for (BookColumn candidate : ALL_COLUMNS) {
+                if (candidate.columnName().equals(name)) {
+                    column = candidate;
+                }
+            }
+            if (column == null || columns.contains(column)) {
+                return null;
+            }
+            columns.add(column);
+            skipWhitespace();
+        } while (accept(','));
+        return accept(')') ? columns.toArray(new BookColumn[0]) : null;
+    }
+
+    /**
+     * Parses one parenthesized row of values into a book.
+     */
+    private Book row(BookColumn[] columns) {
+        skipWhitespace();
+        if (!accept('(')) {
+            return null;
+        }
+
+        Integer id = null;
+        Integer year = null;
+        String title = null;
+        String author = null;
+        String publisher = null;
+        String synopsis = null;
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                skipWhitespace();
+                if (!accept(',')) {
+                    return null;
+                }
+            }
+            skipWhitespace();
+            Object value = value();
+            if (value == Invalid.VALUE || !fits(columns[i], value)) {
+                return null;
+            }
+            switch (columns[i]) {
+                case ID -> id = (Integer) value;
+                case YEAR -> year = (Integer) value;
+                case TITLE -> title = (String) value;
+                case AUTHOR -> author = (String) value;
+                case PUBLISHER -> publisher = (String) value;
+                case SYNOPSIS -> synopsis = (String) value;
+            }
+        }
+        skipWhitespace();
+        if (!accept(')') || id == null || year == null || title == null || author == null || publisher == null) {
+            return null;
+        }
+        return new Book(id, title, author, publisher, year, synopsis);
+    }
+
+    /**
+     * Checks that a literal has the type of its column. Other combinations are left to the database.
+     */
+    private static boolean fits(BookColumn column, Object value) {
+        if (value == null) {
+            return true;
+        }
+        boolean integerColumn = column == BookColumn.ID || column == BookColumn.YEAR;
+        return integerColumn ? value instanceof Integer : value instanceof String;
+    }
+
+    /**
+     * Parses a literal: an integer, a string or NULL.
+     *
+     * @return the Integer or String value, null for NULL, or {@link Invalid#VALUE} for anything else
+     */
+    private Object value() {
+        if (accept('\'')) {
+            StringBuilder value = new StringBuilder();
+            while (position < sql.length()) {
+                char c = sql.charAt(position++);
+                if (c == '\'') {
+                    if (!accept('\'')) {
+                        return value.toString();
+                    }
+                }
+                value.append(c);
+            }
+            return Invalid.VALUE;
+        }
+        if (keyword("NULL")) {
+            return null;
+        }
+
+        int start = position;
+        if (position < sql.length() && (sql.charAt(position) == '-' || sql.charAt(position) == '+')) {
+            position++;
+        }
+        int digits = position;
+        while (position < sql.length() && Character.isDigit(sql.charAt(position))) {
+            position++;
+        }
+        if (position == digits || position - digits > 10) {
+            return Invalid.VALUE;
+        }
+        long number = Long.parseLong(sql, start, position, 10);
+        if (number < Integer.MIN_VALUE || number > Integer.MAX_VALUE) {
+            return Invalid.VALUE;
+        }
+        return (int) number;
+    }
+
+    /**
+     * Parses an identifier, upper-cased unless quoted.
+     */
+    private String identifier() {
+        skipWhitespace();
+        if (accept('"')) {
+            int end = sql.indexOf('"', position);
+            if (end < 0) {
+                return null;
+            }
+            String name = sql.substring(position, end);
+            position = end + 1;
+            return name;
+        }
+        int start = position;
+        while (position < sql.length()
+                && (Character.isLetterOrDigit(sql.charAt(position)) || sql.charAt(position) == '_')) {
+            position++;
+        }
+        return start == position ? null : sql.substring(start, position).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Consumes a keyword, case-insensitively, if it comes next as a whole word.
+     */
+    private boolean keyword(String word) {
+        skipWhitespace();
+        int end = position + word.length();
+        if (end > sql.length() || !sql.regionMatches(true, position, word, 0, word.length())
+                || (end < sql.length() && Character.isLetterOrDigit(sql.charAt(end)))) {
+            return false;
+        }
+        position = end;
+        return true;
+    }
+
+    private boolean accept(char c) {
+        if (position < sql.length() && sql.charAt(position) == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (position < sql.length() && Character.isWhitespace(sql.charAt(position))) {
+            position++;
+        }
+    }
+
+    /**
+     * Marker for a value the parser does not recognise.
+     */
+    private enum Invalid {
+        VALUE
+    }
+}
@@ -0,0 +1,168 @@
+package org.example;
+
+/**
+ * Hash map from int keys to non-negative int values, without boxing.
+ *
+ * Keys and values are kept in two parallel arrays with open addressing and linear probing, so a lookup
+ * reads one or two neighbouring array slots instead of following a chain of entry objects. A value of 0
+ * in the values array marks an empty slot; values are stored shifted by one. Removal shifts the
+ * following entries of the probe sequence back instead of leaving tombstones, so lookups do not slow
+ * down as entries are removed.
+ *
+ * Not thread-safe: readers may run concurrently only while no thread writes.
+ */
+class IntIntHashMap {
+    /**
+     * Value returned by {@link #get(int)} for a missing key.
+     */
+    static final int MISSING = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    /**
+     * Creates a map sized for the expected number of entries.
+     *
+     * @param expected the number of entries the map holds without resizing
+     */
+    IntIntHashMap(int expected) {
+        allocate(Integer.highestOneBit(Math.max(4, expected + expected / 2) - 1) << 1);
+    }
+
+    /**
+     * Retrieves the value of a key.
+     *
+     * @param key the key
+     * @return the value, or {@link #MISSING} if the key is not in the map
+     */
+    int get(int key) {
+        int index = index(key);
+        int value;
+        while ((value = values[index]) != 0) {
+            if (keys[index] == key) {
+                return value - 1;
+            }
+            index = (index + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * Associates a value with a key, replacing its previous value.
+     *
+     * @param key   the key
+     * @param value the value, 0 or more
+     * @return the previous value, or {@link #MISSING} if the key was not in the map
+     */
+    int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        int index = index(key);
+        while (values[index] != 0) {
+            if (keys[index] == key) {
+                int previous = values[index] - 1;
+                values[index] = value + 1;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value + 1;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return MISSING;
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key the key
+     * @return the value it had, or {@link #MISSING} if the key was not in the map
+     */
+    int remove(int key) {
+        int index = index(key);
+        while (values[index] != 0) {
+            if (keys[index] == key) {
+                int previous = values[index] - 1;
+                shiftBack(index);
+                size--;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * Retrieves the number of entries.
+     *
+     * @return the number of keys in the map
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the memory used by the arrays of the map.
+     *
+     * @return the size of the arrays, in bytes
+     */
+    long byteSize() {
+        return (long) keys.length * Integer.BYTES * 2;
+    }
+
+    /**
+     * Fills the gap left by a removed entry with the following entries of its probe sequence, so that
+     * every remaining key can still be found from its home slot.
+     */
+    private void shiftBack(int gap) {
+        int index = gap;
+        while (true) {
+            index = (index + 1) & mask;
+            if (values[index] == 0) {
+                break;
+            }
+            int home = index(keys[index]);
+            // The entry can move to the gap if its home slot is not cyclically between the gap and itself
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                gap = index;
+            }
+        }
+        values[gap] = 0;
+    }
+
+    private int index(int key) {
+        // Fibonacci hashing spreads sequential IDs over the whole table
+        return (key * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(mask) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity / 3 * 2;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                int index = index(oldKeys[i]);
+                while (values[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Index from int keys to the row slots holding them, for keys shared by many rows such as a year.
+ *
+ * The slots of a key form a doubly linked list threaded through two int arrays indexed by slot, and an
+ * {@link IntIntHashMap} holds the first slot of each key. Adding or removing a slot costs the same
+ * whatever the number of rows of its key, and the whole index takes two ints per slot plus one map
+ * entry per distinct key, with no object per row.
+ *
+ * Not thread-safe: readers may run concurrently only while no thread writes.
+ */
+class IntMultiIndex {
+    private final IntIntHashMap heads;
+    private int[] next;
+    private int[] previous;
+
+    /**
+     * Creates an index sized for the expected number of slots.
+     *
+     * @param slots the number of slots the index holds without growing
+     * @param keys  the expected number of distinct keys
+     */
+    IntMultiIndex(int slots, int keys) {
+        heads = new IntIntHashMap(keys);
+        next = new int[Math.max(16, slots)];
+        previous = new int[next.length];
+    }
+
+    /**
+     * Adds a slot to the rows of a key. The slot must not be in the index.
+     *
+     * @param key  the key
+     * @param slot the slot of the row, 0 or more
+     */
+    void add(int key, int slot) {
+        if (slot >= next.length) {
+            int capacity = Math.max(slot + 1, next.length + (next.length >> 1));
+            next = Arrays.copyOf(next, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+        }
+        int head = heads.put(key, slot);
+        // Links are stored shifted by one, 0 ending the list
+        next[slot] = head + 1;
+        previous[slot] = 0;
+        if (head != IntIntHashMap.MISSING) {
+            previous[head] = slot + 1;
+        }
+    }
+
+    /**
+     * Removes a slot from the rows of a key. The slot must be in the index under this key.
+     *
+     * @param key  the key
+     * @param slot the slot of the row
+     */
+    void remove(int key, int slot) {
+        int after = next[slot] - 1;
+        int before = previous[slot] - 1;
+        if (before == -1) {
+            if (after == -1) {
+                heads.remove(key);
+            } else {
+                heads.put(key, after);
+            }
+        } else {
+            next[before] = after + 1;
+        }
+        if (after != -1) {
+            previous[after] = before + 1;
+        }
+    }
+
+    /**
+     * Calls an action with each slot of a key.
+     *
+     * @param key    the key
+     * @param action called with the slots, most recently added first
+     */
+    void forEach(int key, IntConsumer action) {
+        int slot = heads.get(key);
+        while (slot != IntIntHashMap.MISSING) {
+            action.accept(slot);
+            slot = next[slot] - 1;
+        }
+    }
+
+    /**
+     * Retrieves the memory used by the arrays of the index.
+     *
+     * @return the size of the arrays, in bytes
+     */
+    long byteSize() {
+        return heads.byteSize() + (long) next.length * Integer.BYTES * 2;
+    }
+}
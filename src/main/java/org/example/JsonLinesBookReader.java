@@ -0,0 +1,225 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads JSON Lines records: one JSON object per line, whose keys are mapped onto the columns with a
+ * {@link ColumnMapping}.
+ *
+ * Mapped keys take a string, a number, a boolean or null. The values of the other keys are skipped,
+ * whatever their type. The file is read one line at a time.
+ */
+class JsonLinesBookReader implements BookRecordReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final BufferedReader reader;
+    private final ColumnMapping mapping;
+    private final StringBuilder text = new StringBuilder();
+    private String json;
+    private int position;
+    private long currentLine;
+    private long recordLine;
+
+    /**
+     * Creates a reader.
+     *
+     * @param reader  the file to read, closed with this reader
+     * @param mapping maps the keys onto the columns
+     */
+    JsonLinesBookReader(Reader reader, ColumnMapping mapping) {
+        this.reader = new BufferedReader(reader, BUFFER_SIZE);
+        this.mapping = mapping;
+    }
+
+    @Override
+    public boolean next(String[] values) throws IOException, RejectedRecordException {
+        do {
+            json = reader.readLine();
+            currentLine++;
+            if (json == null) {
+                return false;
+            }
+        } while (json.isBlank());
+
+        recordLine = currentLine;
+        position = currentLine == 1 && json.charAt(0) == '\uFEFF' ? 1 : 0;
+        Arrays.fill(values, null);
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (!accept('}')) {
+            do {
+                skipWhitespace();
+                expect('"');
+                String key = readString();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                BookColumn column = mapping.columnFor(key);
+                if (column == null) {
+                    skipValue(key);
+                } else {
+                    values[column.ordinal()] = readScalar(key);
+                }
+                skipWhitespace();
+            } while (accept(','));
+            expect('}');
+        }
+        skipWhitespace();
+        if (position != json.length()) {
+            throw new RejectedRecordException("Unexpected content after the JSON object at column " + (position + 1));
+        }
+        return true;
+    }
+
+    @Override
+    public long line() {
+        return recordLine;
+    }
+
+    /**
+     * Reads the value of a mapped key.
+     *
+     * @return the text of a string, number or boolean, or null
+     */
+    private String readScalar(String key) throws RejectedRecordException {
+        if (accept('"')) {
+            return readString();
+        }
+        if (acceptWord("null")) {
+            return null;
+        }
+        if (acceptWord("true")) {
+            return "true";
+        }
+        if (acceptWord("false")) {
+            return "false";
+        }
+        int start = position;
+        while (position < json.length() && isNumberChar(json.charAt(position))) {
+            position++;
+        }
+        if (start == position) {
+            throw new RejectedRecordException("Unsupported value for \"" + key + "\" at column " + (position + 1));
+        }
+        return json.substring(start, position);
+    }
+
+    /**
+     * Skips a value of any type, objects and arrays included.
+     */
+    private void skipValue(String key) throws RejectedRecordException {
+        if (accept('"')) {
+            readString();
+        } else if (accept('{') || accept('[')) {
+            char close = json.charAt(position - 1) == '{' ? '}' : ']';
+            skipWhitespace();
+            if (accept(close)) {
+                return;
+            }
+            do {
+                skipWhitespace();
+                if (close == '}') {
+                    expect('"');
+                    readString();
+                    skipWhitespace();
+                    expect(':');
+                    skipWhitespace();
+                }
+                skipValue(key);
+                skipWhitespace();
+            } while (accept(','));
+            expect(close);
+        } else {
+            readScalar(key);
+        }
+    }
+
+    /**
+     * Reads a string after its opening quote, decoding its escape sequences.
+     */
+    private String readString() throws RejectedRecordException {
+        text.setLength(0);
+        while (position < json.length()) {
+            char c = json.charAt(position++);
+            if (c == '"') {
+                return text.toString();
+            }
+            if (c != '\\') {
+                text.append(c);
+                continue;
+            }
+            if (position == json.length()) {
+                break;
+            }
+            char escaped = json.charAt(position++);
+            switch (escaped) {
+                case '"', '\\', '/' -> text.append(escaped);
+                case 'b' -> text.append('\b');
+                case 'f' -> text.append('\f');
+                case 'n' -> text.append('\n');
+                case 'r' -> text.append('\r');
+                case 't' -> text.append('\t');
+                case 'u' -> text.append(readHexCharacter());
+                default -> throw new RejectedRecordException("Invalid escape sequence \\" + escaped
+                        + " at column " + position);
+            }
+        }
+        throw new RejectedRecordException("Unterminated string");
+    }
+
+    private char readHexCharacter() throws RejectedRecordException {
+        if (position + 4 > json.length()) {
+            throw new RejectedRecordException("Truncated \\u escape sequence at column " + position);
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(json.charAt(position++), 16);
+            if (digit < 0) {
+                throw new RejectedRecordException("Invalid \\u escape sequence at column " + position);
+            }
+            value = value * 16 + digit;
+        }
+        return (char) value;
+    }
+
+    private static boolean isNumberChar(char c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+    }
+
+    private void expect(char c) throws RejectedRecordException {
+        if (!accept(c)) {
+            throw new RejectedRecordException("Expected '" + c + "' at column " + (position + 1));
+        }
+    }
+
+    private boolean accept(char c) {
+        if (position < json.length() && json.charAt(position) == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean acceptWord(String word) {
+        if (json.startsWith(word, position)) {
+            position += word.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+            position++;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,20 @@
+package org.example;
+
+/**
+ * Summary of a data load.
+ *
+ * @param rows          number of books inserted
+ * @param statements    number of statements read from the script
+ * @param elapsedMillis duration of the load
+ */
+public record LoadReport(long rows, long statements, long elapsedMillis) {
+
+    /**
+     * Computes the load throughput.
+     *
+     * @return the number of books inserted per second
+     */
+    public long rowsPerSecond() {
+        return elapsedMillis == 0 ? rows * 1000 : rows * 1000 / elapsedMillis;
+    }
+}
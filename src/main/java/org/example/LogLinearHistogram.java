@@ -0,0 +1,120 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent histogram of non-negative values with a bounded relative error, in the style of
+ * HdrHistogram.
+ *
+ * Values are counted in buckets whose width doubles with each power of two, each power of two being
+ * split into {@value #SUB_BUCKETS} linear sub-buckets, so a percentile is reported within about 1.6% of
+ * the recorded value. Values above 2^40 are counted in the last bucket. Recording is lock-free.
+ */
+class LogLinearHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_VALUE = 1L << 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(index(MAX_VALUE) + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a value.
+     *
+     * @param value the value, negative values being recorded as 0
+     */
+    void record(long value) {
+        long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+        counts.incrementAndGet(index(clamped));
+        count.increment();
+        sum.add(clamped);
+        max.accumulate(clamped);
+    }
+
+    /**
+     * Retrieves the number of recorded values.
+     *
+     * @return the number of values
+     */
+    long count() {
+        return count.sum();
+    }
+
+    /**
+     * Retrieves the mean of the recorded values.
+     *
+     * @return the mean, or 0 if nothing was recorded
+     */
+    double mean() {
+        long values = count.sum();
+        return values == 0 ? 0 : (double) sum.sum() / values;
+    }
+
+    /**
+     * Retrieves the largest recorded value.
+     *
+     * @return the maximum, or 0 if nothing was recorded
+     */
+    long max() {
+        return max.get();
+    }
+
+    /**
+     * Retrieves the value below which the given share of the recorded values fall.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the highest value of the bucket holding the percentile, at most the maximum, or 0 if
+     *         nothing was recorded
+     */
+    long percentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[counts.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), max());
+            }
+        }
+        return max();
+    }
+
+    /**
+     * Clears the recorded values. Values recorded at the same time may be partly kept.
+     */
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * Finds the bucket of a value: the position of its highest bit gives the power of two, the next
+     * {@value #SUB_BUCKET_BITS} bits give the sub-bucket.
+     */
+    private static int index(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    private static long highestValue(int index) {
+        int shift = Math.max(0, (index >>> SUB_BUCKET_BITS) - 1);
+        long subBucket = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
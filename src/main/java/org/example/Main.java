@@ -1,20 +1,27 @@
 package org.example;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.geometry.Insets;
 
 import java.io.File;
-import java.io.IOException;
-import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 /**
  * Main class for the Books Database application.
@@ -23,8 +30,12 @@ import java.util.Objects;
 public class Main extends Application {
 
     private TextArea outputTextArea;
+    private BookTable bookTable;
     private TextField queryTextField;
     private Scene scene;
+    private HBox statusBox;
+    private Label statusLabel;
+    private final List<CompletableFuture<?>> runningTasks = new ArrayList<>();
 
     /**
      * Initializes and sets up the JavaFX application.
@@ -34,6 +45,10 @@ public class Main extends Application {
     public void start(Stage primaryStage) {
         outputTextArea = new TextArea();
         outputTextArea.setEditable(false);
+        outputTextArea.setPrefRowCount(6);
+
+        bookTable = new BookTable();
+        VBox.setVgrow(bookTable, Priority.ALWAYS);
 
         queryTextField = new TextField();
         queryTextField.setPromptText("Enter SQL query (Example query : SELECT * FROM BOOKS)");
@@ -71,7 +86,7 @@ public class Main extends Application {
         gridPane.add(clearLogButton, 0, 5);
 
         VBox outputBox = new VBox();
-        outputBox.getChildren().addAll(outputTextArea, queryTextField, userQueryButton);
+        outputBox.getChildren().addAll(bookTable, outputTextArea, queryTextField, userQueryButton);
         outputBox.setSpacing(10);
         outputBox.setPadding(new Insets(10));
 
@@ -85,6 +100,30 @@ public class Main extends Application {
         exitItem.setOnAction(e-> primaryStage.close());
         MenuItem loadFileItem = new MenuItem("Load File");
         loadFileItem.setOnAction(e-> loadFile(primaryStage));
+        MenuItem importItem = new MenuItem("Import CSV / JSON Lines");
+        importItem.setOnAction(e -> importFile(primaryStage));
+        MenuItem exportItem = new MenuItem("Export CSV / JSON Lines");
+        exportItem.setOnAction(e -> exportFile(primaryStage));
+        MenuItem compactChangesItem = new MenuItem("Merge saved changes");
+        compactChangesItem.setOnAction(e -> compactChanges());
+        MenuItem compactItem = new MenuItem("Compact storage");
+        compactItem.setOnAction(e -> compactStorage());
+        compactItem.setDisable(!Database.isFileStorage());
+        MenuItem statsItem = new MenuItem("Stats");
+        statsItem.setOnAction(e -> new StatsWindow(scene).show());
+        MenuItem catalogueItem = new MenuItem("Catalogue statistics");
+        catalogueItem.setOnAction(e -> new CatalogueWindow(scene).show());
+
+        // Status bar shown while database operations run in the background
+        statusLabel = new Label();
+        ProgressIndicator progressIndicator = new ProgressIndicator();
+        progressIndicator.setPrefSize(20, 20);
+        Button cancelTasksButton = new Button("Cancel");
+        cancelTasksButton.setOnAction(e -> cancelRunningTasks());
+        statusBox = new HBox(progressIndicator, statusLabel, cancelTasksButton);
+        statusBox.setSpacing(10);
+        statusBox.setPadding(new Insets(0, 10, 10, 10));
+        statusBox.setVisible(false);
 
         HBox topContainer = new HBox(menuBar);
         topContainer.setPadding(new Insets(10));
@@ -92,10 +131,11 @@ public class Main extends Application {
 
         BorderPane root = new BorderPane();
         root.setTop(topContainer);
-        root.setCenter(gridPane);
-        root.setRight(outputBox);
+        root.setLeft(gridPane);
+        root.setCenter(outputBox);
+        root.setBottom(statusBox);
 
-        scene = new Scene(root, 800, 400);
+        scene = new Scene(root, 1000, 600);
         scene.getStylesheets().add(Objects.requireNonNull(getClass().getResource("/styles/light.css")).toExternalForm());
 
         // Secondary menu : style of application
@@ -111,19 +151,62 @@ public class Main extends Application {
                 Objects.requireNonNull(getClass().getResource("/styles/pastel.css")).toExternalForm()));
 
         styleMenu.getItems().addAll(lightMode, darkMode, pastelMode);
-        menu.getItems().addAll(loadFileItem, saveItem, exitItem, styleMenu);
+        menu.getItems().addAll(loadFileItem, importItem, saveItem, compactChangesItem, exportItem, compactItem, statsItem,
+                catalogueItem, exitItem, styleMenu);
 
         primaryStage.setTitle("Books Database");
         primaryStage.setScene(scene);
         primaryStage.show();
 
-        try {
-            Database.launchDatabase(Database.dataScript);
-            log("Database initialized successfully with the default file.");
+        boolean warmStart = Database.isFileStorage() && Database.storeExists();
+        runInBackground("Initializing database", Database::startDatabase, report -> {
+            if (warmStart) {
+                log("Database opened from its file store in " + report.elapsedMillis() + " ms.");
+            } else {
+                log("Database initialized successfully with the default file in " + report.elapsedMillis()
+                        + " ms.");
+                logLoadReport(report);
+            }
             viewAllBooks();
-        } catch (SQLException e) {
-            e.printStackTrace();
-            log("Failed to initialize database: " + e.getMessage());
+        }, error -> log("Failed to initialize database: " + error.getMessage()));
+    }
+
+    /**
+     * Runs a database operation on the background executor and shows the status bar while it runs.
+     * The callbacks are called on the JavaFX application thread.
+     *
+     * @param description Short description of the operation shown in the status bar.
+     * @param operation   The database operation to run.
+     * @param onSuccess   Called with the result of the operation.
+     * @param onError     Called with the exception thrown by the operation.
+     */
+    private <T> void runInBackground(String description, Callable<T> operation, Consumer<T> onSuccess,
+                                     Consumer<Throwable> onError) {
+        CompletableFuture<T> future = AsyncDatabase.submit(operation);
+        runningTasks.add(future);
+        statusLabel.setText(description + "...");
+        statusBox.setVisible(true);
+
+        future.whenCompleteAsync((result, error) -> {
+            runningTasks.remove(future);
+            statusBox.setVisible(!runningTasks.isEmpty());
+            if (future.isCancelled()) {
+                log(description + " cancelled.");
+            } else if (error != null) {
+                error.printStackTrace();
+                onError.accept(error);
+            } else {
+                onSuccess.accept(result);
+            }
+        }, Platform::runLater);
+    }
+
+    /**
+     * Cancels the database operations running in the background.
+     */
+    private void cancelRunningTasks() {
+        for (CompletableFuture<?> task : new ArrayList<>(runningTasks)) {
+            task.cancel(false);
         }
     }
 
@@ -181,7 +264,8 @@ public class Main extends Application {
 
     /**
      * Opens a dialog to execute a simple SQL query.
-     * The user has to choose a field to query and fill out what he is looking for.
+     * The user combines conditions on the fields of the books, and chooses their order, their number and
+     * the fields shown.
      * @param scene The current scene of the application.
      */
     private void sendSimpleQuery(Scene scene){
@@ -190,7 +274,7 @@ public class Main extends Application {
 
         if(query.isQueryOver()){
             log("Successfully sent a simple query.");
-            log("Searched for " + query.getSelectedField() + "=" +query.getData());
+            log("Searched for " + query.getDescription());
             if(query.getResult().isEmpty()){
                 log("No results found.");
             }else{
@@ -203,61 +287,199 @@ public class Main extends Application {
 
     /**
      * Saves the database contents to a file.
+     * Saving to the file last loaded or saved only writes the changes made since, as a delta file next to it.
+     * Otherwise the whole database is written, as a binary snapshot when that format is selected or the
+     * file name ends with ".books", as a SQL script otherwise.
      * @param primaryStage The primary stage of the application.
      */
     private void saveDbToFile(Stage primaryStage) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Save DB File");
-        File selectedFile = fileChooser.showOpenDialog(primaryStage);
-
-        if (selectedFile != null) {
-            try {
-                Database.exportDatabase(selectedFile.getAbsolutePath());
-                log("Database saved successfully in file: " + selectedFile.getAbsolutePath());
-            } catch (SQLException | IOException e) {
-                log("Error saving the database to the file : "+ selectedFile.getAbsolutePath() + e.getMessage());
-                e.printStackTrace();
-            }
+        FileChooser.ExtensionFilter snapshotFilter =
+                new FileChooser.ExtensionFilter("Binary snapshot", "*" + BookSnapshot.EXTENSION);
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("SQL script", "*.sql", "*.sql.gz"), snapshotFilter);
+        File selectedFile = fileChooser.showSaveDialog(primaryStage);
+
+        if (selectedFile != null && selectedFile.toPath().toAbsolutePath().equals(Database.getSaveBase())) {
+            runInBackground("Saving changes", Database::saveChanges,
+                    delta -> log(delta == null ? "No changes to save." : "Changes saved in file: " + delta),
+                    error -> log("Error saving the changes next to the file : " + selectedFile.getAbsolutePath()
+                            + error.getMessage()));
+        } else if (selectedFile != null) {
+            String path = selectedFile.getAbsolutePath();
+            boolean snapshot = fileChooser.getSelectedExtensionFilter() == snapshotFilter
+                    || BookSnapshot.hasSnapshotExtension(path);
+            ProgressListener progress = rows -> {
+                AsyncDatabase.checkCancelled();
+                Platform.runLater(() -> statusLabel.setText("Saving database... " + rows + " books"));
+            };
+            runInBackground("Saving database", () -> snapshot
+                            ? Database.exportSnapshot(path, progress)
+                            : Database.exportDatabase(path, Database.exportRowsPerStatement,
+                                    Database.isCompressed(path), progress),
+                    result -> log("Database saved successfully in file: " + selectedFile.getAbsolutePath()),
+                    error -> log("Error saving the database to the file : " + selectedFile.getAbsolutePath()
+                            + error.getMessage()));
         }
     }
 
     /**
-     * Loads data into the database from a file.
+     * Loads data into the database from a file, a SQL script or a binary snapshot.
      * @param primaryStage The primary stage of the application.
      */
     private void loadFile(Stage primaryStage) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Select SQL File");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("SQL script or snapshot", "*.sql", "*.sql.gz",
+                        "*" + BookSnapshot.EXTENSION),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
         File selectedFile = fileChooser.showOpenDialog(primaryStage);
 
         if (selectedFile != null) {
-            try {
-                Database.launchDatabase(selectedFile.getAbsolutePath());
+            runInBackground("Loading file", () -> Database.launchDatabase(selectedFile.getAbsolutePath(), rows -> {
+                AsyncDatabase.checkCancelled();
+                Platform.runLater(() -> statusLabel.setText("Loading file... " + rows + " books"));
+            }), report -> {
                 log("Data loaded successfully from file: " + selectedFile.getAbsolutePath());
+                logLoadReport(report);
                 viewAllBooks();
-            } catch (SQLException e) {
-                log("Error loading the data from the file : "+ selectedFile.getAbsolutePath() + e.getMessage());
-                e.printStackTrace();
-            }
+            }, error -> log("Error loading the data from the file : " + selectedFile.getAbsolutePath()
+                    + error.getMessage()));
         }
     }
 
     /**
-     * Fetches and displays all books from the database.
+     * Imports books from a CSV or JSON Lines file into the database.
+     * The user chooses the file, then can map its fields onto the columns.
+     * @param primaryStage The primary stage of the application.
      */
-    private void viewAllBooks() {
-        try {
-            String booksInfo = Database.viewAllBooksAsString();
-            if(booksInfo.isEmpty()){
-                log("No books found.");
-            }else{
-                log(booksInfo);
+    private void importFile(Stage primaryStage) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Select CSV or JSON Lines File");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV or JSON Lines", "*.csv", "*.csv.gz", "*.jsonl", "*.jsonl.gz",
+                        "*.ndjson", "*.ndjson.gz"),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+        File selectedFile = fileChooser.showOpenDialog(primaryStage);
+        if (selectedFile == null) {
+            return;
+        }
+        String path = selectedFile.getAbsolutePath();
+        BookFileFormat format = BookFileFormat.forFile(path);
+        if (format == null) {
+            log("Unknown file format, expected .csv, .jsonl or .ndjson: " + path);
+            return;
+        }
+
+        ColumnMapping mapping = askColumnMapping();
+        if (mapping == null) {
+            return;
+        }
+        runInBackground("Importing file", () -> Database.importBooks(path, format, mapping, rows -> {
+            AsyncDatabase.checkCancelled();
+            Platform.runLater(() -> statusLabel.setText("Importing file... " + rows + " books"));
+        }), report -> {
+            log("Imported " + report.rows() + " books from file: " + path + " in " + report.elapsedMillis()
+                    + " ms, " + report.rejectCount() + " lines rejected.");
+            for (ImportReport.Reject reject : report.rejects()) {
+                log("  line " + reject.line() + ": " + reject.reason());
             }
+            viewAllBooks();
+        }, error -> log("Error importing the file : " + path + " " + error.getMessage()));
+    }
 
-        } catch (SQLException e) {
-            log("Error fetching books: " + e.getMessage());
-            e.printStackTrace();
+    /**
+     * Asks the user how the fields of a file map onto the columns.
+     * @return The mapping, the default one if left blank, or null if the user cancelled or the mapping is invalid.
+     */
+    private ColumnMapping askColumnMapping() {
+        TextInputDialog dialog = new TextInputDialog();
+        dialog.setTitle("Column mapping");
+        dialog.setHeaderText("Map the fields of the file onto the columns, e.g. book_id=ID, name=TITLE.\n"
+                + "Leave blank if the fields are named after the columns.");
+        dialog.getDialogPane().getStylesheets().setAll(scene.getStylesheets());
+        Optional<String> specification = dialog.showAndWait();
+        if (specification.isEmpty()) {
+            return null;
         }
+        try {
+            return ColumnMapping.parse(specification.get());
+        } catch (IllegalArgumentException e) {
+            log("Invalid column mapping: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Exports the database contents to a CSV or JSON Lines file.
+     * @param primaryStage The primary stage of the application.
+     */
+    private void exportFile(Stage primaryStage) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Books");
+        FileChooser.ExtensionFilter csvFilter = new FileChooser.ExtensionFilter("CSV", "*.csv", "*.csv.gz");
+        fileChooser.getExtensionFilters().addAll(csvFilter,
+                new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl", "*.jsonl.gz", "*.ndjson", "*.ndjson.gz"));
+        File selectedFile = fileChooser.showSaveDialog(primaryStage);
+        if (selectedFile == null) {
+            return;
+        }
+        String path = selectedFile.getAbsolutePath();
+        BookFileFormat format = BookFileFormat.forFile(path);
+        if (format == null) {
+            format = fileChooser.getSelectedExtensionFilter() == csvFilter ? BookFileFormat.CSV
+                    : BookFileFormat.JSON_LINES;
+        }
+
+        BookFileFormat selectedFormat = format;
+        runInBackground("Exporting books", () -> Database.exportBooks(path, selectedFormat,
+                ColumnMapping.defaults(), rows -> {
+                    AsyncDatabase.checkCancelled();
+                    Platform.runLater(() -> statusLabel.setText("Exporting books... " + rows + " books"));
+                }), rows -> log("Exported " + rows + " books to file: " + path),
+                error -> log("Error exporting the books to the file : " + path + " " + error.getMessage()));
+    }
+
+    /**
+     * Rewrites the file last loaded or saved with the whole database, merging its delta files into it.
+     */
+    private void compactChanges() {
+        runInBackground("Merging saved changes", Database::compactChanges,
+                rows -> log("Saved changes merged, " + Database.getSaveBase() + " now holds " + rows + " books."),
+                error -> log("Error merging the saved changes: " + error.getMessage()));
+    }
+
+    /**
+     * Compacts the file store of the database.
+     */
+    private void compactStorage() {
+        runInBackground("Compacting storage", Database::compactDatabase,
+                size -> log("Storage compacted, the store file now takes " + size + " bytes."),
+                error -> log("Error compacting the storage: " + error.getMessage()));
+    }
+
+    /**
+     * Logs the size and throughput of a data load.
+     * @param report The report of the load.
+     */
+    private void logLoadReport(LoadReport report) {
+        log("Loaded " + report.rows() + " books in " + report.elapsedMillis() + " ms ("
+                + report.rowsPerSecond() + " books/s).");
+    }
+
+    /**
+     * Reloads the table of books from its first page.
+     */
+    private void viewAllBooks() {
+        bookTable.reload().whenCompleteAsync((page, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                log("Error fetching books: " + cause.getMessage());
+                cause.printStackTrace();
+            }
+        }, Platform::runLater);
     }
 
     /**
@@ -266,12 +488,8 @@ public class Main extends Application {
     private void executeQuery() {
         String query = queryTextField.getText().trim();
         if (!query.isEmpty()) {
-            try {
-                log(Database.executeQuery(query));
-            } catch (SQLException e) {
-                log("Error executing query: " + e.getMessage());
-                e.printStackTrace();
-            }
+            runInBackground("Executing query", () -> Database.executeQuery(query), this::log,
+                    error -> log("Error executing query: " + error.getMessage()));
         } else {
             log("Please enter an SQL query.");
         }
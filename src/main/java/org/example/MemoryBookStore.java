@@ -0,0 +1,607 @@
+package org.example;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Storage engine keeping the books in memory in a columnar layout, without JDBC or SQL.
+ *
+ * Each book lives in a slot of parallel arrays: the IDs and years in int arrays, the authors and
+ * publishers as int codes of a dictionary holding each distinct name once, the titles as strings and
+ * the synopses in a {@link TextArena} outside the heap. The ID is looked up in an {@link IntIntHashMap},
+ * and the year, author, publisher and title hash in {@link IntMultiIndex} indexes, so that a lookup
+ * costs the same whatever the size of the table. Pages ordered by ID are read from a sorted array of
+ * the IDs, updated in place by single changes and sorted again after bulk loads.
+ *
+ * Reads run concurrently under a read lock, changes under a write lock. Deleted slots are reused by the
+ * next books added, and names stay in the dictionary once added.
+ */
+class MemoryBookStore implements BookStore {
+    private static final int PAGE_SIZE = 1_024;
+    private static final int INITIAL_SLOTS = 1_024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int[] ids = new int[INITIAL_SLOTS];
+    private int[] years = new int[INITIAL_SLOTS];
+    private int[] authors = new int[INITIAL_SLOTS];
+    private int[] publishers = new int[INITIAL_SLOTS];
+    // A null title marks a free slot, as every book has a title
+    private String[] titles = new String[INITIAL_SLOTS];
+    private long[] synopses = new long[INITIAL_SLOTS];
+    private int slots;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    private final Map<String, Integer> nameCodes = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private TextArena synopsisArena = new TextArena();
+
+    private final IntIntHashMap idIndex = new IntIntHashMap(INITIAL_SLOTS);
+    private final IntMultiIndex yearIndex = new IntMultiIndex(INITIAL_SLOTS, 256);
+    private final IntMultiIndex authorIndex = new IntMultiIndex(INITIAL_SLOTS, INITIAL_SLOTS);
+    private final IntMultiIndex publisherIndex = new IntMultiIndex(INITIAL_SLOTS, INITIAL_SLOTS);
+    private final IntMultiIndex titleIndex = new IntMultiIndex(INITIAL_SLOTS, INITIAL_SLOTS);
+
+    private int[] orderedIds = new int[INITIAL_SLOTS];
+    private int orderedCount;
+    private boolean orderStale;
+
+    @Override
+    public void insert(Book book) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            checkInsert(book);
+            add(book);
+            insertOrdered(book.id());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the books chunk by chunk, each chunk under one write lock. The IDs are appended to the
+     * sorted array and sorted again before the next page is read, unless they keep ascending.
+     */
+    @Override
+    public long insertAll(Iterable<Book> books, int chunkSize, Consumer<List<Book>> committed) throws SQLException {
+        long total = 0;
+        List<Book> chunk = new ArrayList<>(Math.min(chunkSize, 10_000));
+        for (Book book : books) {
+            chunk.add(book);
+            if (chunk.size() == chunkSize) {
+                total += insertChunk(chunk, committed);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            total += insertChunk(chunk, committed);
+        }
+        return total;
+    }
+
+    /**
+     * Adds a chunk of books, removing the ones already added if one of them fails.
+     *
+     * @param chunk the books to add, emptied once added
+     * @return the number of books of the chunk
+     */
+    private int insertChunk(List<Book> chunk, Consumer<List<Book>> committed) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    checkInsert(chunk.get(i));
+                    add(chunk.get(i));
+                } catch (SQLException e) {
+                    for (int added = 0; added < i; added++) {
+                        remove(idIndex.get(chunk.get(added).id()));
+                    }
+                    throw e;
+                }
+            }
+            for (Book book : chunk) {
+                appendOrdered(book.id());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        int rows = chunk.size();
+        committed.accept(chunk);
+        chunk.clear();
+        return rows;
+    }
+
+    @Override
+    public Book update(Book book) throws SQLException {
+        checkFields(book);
+        lock.writeLock().lock();
+        try {
+            int slot = idIndex.get(book.id());
+            if (slot == IntIntHashMap.MISSING) {
+                return null;
+            }
+            Book oldBook = read(slot);
+            long synopsis = addSynopsis(book.synopsis());
+            if (book.year() != years[slot]) {
+                yearIndex.remove(years[slot], slot);
+                years[slot] = book.year();
+                yearIndex.add(years[slot], slot);
+            }
+            int author = code(book.author());
+            if (author != authors[slot]) {
+                authorIndex.remove(authors[slot], slot);
+                authors[slot] = author;
+                authorIndex.add(author, slot);
+            }
+            int publisher = code(book.publisher());
+            if (publisher != publishers[slot]) {
+                publisherIndex.remove(publishers[slot], slot);
+                publishers[slot] = publisher;
+                publisherIndex.add(publisher, slot);
+            }
+            if (!book.title().equals(titles[slot])) {
+                titleIndex.remove(titles[slot].hashCode(), slot);
+                titles[slot] = book.title();
+                titleIndex.add(book.title().hashCode(), slot);
+            }
+            synopsisArena.free(synopses[slot]);
+            synopses[slot] = synopsis;
+            compactIfNeeded();
+            return oldBook;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Book delete(int id) {
+        lock.writeLock().lock();
+        try {
+            int slot = idIndex.get(id);
+            if (slot == IntIntHashMap.MISSING) {
+                return null;
+            }
+            Book deleted = read(slot);
+            remove(slot);
+            if (!orderStale) {
+                int position = Arrays.binarySearch(orderedIds, 0, orderedCount, id);
+                System.arraycopy(orderedIds, position + 1, orderedIds, position, --orderedCount - position);
+            }
+            compactIfNeeded();
+            return deleted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Book get(int id) {
+        lock.readLock().lock();
+        try {
+            int slot = idIndex.get(id);
+            return slot == IntIntHashMap.MISSING ? null : read(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Book> getAll(List<Integer> ids) {
+        List<Book> books = new ArrayList<>(ids.size());
+        lock.readLock().lock();
+        try {
+            for (Integer id : ids) {
+                int slot = idIndex.get(id);
+                if (slot != IntIntHashMap.MISSING) {
+                    books.add(read(slot));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return books;
+    }
+
+    @Override
+    public List<Book> find(BookColumn column, Object value) {
+        List<Book> books = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            forEachSlot(column, value, slot -> books.add(read(slot)));
+        } finally {
+            lock.readLock().unlock();
+        }
+        books.sort(Comparator.comparingInt(Book::id));
+        return books;
+    }
+
+    /**
+     * Evaluates the query on the books read without their synopsis, unless the query needs it, then reads
+     * the synopses of the books returned. When the filter requires an equality on an indexed column, only
+     * the books of the index entry are tested; otherwise every book is. An unordered query stops at its
+     * limit.
+     */
+    @Override
+    public List<Book> query(BookQuery query) {
+        boolean withSynopsis = query.uses(BookColumn.SYNOPSIS);
+        Comparator<Book> order = query.comparator();
+        int limit = order == null && query.limit() > 0 ? query.limit() : Integer.MAX_VALUE;
+        List<Book> books = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            IntConsumer test = slot -> {
+                if (books.size() < limit) {
+                    Book book = read(slot, withSynopsis);
+                    if (query.test(book)) {
+                        books.add(book);
+                    }
+                }
+            };
+            BookFilter.Comparison equality = query.filter() == null ? null : query.filter().requiredEquality();
+            if (equality != null && equality.column() != BookColumn.SYNOPSIS) {
+                forEachSlot(equality.column(), equality.value(), test);
+            } else {
+                for (int slot = 0; slot < slots && books.size() < limit; slot++) {
+                    if (titles[slot] != null) {
+                        test.accept(slot);
+                    }
+                }
+            }
+            if (order != null) {
+                books.sort(order);
+            }
+            if (query.limit() > 0 && books.size() > query.limit()) {
+                books.subList(query.limit(), books.size()).clear();
+            }
+            boolean readSynopsis = !withSynopsis && query.columns().contains(BookColumn.SYNOPSIS);
+            for (int i = 0; i < books.size(); i++) {
+                Book book = readSynopsis ? read(idIndex.get(books.get(i).id()), true) : books.get(i);
+                books.set(i, query.project(book));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return books;
+    }
+
+    /**
+     * Calls an action with the slot of each book whose column is equal to a value, from the indexes.
+     * Must be called under the read lock.
+     */
+    private void forEachSlot(BookColumn column, Object value, IntConsumer action) {
+        switch (column) {
+            case ID -> {
+                int slot = idIndex.get((Integer) value);
+                if (slot != IntIntHashMap.MISSING) {
+                    action.accept(slot);
+                }
+            }
+            case TITLE -> titleIndex.forEach(value.hashCode(), slot -> {
+                if (titles[slot].equals(value)) {
+                    action.accept(slot);
+                }
+            });
+            case AUTHOR -> {
+                Integer code = nameCodes.get((String) value);
+                if (code != null) {
+                    authorIndex.forEach(code, action);
+                }
+            }
+            case PUBLISHER -> {
+                Integer code = nameCodes.get((String) value);
+                if (code != null) {
+                    publisherIndex.forEach(code, action);
+                }
+            }
+            case YEAR -> yearIndex.forEach((Integer) value, action);
+            default -> throw new IllegalArgumentException("No lookup on " + column.columnName());
+        }
+    }
+
+    @Override
+    public List<Book> list(Integer afterId, int limit) {
+        while (true) {
+            if (orderStale) {
+                sortIds();
+            }
+            lock.readLock().lock();
+            try {
+                // A bulk insert may have run between the sort and the read lock
+                if (orderStale) {
+                    continue;
+                }
+                int from = 0;
+                if (afterId != null) {
+                    int position = Arrays.binarySearch(orderedIds, 0, orderedCount, afterId);
+                    from = position >= 0 ? position + 1 : -position - 1;
+                }
+                int to = (int) Math.min(orderedCount, (long) from + limit);
+                List<Book> books = new ArrayList<>(Math.max(0, to - from));
+                for (int i = from; i < to; i++) {
+                    books.add(read(idIndex.get(orderedIds[i])));
+                }
+                return books;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public List<Book> listBefore(int beforeId, int limit) {
+        while (true) {
+            if (orderStale) {
+                sortIds();
+            }
+            lock.readLock().lock();
+            try {
+                if (orderStale) {
+                    continue;
+                }
+                int position = Arrays.binarySearch(orderedIds, 0, orderedCount, beforeId);
+                int to = position >= 0 ? position : -position - 1;
+                int from = Math.max(0, to - limit);
+                List<Book> books = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    books.add(read(idIndex.get(orderedIds[i])));
+                }
+                return books;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Streams the books page by page, ordered by ID. No lock is held between pages, so the stream sees
+     * the changes made while it is consumed after the current page, like an iterator of a concurrent
+     * collection.
+     */
+    @Override
+    public Stream<Book> stream() {
+        Iterator<Book> pages = new Iterator<>() {
+            private List<Book> page = list(null, PAGE_SIZE);
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == page.size() && page.size() == PAGE_SIZE) {
+                    page = list(page.get(PAGE_SIZE - 1).id(), PAGE_SIZE);
+                    next = 0;
+                }
+                return next < page.size();
+            }
+
+            @Override
+            public Book next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(next++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Retrieves the number of books.
+     *
+     * @return the number of books in the store
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return idIndex.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the direct memory held by the synopses, outside the heap.
+     *
+     * @return the size of the arena, in bytes
+     */
+    long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return synopsisArena.allocatedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void checkInsert(Book book) throws SQLException {
+        checkFields(book);
+        if (idIndex.get(book.id()) != IntIntHashMap.MISSING) {
+            throw new SQLIntegrityConstraintViolationException("Duplicate book ID: " + book.id());
+        }
+    }
+
+    private static void checkFields(Book book) throws SQLException {
+        if (book.title() == null || book.author() == null || book.publisher() == null) {
+            throw new SQLIntegrityConstraintViolationException(
+                    "The title, author and publisher of book " + book.id() + " are required");
+        }
+    }
+
+    /**
+     * Writes a book to a free slot and indexes it. The ID must not be in the store.
+     */
+    private void add(Book book) throws SQLException {
+        long synopsis = addSynopsis(book.synopsis());
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slots == ids.length) {
+                grow();
+            }
+            slot = slots++;
+        }
+        ids[slot] = book.id();
+        years[slot] = book.year();
+        authors[slot] = code(book.author());
+        publishers[slot] = code(book.publisher());
+        titles[slot] = book.title();
+        synopses[slot] = synopsis;
+
+        idIndex.put(book.id(), slot);
+        yearIndex.add(years[slot], slot);
+        authorIndex.add(authors[slot], slot);
+        publisherIndex.add(publishers[slot], slot);
+        titleIndex.add(book.title().hashCode(), slot);
+    }
+
+    /**
+     * Unindexes the book of a slot and frees the slot. The sorted IDs are left to the caller.
+     */
+    private void remove(int slot) {
+        idIndex.remove(ids[slot]);
+        yearIndex.remove(years[slot], slot);
+        authorIndex.remove(authors[slot], slot);
+        publisherIndex.remove(publishers[slot], slot);
+        titleIndex.remove(titles[slot].hashCode(), slot);
+        synopsisArena.free(synopses[slot]);
+        titles[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private Book read(int slot) {
+        return read(slot, true);
+    }
+
+    /**
+     * Reads the book of a slot, with a null synopsis unless asked for, as decoding it costs more than
+     * reading the other fields.
+     */
+    private Book read(int slot, boolean withSynopsis) {
+        return new Book(ids[slot], titles[slot], names.get(authors[slot]), names.get(publishers[slot]),
+                years[slot], withSynopsis ? synopsisArena.get(synopses[slot]) : null);
+    }
+
+    /**
+     * Retrieves the dictionary code of a name, adding the name if it is new.
+     */
+    private int code(String name) {
+        Integer code = nameCodes.get(name);
+        if (code == null) {
+            code = names.size();
+            names.add(name);
+            nameCodes.put(name, code);
+        }
+        return code;
+    }
+
+    private long addSynopsis(String synopsis) throws SQLException {
+        try {
+            return synopsisArena.add(synopsis);
+        } catch (IllegalArgumentException e) {
+            throw new SQLException("Synopsis too long to be stored", e);
+        }
+    }
+
+    /**
+     * Inserts a single ID into the sorted IDs, shifting the greater ones.
+     */
+    private void insertOrdered(int id) {
+        if (orderStale) {
+            return;
+        }
+        ensureOrderedCapacity(orderedCount + 1);
+        int position = -Arrays.binarySearch(orderedIds, 0, orderedCount, id) - 1;
+        System.arraycopy(orderedIds, position, orderedIds, position + 1, orderedCount - position);
+        orderedIds[position] = id;
+        orderedCount++;
+    }
+
+    /**
+     * Appends an ID of a bulk insert to the sorted IDs, marking them for sorting if it is out of order.
+     */
+    private void appendOrdered(int id) {
+        if (orderStale) {
+            return;
+        }
+        if (orderedCount > 0 && orderedIds[orderedCount - 1] > id) {
+            orderStale = true;
+            return;
+        }
+        ensureOrderedCapacity(orderedCount + 1);
+        orderedIds[orderedCount++] = id;
+    }
+
+    /**
+     * Rebuilds the sorted IDs from the live slots.
+     */
+    private void sortIds() {
+        lock.writeLock().lock();
+        try {
+            if (!orderStale) {
+                return;
+            }
+            int count = 0;
+            ensureOrderedCapacity(idIndex.size());
+            for (int slot = 0; slot < slots; slot++) {
+                if (titles[slot] != null) {
+                    orderedIds[count++] = ids[slot];
+                }
+            }
+            Arrays.sort(orderedIds, 0, count);
+            orderedCount = count;
+            orderStale = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureOrderedCapacity(int count) {
+        if (count > orderedIds.length) {
+            orderedIds = Arrays.copyOf(orderedIds, Math.max(count, orderedIds.length + (orderedIds.length >> 1)));
+        }
+    }
+
+    /**
+     * Copies the live synopses to a new arena once most of the current one is garbage.
+     */
+    private void compactIfNeeded() {
+        if (!synopsisArena.needsCompaction()) {
+            return;
+        }
+        TextArena compacted = new TextArena();
+        for (int slot = 0; slot < slots; slot++) {
+            if (titles[slot] != null) {
+                synopses[slot] = synopsisArena.compactInto(compacted, synopses[slot]);
+            }
+        }
+        synopsisArena = compacted;
+    }
+
+    private void grow() {
+        int capacity = ids.length + (ids.length >> 1);
+        ids = Arrays.copyOf(ids, capacity);
+        years = Arrays.copyOf(years, capacity);
+        authors = Arrays.copyOf(authors, capacity);
+        publishers = Arrays.copyOf(publishers, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        synopses = Arrays.copyOf(synopses, capacity);
+    }
+}
@@ -0,0 +1,83 @@
+package org.example;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Statistics of one {@link Database} operation since the application started or the metrics were reset.
+ * The getters make it usable as an open type by the {@link DatabaseStatsMXBean}.
+ */
+public final class OperationStats {
+    private final String operation;
+    private final long count;
+    private final long errors;
+    private final long p50Micros;
+    private final long p99Micros;
+    private final long p999Micros;
+    private final long maxMicros;
+    private final double meanRows;
+    private final long maxRows;
+
+    /**
+     * Creates the statistics of an operation.
+     *
+     * @param operation  the name of the operation
+     * @param count      the number of calls
+     * @param errors     the number of calls that threw an exception
+     * @param p50Micros  the median latency, in microseconds
+     * @param p99Micros  the 99th percentile of the latency, in microseconds
+     * @param p999Micros the 99.9th percentile of the latency, in microseconds
+     * @param maxMicros  the highest latency, in microseconds
+     * @param meanRows   the mean number of rows read or written per successful call
+     * @param maxRows    the highest number of rows of a call
+     */
+    @ConstructorProperties({"operation", "count", "errors", "p50Micros", "p99Micros", "p999Micros", "maxMicros",
+            "meanRows", "maxRows"})
+    public OperationStats(String operation, long count, long errors, long p50Micros, long p99Micros,
+                          long p999Micros, long maxMicros, double meanRows, long maxRows) {
+        this.operation = operation;
+        this.count = count;
+        this.errors = errors;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+        this.meanRows = meanRows;
+        this.maxRows = maxRows;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public double getMeanRows() {
+        return meanRows;
+    }
+
+    public long getMaxRows() {
+        return maxRows;
+    }
+}
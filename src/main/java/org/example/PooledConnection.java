@@ -0,0 +1,140 @@
+package org.example;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Connection borrowed from a {@link ConnectionPool}.
+ * Closing it gives the underlying JDBC connection back to the pool instead of closing it.
+ */
+public class PooledConnection implements AutoCloseable {
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final StatementCache statements;
+    private final StatementCache adHocStatements;
+    private volatile long lastUsed = System.currentTimeMillis();
+    // Set by the borrowing thread and read by the closing one, which may differ: guarded by this
+    private boolean borrowed;
+    private Runnable releaseHook;
+
+    PooledConnection(ConnectionPool pool, Connection connection, int statementCacheSize, int adHocCacheSize,
+                     StatementCache.Counters counters) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statements = new StatementCache(connection, statementCacheSize, counters);
+        this.adHocStatements = new StatementCache(connection, adHocCacheSize, counters);
+    }
+
+    /**
+     * Retrieves the underlying JDBC connection. It must not be closed directly.
+     *
+     * @return the physical connection
+     */
+    public Connection connection() {
+        return connection;
+    }
+
+    /**
+     * Retrieves a prepared statement for constant SQL from the statement cache of this connection.
+     * The statement stays open in the cache and must not be closed by the caller.
+     *
+     * @param sql the SQL text of the statement
+     * @return a cached prepared statement
+     * @throws SQLException If there is an issue with preparing the statement.
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        return statements.get(sql);
+    }
+
+    /**
+     * Retrieves a prepared statement for SQL typed by the user. These statements go in a smaller
+     * cache of their own, so that one-off queries neither grow memory nor evict the common statements.
+     *
+     * @param sql the SQL text of the statement
+     * @return a cached prepared statement, which must not be closed by the caller
+     * @throws SQLException If there is an issue with preparing the statement.
+     */
+    public PreparedStatement prepareAdHoc(String sql) throws SQLException {
+        return adHocStatements.get(sql);
+    }
+
+    /**
+     * Creates a prepared statement on the underlying connection, bypassing the statement cache.
+     *
+     * @param sql the SQL text of the statement
+     * @return a new prepared statement, to be closed by the caller
+     * @throws SQLException If there is an issue with preparing the statement.
+     */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return connection.prepareStatement(sql);
+    }
+
+    /**
+     * Creates a plain statement on the underlying connection.
+     *
+     * @return a new statement, to be closed by the caller
+     * @throws SQLException If there is an issue with creating the statement.
+     */
+    public Statement createStatement() throws SQLException {
+        return connection.createStatement();
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    synchronized void markBorrowed() {
+        borrowed = true;
+    }
+
+    /**
+     * Sets an action to run when this borrow of the connection ends, after the connection is given back.
+     *
+     * @param hook the action, run once
+     */
+    synchronized void onRelease(Runnable hook) {
+        this.releaseHook = hook;
+    }
+
+    void markIdle() {
+        lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * Closes the physical connection, used when the pool drops it.
+     */
+    void closePhysical() {
+        statements.clear();
+        adHocStatements.clear();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Gives the connection back to its pool. Closing it twice has no effect.
+     */
+    @Override
+    public void close() {
+        Runnable hook;
+        synchronized (this) {
+            if (!borrowed) {
+                return;
+            }
+            borrowed = false;
+            hook = releaseHook;
+            releaseHook = null;
+        }
+        try {
+            pool.release(this);
+        } finally {
+            if (hook != null) {
+                hook.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.example;
+
+/**
+ * Callback notified while a long database operation makes progress.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * Called each time a chunk of rows has been processed.
+     *
+     * @param rows total number of rows processed so far
+     */
+    void onProgress(long rows);
+}
@@ -0,0 +1,12 @@
+package org.example;
+
+/**
+ * Thrown when a record of an interchange file cannot be imported. The message gives the reason.
+ */
+class RejectedRecordException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    RejectedRecordException(String reason) {
+        super(reason);
+    }
+}
@@ -0,0 +1,148 @@
+package org.example;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reader/writer coordination between the database calls and the operations replacing the database,
+ * such as a reload.
+ *
+ * Each borrowed connection holds a shared lease; a reload takes the exclusive lock, which waits for the
+ * leases in flight to be released and holds new ones back until the reload ends. Unlike a
+ * {@link java.util.concurrent.locks.ReentrantReadWriteLock}, a lease can be released by another thread
+ * than the one that took it, as a stream of books may be closed wherever it is consumed. A thread
+ * already holding a lease, or the exclusive lock, gets new leases without waiting, so nested calls
+ * cannot deadlock with a waiting reload.
+ */
+class ReloadLock {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<Thread, Integer> holds = new HashMap<>();
+    private int leases;
+    private int waitingWriters;
+    private Thread writer;
+
+    /**
+     * Takes a shared lease, waiting while a reload runs or waits.
+     *
+     * @return the lease, to release exactly once, from any thread
+     * @throws SQLException If the thread is interrupted while waiting.
+     */
+    Lease acquireShared() throws SQLException {
+        Thread current = Thread.currentThread();
+        lock.lock();
+        try {
+            int held = holds.getOrDefault(current, 0);
+            if (held == 0 && writer != current) {
+                while (writer != null || waitingWriters > 0) {
+                    try {
+                        changed.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for the database to reload", e);
+                    }
+                }
+            }
+            holds.put(current, held + 1);
+            leases++;
+            return new Lease(current);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the exclusive lock once the leases in flight are released. New leases wait from now on.
+     *
+     * @param timeoutMillis the maximum time to wait for the leases in flight
+     * @throws SQLException          If the leases are not released in time, or the thread is interrupted.
+     * @throws IllegalStateException If the thread holds a lease, which would never be released.
+     */
+    void acquireExclusive(long timeoutMillis) throws SQLException {
+        Thread current = Thread.currentThread();
+        lock.lock();
+        try {
+            if (holds.containsKey(current) || writer == current) {
+                throw new IllegalStateException("The database cannot be replaced while this thread uses it");
+            }
+            waitingWriters++;
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+                while (writer != null || leases > 0) {
+                    if (remaining <= 0) {
+                        throw new SQLException("Timed out after " + timeoutMillis + " ms waiting for "
+                                + leases + " database calls to finish");
+                    }
+                    remaining = changed.awaitNanos(remaining);
+                }
+                writer = current;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for the database calls to finish", e);
+            } finally {
+                waitingWriters--;
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the exclusive lock taken by this thread.
+     */
+    void releaseExclusive() {
+        lock.lock();
+        try {
+            if (writer != Thread.currentThread()) {
+                throw new IllegalMonitorStateException("The exclusive lock is not held by this thread");
+            }
+            writer = null;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Thread owner) {
+        lock.lock();
+        try {
+            holds.computeIfPresent(owner, (thread, held) -> held == 1 ? null : held - 1);
+            if (--leases == 0) {
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Shared lease on the database, taken by {@link #acquireShared()}.
+     */
+    final class Lease implements AutoCloseable {
+        private final Thread owner;
+        private boolean released;
+
+        private Lease(Thread owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * Releases the lease. Releasing it again has no effect.
+         */
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            release(owner);
+        }
+    }
+}
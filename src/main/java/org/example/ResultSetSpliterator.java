@@ -0,0 +1,76 @@
+package org.example;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator reading books one row at a time from an open result set.
+ *
+ * It owns the result set and the pooled connection it was read from: both are released as soon as the
+ * last row has been read, or when {@link #close()} is called if the consumer stops early.
+ */
+class ResultSetSpliterator extends Spliterators.AbstractSpliterator<Book> implements AutoCloseable {
+    private final PooledConnection connection;
+    private final ResultSet rs;
+    private final BookRowMapper mapper;
+    private boolean closed;
+
+    /**
+     * Creates a spliterator over the rows of a result set.
+     *
+     * @param connection the connection the result set was read from, given back to the pool on close
+     * @param rs         the result set to read
+     * @param columns    the columns of the BOOKS table to read, see {@link BookRowMapper#BookRowMapper(ResultSet, Set)}
+     * @throws SQLException If the result set does not have these columns.
+     */
+    ResultSetSpliterator(PooledConnection connection, ResultSet rs, Set<BookColumn> columns) throws SQLException {
+        super(Long.MAX_VALUE, ORDERED | NONNULL | IMMUTABLE);
+        this.connection = connection;
+        this.rs = rs;
+        try {
+            this.mapper = new BookRowMapper(rs, columns);
+        } catch (SQLException e) {
+            rs.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Book> action) {
+        if (closed) {
+            return false;
+        }
+        try {
+            if (!rs.next()) {
+                close();
+                return false;
+            }
+            action.accept(mapper.map(rs));
+            return true;
+        } catch (SQLException e) {
+            close();
+            throw new UncheckedSQLException(e);
+        }
+    }
+
+    /**
+     * Closes the result set and gives the connection back to the pool. Closing it twice has no effect.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            rs.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            connection.close();
+        }
+    }
+}
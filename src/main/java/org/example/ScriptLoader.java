@@ -0,0 +1,381 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Loads a data file into the database with batched inserts.
+ *
+ * A {@link BookSnapshot} is decoded and inserted directly. A SQL script is read and split into
+ * statements incrementally; its INSERT statements into BOOKS are parsed into books, on worker threads
+ * when more than one thread is configured, and the other statements are run as they are, in script
+ * order. The books are sent to the database in JDBC batches committed every chunk.
+ *
+ * A {@link BookStore} without SQL, such as the {@link MemoryBookStore}, is loaded the same way with
+ * {@link BookStore#insertAll}. Of the other statements, it only runs the DELETE statements of the deltas
+ * and skips the CREATE statements of the schema, which it does not need.
+ */
+class ScriptLoader {
+    private static final int STATEMENTS_PER_TASK = 64;
+
+    private final int threads;
+    private final int chunkSize;
+    private final ProgressListener listener;
+
+    private Target target;
+    private int batchedRows;
+    private long rows;
+
+    /**
+     * Creates a loader.
+     *
+     * @param threads   number of threads parsing the statements, 1 to parse on the loading thread
+     * @param chunkSize number of rows sent and committed together
+     * @param listener  notified after each committed chunk with the number of rows loaded so far, may be null
+     */
+    ScriptLoader(int threads, int chunkSize, ProgressListener listener) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+        this.threads = Math.max(1, threads);
+        this.chunkSize = chunkSize;
+        this.listener = listener;
+    }
+
+    /**
+     * Loads a data file: a {@link BookSnapshot}, recognised from its first bytes, or a SQL script, gzip
+     * compressed if its name ends with ".gz". If a statement fails, the current chunk is rolled back;
+     * the chunks committed before it stay in the database.
+     *
+     * @param conn   the connection to load the file with
+     * @param script the path of the file
+     * @return the number of rows and statements loaded
+     * @throws SQLException If a statement of the script fails.
+     * @throws IOException  If the file cannot be read, or is a corrupted snapshot.
+     */
+    LoadReport load(PooledConnection conn, Path script) throws SQLException, IOException {
+        return load(new JdbcTarget(conn), script);
+    }
+
+    /**
+     * Loads a data file into a storage engine without SQL. If a statement fails, the current chunk is
+     * discarded; the chunks added before it stay in the store.
+     *
+     * @param store  the store to load the file into
+     * @param script the path of the file
+     * @return the number of rows and statements loaded
+     * @throws SQLException If a statement of the script is not supported by the store, or fails.
+     * @throws IOException  If the file cannot be read, or is a corrupted snapshot.
+     */
+    LoadReport load(BookStore store, Path script) throws SQLException, IOException {
+        return load(new StoreTarget(store), script);
+    }
+
+    private LoadReport load(Target loadTarget, Path script) throws SQLException, IOException {
+        long start = System.nanoTime();
+        target = loadTarget;
+        target.begin();
+        try {
+            long statements = BookSnapshot.isSnapshot(script) ? loadSnapshot(script) : loadScript(script);
+            commit();
+            return new LoadReport(rows, statements, (System.nanoTime() - start) / 1_000_000);
+        } catch (SQLException | IOException | RuntimeException e) {
+            target.rollback();
+            throw e;
+        } finally {
+            target.end();
+        }
+    }
+
+    /**
+     * Inserts the books of a snapshot. Decoding is cheap enough to stay on the loading thread.
+     *
+     * @return 0, a snapshot has no statements
+     */
+    private long loadSnapshot(Path snapshot) throws SQLException, IOException {
+        BookSnapshot.Reader reader = BookSnapshot.read(snapshot);
+        while (reader.hasNext()) {
+            insert(reader.next());
+        }
+        return 0;
+    }
+
+    /**
+     * Runs the statements of a SQL script, parsing groups of statements on the worker threads.
+     *
+     * @return the number of statements of the script
+     */
+    private long loadScript(Path script) throws SQLException, IOException {
+        long statements = 0;
+        ExecutorService workers = threads > 1 ? Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "script-loader");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+
+        try (SqlStatementReader reader = open(script)) {
+            ArrayDeque<Future<List<Object>>> pending = new ArrayDeque<>();
+            List<String> group = new ArrayList<>(STATEMENTS_PER_TASK);
+            String statement;
+            while ((statement = reader.next()) != null) {
+                statements++;
+                group.add(statement);
+                if (group.size() == STATEMENTS_PER_TASK) {
+                    if (workers == null) {
+                        apply(parse(group));
+                    } else {
+                        List<String> task = group;
+                        pending.add(workers.submit(() -> parse(task)));
+                        while (pending.size() > threads * 2) {
+                            apply(await(pending.poll()));
+                        }
+                    }
+                    group = new ArrayList<>(STATEMENTS_PER_TASK);
+                }
+            }
+            while (!pending.isEmpty()) {
+                apply(await(pending.poll()));
+            }
+            apply(parse(group));
+        } finally {
+            if (workers != null) {
+                workers.shutdownNow();
+            }
+        }
+        return statements;
+    }
+
+    private static SqlStatementReader open(Path script) throws IOException {
+        InputStream in = Files.newInputStream(script);
+        if (Database.isCompressed(script.toString())) {
+            try {
+                in = new GZIPInputStream(in, 1 << 16);
+            } catch (IOException e) {
+                // A bad gzip header must not leak the file
+                in.close();
+                throw e;
+            }
+        }
+        return new SqlStatementReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a group of statements: each one becomes the list of its books, or stays a String when it
+     * is not an INSERT the parser recognises.
+     */
+    private static List<Object> parse(List<String> statements) {
+        List<Object> parsed = new ArrayList<>(statements.size());
+        for (String statement : statements) {
+            List<Book> books = InsertParser.parse(statement);
+            parsed.add(books == null ? statement : books);
+        }
+        return parsed;
+    }
+
+    private static List<Object> await(Future<List<Object>> task) throws SQLException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while loading the script", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new SQLException("Failed to parse the script", e.getCause());
+        }
+    }
+
+    /**
+     * Sends the parsed statements to the database, in script order.
+     */
+    @SuppressWarnings("unchecked")
+    private void apply(List<Object> parsed) throws SQLException {
+        for (Object statement : parsed) {
+            if (statement instanceof String sql) {
+                commit();
+                target.execute(sql);
+                continue;
+            }
+            for (Book book : (List<Book>) statement) {
+                insert(book);
+            }
+        }
+    }
+
+    /**
+     * Adds a book to the pending batch, sending the batch when the chunk is full.
+     */
+    private void insert(Book book) throws SQLException {
+        target.add(book);
+        if (++batchedRows == chunkSize) {
+            commit();
+        }
+    }
+
+    /**
+     * Sends and commits the pending batch, if any.
+     */
+    private void commit() throws SQLException {
+        if (batchedRows == 0) {
+            return;
+        }
+        target.commit();
+        rows += batchedRows;
+        batchedRows = 0;
+        if (listener != null) {
+            listener.onProgress(rows);
+        }
+    }
+
+    /**
+     * Receives the books and the other statements of the loaded file.
+     */
+    private interface Target {
+        void begin() throws SQLException;
+
+        /**
+         * Adds a book to the pending chunk.
+         */
+        void add(Book book) throws SQLException;
+
+        /**
+         * Adds the books of the pending chunk for good.
+         */
+        void commit() throws SQLException;
+
+        /**
+         * Runs a statement that is not an INSERT into BOOKS, once the pending chunk is committed.
+         */
+        void execute(String sql) throws SQLException;
+
+        /**
+         * Discards the pending chunk.
+         */
+        void rollback() throws SQLException;
+
+        void end() throws SQLException;
+    }
+
+    /**
+     * Sends the books in JDBC batches, one transaction per chunk.
+     */
+    private static class JdbcTarget implements Target {
+        private final PooledConnection conn;
+        private Connection connection;
+        private PreparedStatement insert;
+
+        JdbcTarget(PooledConnection conn) {
+            this.conn = conn;
+        }
+
+        @Override
+        public void begin() throws SQLException {
+            connection = conn.connection();
+            insert = conn.prepare(Database.INSERT_SQL);
+            connection.setAutoCommit(false);
+        }
+
+        @Override
+        public void add(Book book) throws SQLException {
+            insert.setInt(1, book.id());
+            insert.setString(2, book.title());
+            insert.setString(3, book.author());
+            insert.setString(4, book.publisher());
+            insert.setInt(5, book.year());
+            insert.setString(6, book.synopsis());
+            insert.addBatch();
+        }
+
+        @Override
+        public void commit() throws SQLException {
+            insert.executeBatch();
+            connection.commit();
+        }
+
+        @Override
+        public void execute(String sql) throws SQLException {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute(sql);
+            }
+            connection.commit();
+        }
+
+        @Override
+        public void rollback() throws SQLException {
+            insert.clearBatch();
+            connection.rollback();
+        }
+
+        @Override
+        public void end() throws SQLException {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Adds the books to a {@link BookStore} a chunk at a time.
+     */
+    private static class StoreTarget implements Target {
+        private final BookStore store;
+        private final List<Book> pending = new ArrayList<>();
+
+        StoreTarget(BookStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public void add(Book book) {
+            pending.add(book);
+        }
+
+        @Override
+        public void commit() throws SQLException {
+            store.insertAll(pending, Math.max(1, pending.size()), books -> { });
+            pending.clear();
+        }
+
+        @Override
+        public void execute(String sql) throws SQLException {
+            List<Integer> ids = InsertParser.parseDelete(sql);
+            if (ids != null) {
+                for (int id : ids) {
+                    store.delete(id);
+                }
+            } else if (!sql.stripLeading().regionMatches(true, 0, "CREATE ", 0, 7)) {
+                throw new SQLFeatureNotSupportedException("Statement not supported without SQL: "
+                        + (sql.length() > 200 ? sql.substring(0, 200) + "..." : sql));
+            }
+        }
+
+        @Override
+        public void rollback() {
+            pending.clear();
+        }
+
+        @Override
+        public void end() {
+        }
+    }
+}
@@ -1,92 +1,446 @@
 package org.example;
 
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
-import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
  * A JavaFX stage for executing simple queries on a book database.
- * Allows the user to select a field (Title, Author, Year, Publisher) and enter data to search for in the database.
+ * Allows the user to combine conditions on the fields of the books (Title, Author, Year, ...), all or any
+ * of them having to match, and to choose the order, the number of books and the fields shown.
+ * A condition on "Any field" searches words in the full-text index instead, and cannot be combined.
  * Displays the result of the query when executed.
+ *
+ * The live search field queries while the user types: once typing pauses for
+ * {@code books.search.debounceMillis} (default 150), it shows the titles, authors and publishers starting
+ * with the text, from the completion index, then the books matching it in the full-text index. Each
+ * keystroke cancels the lookup in flight, and the results of a superseded lookup are never shown.
  */
 public class SimpleQuery extends Stage {
+    private static final int SEARCH_LIMIT = 50;
+    private static final long DEBOUNCE_MILLIS = Long.getLong("books.search.debounceMillis", 150);
+    private static final int COMPLETION_LIMIT = 5;
+    private static final int LIVE_RESULT_LIMIT = 20;
+    // Shorter words match too many books for the full-text search to keep up with typing
+    private static final int LIVE_SEARCH_MIN_LENGTH = 3;
+    private static final BookColumn[] COMPLETED_COLUMNS = {BookColumn.TITLE, BookColumn.AUTHOR, BookColumn.PUBLISHER};
+    private static final String ANY_FIELD = "Any field";
+    private static final String MATCHES = "matches words";
+    private static final String BETWEEN = "between";
+    private static final String IN = "in";
+    private static final Map<String, BookColumn> FIELDS = new LinkedHashMap<>();
+    private static final String[] OPERATORS = {"=", "<>", "<", "<=", ">", ">=", BETWEEN, IN};
 
-    private final ComboBox<String> comboBox;
+    static {
+        FIELDS.put("Title", BookColumn.TITLE);
+        FIELDS.put("Author", BookColumn.AUTHOR);
+        FIELDS.put("Year", BookColumn.YEAR);
+        FIELDS.put("Publisher", BookColumn.PUBLISHER);
+        FIELDS.put("ID", BookColumn.ID);
+        FIELDS.put("Synopsis", BookColumn.SYNOPSIS);
+    }
+
+    private final VBox conditionBox = new VBox(5);
+    private final List<Condition> conditions = new ArrayList<>();
+    private final ComboBox<String> matchBox;
+    private final ComboBox<String> orderBox;
+    private final ComboBox<String> directionBox;
+    private final TextField limitField;
+    private final Map<BookColumn, CheckBox> columnBoxes = new LinkedHashMap<>();
+    private final Label errorLabel = new Label();
     private boolean isDone = false;
-    private final TextField textField;
     private String result;
-    private String selectedField;
-    private String data;
+    private String description;
+    private CompletableFuture<String> pendingQuery;
+    private final TextField liveField = new TextField();
+    private final ListView<LiveItem> liveResults = new ListView<>();
+    private final PauseTransition debounce = new PauseTransition(Duration.millis(DEBOUNCE_MILLIS));
+    private long liveGeneration;
+    private CompletableFuture<Void> liveRequest;
 
     /**
      * Constructs a new SimpleQuery stage.
-     * Allow the user to do a simple query with one parameter in the WHERE of the query
+     * Allow the user to build a query from conditions on the fields of the books.
      *
      * @param primaryScene the primary scene to copy stylesheets from
      */
     public SimpleQuery(Scene primaryScene) {
-        Label label = new Label("Select field and and fill out the query\n SELECT * FROM BOOKS WHERE");
+        liveField.setPromptText("Search as you type");
+        liveField.textProperty().addListener((observable, oldText, newText) -> {
+            // Runs on every keystroke, so it only drops the lookup in flight and restarts the delay
+            cancelLiveSearch();
+            debounce.playFromStart();
+        });
+        debounce.setOnFinished(event -> startLiveSearch(liveField.getText().trim()));
+        liveResults.setPlaceholder(new Label("Type to search titles, authors and publishers"));
+        liveResults.setPrefHeight(200);
+        liveResults.getSelectionModel().selectedItemProperty().addListener((observable, oldItem, newItem) -> {
+            if (newItem != null && newItem.column() != null) {
+                showBooksOf(newItem.column(), newItem.value());
+            }
+        });
+        // Builds the completion index while the user starts typing
+        AsyncDatabase.submit(() -> Database.complete(BookColumn.TITLE, "", 1));
+
+        Label label = new Label("Add conditions and fill out the query\n SELECT ... FROM BOOKS WHERE");
 
-        String[] fields = {"Title", "Author", "Year", "Publisher"};
-        comboBox = new ComboBox<>(FXCollections.observableArrayList(fields));
-        textField = new TextField();
+        Button addButton = new Button("Add condition");
+        addButton.setOnAction(event -> addCondition());
+        addCondition();
+
+        matchBox = new ComboBox<>(FXCollections.observableArrayList("all conditions (AND)", "any condition (OR)"));
+        matchBox.getSelectionModel().selectFirst();
+
+        List<String> orderFields = new ArrayList<>();
+        orderFields.add("(none)");
+        orderFields.addAll(FIELDS.keySet());
+        orderBox = new ComboBox<>(FXCollections.observableArrayList(orderFields));
+        orderBox.getSelectionModel().selectFirst();
+        directionBox = new ComboBox<>(FXCollections.observableArrayList("ascending", "descending"));
+        directionBox.getSelectionModel().selectFirst();
+
+        limitField = new TextField("100");
+        limitField.setPrefColumnCount(6);
+
+        HBox columnsRow = new HBox(10);
+        for (Map.Entry<String, BookColumn> field : FIELDS.entrySet()) {
+            CheckBox checkBox = new CheckBox(field.getKey());
+            checkBox.setSelected(true);
+            columnBoxes.put(field.getValue(), checkBox);
+            columnsRow.getChildren().add(checkBox);
+        }
 
         Button sendButton = new Button("Send query");
         sendButton.setOnAction(event -> {
-            selectedField = comboBox.getSelectionModel().getSelectedItem();
-            data = textField.getText().trim();
-            if (selectedField != null && !data.isEmpty()) {
-                try {
-                    switch (selectedField) {
-                        case "Title":
-                            result = Database.findByTitle(data);
-                            break;
-                        case "Author":
-                            result = Database.findByAuthor(data);
-                            break;
-                        case "Year":
-                            result = Database.findByYear(Integer.parseInt(data));
-                            break;
-                        case "Publisher":
-                            result = Database.findByPublisher(data);
-                            break;
-
-                    }
+            QueryCall call;
+            try {
+                call = buildQuery();
+            } catch (IllegalArgumentException e) {
+                errorLabel.setText(e.getMessage());
+                return;
+            }
+            errorLabel.setText("");
+            description = call.description();
+            sendButton.setDisable(true);
+            pendingQuery = AsyncDatabase.submit(call.run());
+            pendingQuery.whenCompleteAsync((queryResult, error) -> {
+                sendButton.setDisable(false);
+                if (error != null) {
+                    error.printStackTrace();
+                    errorLabel.setText("Query failed: " + error.getMessage());
+                } else if (isShowing()) {
+                    result = queryResult;
                     isDone = true;
                     this.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
                 }
-            }
+            }, Platform::runLater);
         });
 
         Button cancelButton = new Button("Cancel");
-        cancelButton.setOnAction(event -> close());
+        cancelButton.setOnAction(event -> {
+            if (pendingQuery != null) {
+                pendingQuery.cancel(false);
+            }
+            close();
+        });
+        setOnHidden(event -> {
+            debounce.stop();
+            cancelLiveSearch();
+        });
 
         GridPane grid = new GridPane();
-        grid.addRow(0, label);
-        grid.addRow(1, comboBox,textField);
-        grid.addRow(2, sendButton, cancelButton);
+        grid.addRow(0, new Label("Live search:"), liveField);
+        grid.add(liveResults, 0, 1, 2, 1);
+        grid.add(label, 0, 2, 2, 1);
+        grid.add(conditionBox, 0, 3, 2, 1);
+        grid.addRow(4, addButton, matchBox);
+        grid.addRow(5, new Label("Order by:"), new HBox(10, orderBox, directionBox));
+        grid.addRow(6, new Label("Limit:"), limitField);
+        grid.addRow(7, new Label("Fields:"), columnsRow);
+        grid.add(errorLabel, 0, 8, 2, 1);
+        grid.addRow(9, sendButton, cancelButton);
 
         grid.setHgap(10);
         grid.setVgap(10);
 
         Scene scene = new Scene(grid);
         scene.getStylesheets().addAll(primaryScene.getStylesheets());
-        setMinWidth(400);
-        setMinHeight(400);
+        setMinWidth(600);
+        setMinHeight(600);
         setScene(scene);
-        setTitle("Delete Book");
+        setTitle("Query Books");
+    }
+
+    /**
+     * Cancels the live lookup in flight, if any. Its results, even those already on their way to the
+     * application thread, are dropped.
+     */
+    private void cancelLiveSearch() {
+        liveGeneration++;
+        if (liveRequest != null) {
+            liveRequest.cancel(false);
+            liveRequest = null;
+        }
+    }
+
+    /**
+     * Looks up the typed text once typing paused: first the completions of the title, author and
+     * publisher, shown as soon as they are found, then the books matching the text in the full-text
+     * index, added below them.
+     *
+     * @param text the text typed
+     */
+    private void startLiveSearch(String text) {
+        cancelLiveSearch();
+        liveResults.getItems().clear();
+        if (text.isEmpty()) {
+            return;
+        }
+        long generation = liveGeneration;
+        liveRequest = AsyncDatabase.submit(() -> {
+            List<LiveItem> completions = new ArrayList<>();
+            for (BookColumn column : COMPLETED_COLUMNS) {
+                for (String value : Database.complete(column, text, COMPLETION_LIMIT)) {
+                    completions.add(new LiveItem(column, value, label(column) + ": " + value));
+                }
+            }
+            publish(generation, completions);
+
+            if (text.length() >= LIVE_SEARCH_MIN_LENGTH) {
+                AsyncDatabase.checkCancelled();
+                publish(generation, books(Database.search(text, LIVE_RESULT_LIMIT)));
+            }
+            return null;
+        });
+        liveRequest.whenComplete((ignored, error) -> reportLiveError(error));
+    }
+
+    /**
+     * Shows the books whose column is equal to a completion the user picked.
+     *
+     * @param column the column of the completion
+     * @param value  the value of the completion
+     */
+    private void showBooksOf(BookColumn column, String value) {
+        cancelLiveSearch();
+        long generation = liveGeneration;
+        BookQuery query = BookQuery.where(BookFilter.equalTo(column, value)).orderBy(BookColumn.TITLE, true)
+                .limit(LIVE_RESULT_LIMIT);
+        liveRequest = AsyncDatabase.submit(() -> {
+            List<LiveItem> books = books(Database.findBooks(query));
+            // Replaced from here rather than from the selection listener, which must not change the items
+            Platform.runLater(() -> {
+                if (generation == liveGeneration) {
+                    liveResults.getItems().setAll(books);
+                }
+            });
+            return null;
+        });
+        liveRequest.whenComplete((ignored, error) -> reportLiveError(error));
+    }
+
+    /**
+     * Adds results of a live lookup to the list, on the application thread, unless a later keystroke
+     * superseded the lookup.
+     *
+     * @param generation the lookup the results belong to
+     * @param items      the results to add
+     */
+    private void publish(long generation, List<LiveItem> items) {
+        Platform.runLater(() -> {
+            if (generation == liveGeneration) {
+                liveResults.getItems().addAll(items);
+            }
+        });
+    }
+
+    private static List<LiveItem> books(List<Book> books) {
+        List<LiveItem> items = new ArrayList<>(books.size());
+        for (Book book : books) {
+            items.add(new LiveItem(null, null, book.describe()));
+        }
+        return items;
+    }
+
+    private static void reportLiveError(Throwable error) {
+        if (error != null && !(error instanceof CancellationException)) {
+            error.printStackTrace();
+        }
+    }
+
+    private static String label(BookColumn column) {
+        for (Map.Entry<String, BookColumn> field : FIELDS.entrySet()) {
+            if (field.getValue() == column) {
+                return field.getKey();
+            }
+        }
+        return column.columnName();
+    }
+
+    /**
+     * Adds a row for a condition: a field, an operator and a value.
+     */
+    private void addCondition() {
+        List<String> fields = new ArrayList<>(FIELDS.keySet());
+        fields.add(ANY_FIELD);
+        Condition condition = new Condition(new ComboBox<>(FXCollections.observableArrayList(fields)),
+                new ComboBox<>(FXCollections.observableArrayList(OPERATORS)), new TextField());
+        condition.operator().getSelectionModel().selectFirst();
+        condition.field().valueProperty().addListener((observable, oldField, newField) -> {
+            // The full-text search has its own operator
+            if (ANY_FIELD.equals(newField)) {
+                condition.operator().setItems(FXCollections.observableArrayList(MATCHES));
+                condition.operator().getSelectionModel().selectFirst();
+            } else if (ANY_FIELD.equals(oldField)) {
+                condition.operator().setItems(FXCollections.observableArrayList(OPERATORS));
+                condition.operator().getSelectionModel().selectFirst();
+            }
+        });
+        condition.operator().valueProperty().addListener((observable, oldOperator, newOperator) ->
+                condition.value().setPromptText(BETWEEN.equals(newOperator) ? "low..high"
+                        : IN.equals(newOperator) ? "value; value; ..." : ""));
+
+        Button removeButton = new Button("Remove");
+        HBox row = new HBox(10, condition.field(), condition.operator(), condition.value(), removeButton);
+        removeButton.setOnAction(event -> {
+            conditions.remove(condition);
+            conditionBox.getChildren().remove(row);
+        });
+        conditions.add(condition);
+        conditionBox.getChildren().add(row);
+    }
+
+    /**
+     * Builds the call running the query filled out in the dialog.
+     *
+     * @return the call and its description
+     * @throws IllegalArgumentException If a condition is incomplete or a value is not valid for its field.
+     */
+    private QueryCall buildQuery() {
+        BookFilter filter = null;
+        boolean all = matchBox.getSelectionModel().getSelectedIndex() == 0;
+        for (Condition condition : conditions) {
+            String field = condition.field().getValue();
+            String value = condition.value().getText().trim();
+            if (field == null || value.isEmpty()) {
+                throw new IllegalArgumentException("Choose a field and fill out a value for each condition");
+            }
+            if (field.equals(ANY_FIELD)) {
+                if (conditions.size() > 1) {
+                    throw new IllegalArgumentException(ANY_FIELD + " cannot be combined with other conditions");
+                }
+                return new QueryCall(ANY_FIELD + " matches " + value, () -> {
+                    StringBuilder books = new StringBuilder();
+                    for (Book book : Database.search(value, SEARCH_LIMIT)) {
+                        books.append(book.describe()).append("\n");
+                    }
+                    return books.toString();
+                });
+            }
+            BookFilter next = condition(FIELDS.get(field), condition.operator().getValue(), value);
+            filter = filter == null ? next : all ? filter.and(next) : filter.or(next);
+        }
+        if (filter == null) {
+            throw new IllegalArgumentException("Add at least one condition");
+        }
+
+        BookQuery query = BookQuery.where(filter);
+        String order = orderBox.getValue();
+        if (FIELDS.containsKey(order)) {
+            query = query.orderBy(FIELDS.get(order), directionBox.getSelectionModel().getSelectedIndex() == 0);
+        }
+        String limit = limitField.getText().trim();
+        if (!limit.isEmpty()) {
+            query = query.limit(parseInt("Limit", limit));
+        }
+        List<BookColumn> columns = new ArrayList<>();
+        for (Map.Entry<BookColumn, CheckBox> column : columnBoxes.entrySet()) {
+            if (column.getValue().isSelected()) {
+                columns.add(column.getKey());
+            }
+        }
+        query = query.select(columns.toArray(new BookColumn[0]));
+
+        BookQuery finalQuery = query;
+        return new QueryCall(query.toString(), () -> {
+            StringBuilder books = new StringBuilder();
+            for (Book book : Database.findBooks(finalQuery)) {
+                books.append(finalQuery.describe(book)).append("\n");
+            }
+            return books.toString();
+        });
+    }
+
+    /**
+     * Creates the filter of a condition.
+     *
+     * @param column   the column of the condition
+     * @param operator the comparison, "between" for a range written {@code low..high}, or "in" for a list
+     *                 of values separated by semicolons
+     * @param text     the value typed
+     * @return the filter
+     * @throws IllegalArgumentException If a value is not valid for the column.
+     */
+    private static BookFilter condition(BookColumn column, String operator, String text) {
+        return switch (operator) {
+            case BETWEEN -> {
+                int separator = text.indexOf("..");
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Write a range as low..high");
+                }
+                yield BookFilter.between(column, value(column, text.substring(0, separator)),
+                        value(column, text.substring(separator + 2)));
+            }
+            case IN -> {
+                List<Object> values = new ArrayList<>();
+                for (String value : text.split(";")) {
+                    if (!value.isBlank()) {
+                        values.add(value(column, value));
+                    }
+                }
+                yield BookFilter.in(column, values);
+            }
+            case "<>" -> BookFilter.notEqualTo(column, value(column, text));
+            case "<" -> BookFilter.lessThan(column, value(column, text));
+            case "<=" -> BookFilter.atMost(column, value(column, text));
+            case ">" -> BookFilter.greaterThan(column, value(column, text));
+            case ">=" -> BookFilter.atLeast(column, value(column, text));
+            default -> BookFilter.equalTo(column, value(column, text));
+        };
     }
 
+    private static Object value(BookColumn column, String text) {
+        return BookFilter.isNumeric(column) ? parseInt(column.columnName(), text.trim()) : text.trim();
+    }
+
+    private static int parseInt(String field, String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " must be a number: " + text);
+        }
+    }
 
     /**
      * Checks if the query execution is complete.
@@ -107,20 +461,34 @@ public class SimpleQuery extends Stage {
     }
 
     /**
-     * Retrieves the selected field for the query.
+     * Retrieves the query that was sent, as SQL with its values, or as the words searched in any field.
      *
-     * @return the selected field for the query (e.g., "Title", "Author", "Year", "Publisher")
+     * @return the description of the query
      */
-    public String getSelectedField() {
-        return selectedField;
+    public String getDescription() {
+        return description;
     }
 
     /**
-     * Retrieves the data entered for the selected field of the query.
-     *
-     * @return the data entered for the query
+     * A line of the live search results: a completion of a column, or a book when the column is null.
+     */
+    private record LiveItem(BookColumn column, String value, String text) {
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /**
+     * The controls of a condition row.
+     */
+    private record Condition(ComboBox<String> field, ComboBox<String> operator, TextField value) {
+    }
+
+    /**
+     * A query ready to run on the database executor, formatting the books found, and how it is shown in
+     * the log.
      */
-    public String getData() {
-        return data;
+    private record QueryCall(String description, Callable<String> run) {
     }
 }
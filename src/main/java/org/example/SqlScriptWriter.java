@@ -0,0 +1,161 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes books as a SQL script of multi-row INSERT statements, optionally gzip compressed.
+ * IDs to delete are grouped in DELETE statements the same way.
+ *
+ * Rows are appended to a large buffer over the file channel and each statement holds up to the given
+ * number of rows, so that the script is both fast to write and fast to run.
+ */
+class SqlScriptWriter implements Closeable {
+    private static final String INSERT_PREFIX =
+            "INSERT INTO BOOKS (ID, TITLE, AUTHOR, PUBLISHER, PUBLICATION_YEAR, SYNOPSIS) VALUES\n";
+    private static final String DELETE_PREFIX = "DELETE FROM BOOKS WHERE ID IN (";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer writer;
+    private final int rowsPerStatement;
+    private int rowsInStatement;
+    private boolean deleting;
+
+    /**
+     * Opens the script file, replacing its content.
+     *
+     * @param file             the file to write
+     * @param rowsPerStatement maximum number of rows of each INSERT statement
+     * @param compress         whether to gzip the script
+     * @throws IOException If the file cannot be opened.
+     */
+    SqlScriptWriter(Path file, int rowsPerStatement, boolean compress) throws IOException {
+        if (rowsPerStatement < 1) {
+            throw new IllegalArgumentException("Rows per statement must be at least 1");
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        OutputStream out = Files.newOutputStream(file);
+        if (compress) {
+            try {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            } catch (IOException e) {
+                // The gzip header is written right away; failing to write it must not leak the file
+                out.close();
+                throw e;
+            }
+        }
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.rowsPerStatement = rowsPerStatement;
+    }
+
+    /**
+     * Appends a book to the current INSERT statement, starting a new statement when it is full.
+     *
+     * @param book the book to write
+     * @throws IOException If there is an issue with writing to the file.
+     */
+    void write(Book book) throws IOException {
+        if (deleting) {
+            endStatement();
+        }
+        if (rowsInStatement == 0) {
+            writer.write(INSERT_PREFIX);
+        } else {
+            writer.write(",\n");
+        }
+        writer.write('(');
+        writer.write(Integer.toString(book.id()));
+        writer.write(", ");
+        writeString(book.title());
+        writer.write(", ");
+        writeString(book.author());
+        writer.write(", ");
+        writeString(book.publisher());
+        writer.write(", ");
+        writer.write(Integer.toString(book.year()));
+        writer.write(", ");
+        writeString(book.synopsis());
+        writer.write(')');
+
+        if (++rowsInStatement == rowsPerStatement) {
+            endStatement();
+        }
+    }
+
+    /**
+     * Appends an ID to the current DELETE statement, starting a new statement when it is full.
+     *
+     * @param id the ID of the book to delete
+     * @throws IOException If there is an issue with writing to the file.
+     */
+    void delete(int id) throws IOException {
+        if (!deleting) {
+            endStatement();
+        }
+        if (rowsInStatement == 0) {
+            writer.write(DELETE_PREFIX);
+            deleting = true;
+        } else {
+            writer.write(", ");
+        }
+        writer.write(Integer.toString(id));
+
+        if (++rowsInStatement == rowsPerStatement) {
+            endStatement();
+        }
+    }
+
+    /**
+     * Writes a SQL string literal, doubling the quotes, or NULL.
+     */
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writer.write("NULL");
+            return;
+        }
+        writer.write('\'');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '\'') {
+                writer.write(value, start, i - start + 1);
+                writer.write('\'');
+                start = i + 1;
+            }
+        }
+        writer.write(value, start, value.length() - start);
+        writer.write('\'');
+    }
+
+    private void endStatement() throws IOException {
+        if (rowsInStatement > 0) {
+            writer.write(deleting ? ");\n" : ";\n");
+            rowsInStatement = 0;
+        }
+        deleting = false;
+    }
+
+    /**
+     * Ends the current statement and closes the file.
+     *
+     * @throws IOException If there is an issue with writing to the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            endStatement();
+        } finally {
+            writer.close();
+        }
+    }
+}
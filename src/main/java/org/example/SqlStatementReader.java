@@ -0,0 +1,133 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits a SQL script into statements while reading it, without loading the whole script.
+ *
+ * Statements end with a semicolon outside of string literals, quoted identifiers and comments.
+ * Comments are dropped from the returned statements, each replaced with a space so that the tokens around
+ * it stay apart.
+ */
+class SqlStatementReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    /**
+     * Creates a statement reader over a script.
+     *
+     * @param reader the script to read, closed with this reader
+     */
+    SqlStatementReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next statement of the script.
+     *
+     * @return the statement without its semicolon, or null at the end of the script
+     * @throws IOException If there is an issue with reading the script.
+     */
+    String next() throws IOException {
+        StringBuilder statement = new StringBuilder(256);
+        int c;
+        while ((c = read()) >= 0) {
+            if (c == '\'' || c == '"') {
+                statement.append((char) c);
+                copyQuoted(statement, (char) c);
+            } else if (c == '-' && peek() == '-') {
+                skipLine();
+                statement.append(' ');
+            } else if (c == '/' && peek() == '*') {
+                read();
+                skipBlockComment();
+                statement.append(' ');
+            } else if (c == ';') {
+                if (!isBlank(statement)) {
+                    return statement.toString().strip();
+                }
+                statement.setLength(0);
+            } else {
+                statement.append((char) c);
+            }
+        }
+        return isBlank(statement) ? null : statement.toString().strip();
+    }
+
+    /**
+     * Copies a quoted literal up to its closing quote. A doubled quote is an escaped quote.
+     */
+    private void copyQuoted(StringBuilder statement, char quote) throws IOException {
+        int c;
+        while ((c = read()) >= 0) {
+            statement.append((char) c);
+            if (c == quote) {
+                if (peek() != quote) {
+                    return;
+                }
+                statement.append((char) read());
+            }
+        }
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c >= 0 && c != '\n');
+    }
+
+    private void skipBlockComment() throws IOException {
+        int c;
+        while ((c = read()) >= 0) {
+            if (c == '*' && peek() == '/') {
+                read();
+                return;
+            }
+        }
+    }
+
+    private static boolean isBlank(StringBuilder text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        limit = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
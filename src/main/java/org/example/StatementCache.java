@@ -0,0 +1,90 @@
+package org.example;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of prepared statements for a single connection, keyed by SQL text.
+ *
+ * The cached statements stay open while they are in the cache; the least recently used one is
+ * closed when the cache is full. The cache is not thread-safe, it relies on the connection being
+ * borrowed by one thread at a time.
+ */
+class StatementCache {
+    private final Connection connection;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+    private final Counters counters;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param connection the connection the statements are prepared on
+     * @param capacity   maximum number of statements kept open
+     * @param counters   hit, miss and eviction counters shared by the caches of a pool
+     */
+    StatementCache(Connection connection, int capacity, Counters counters) {
+        this.connection = connection;
+        this.counters = counters;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > capacity) {
+                    counters.evictions.increment();
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Retrieves the cached statement for the SQL text, preparing it on a miss.
+     *
+     * @param sql the SQL text of the statement
+     * @return an open prepared statement, which must not be closed by the caller
+     * @throws SQLException If there is an issue with preparing the statement.
+     */
+    PreparedStatement get(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement != null && !statement.isClosed()) {
+            counters.hits.increment();
+            return statement;
+        }
+        counters.misses.increment();
+        statement = connection.prepareStatement(sql);
+        statements.put(sql, statement);
+        return statement;
+    }
+
+    /**
+     * Closes every cached statement and empties the cache.
+     */
+    void clear() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Counters shared by all the statement caches of a pool.
+     */
+    static class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+    }
+}
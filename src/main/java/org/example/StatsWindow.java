@@ -0,0 +1,101 @@
+package org.example;
+
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+
+import java.util.function.Function;
+
+/**
+ * Window showing the {@link DatabaseMetrics} of each database operation: calls, errors, latency
+ * percentiles and rows per call. The table refreshes every second while the window is open.
+ */
+public class StatsWindow extends Stage {
+
+    private final TableView<OperationStats> table = new TableView<>();
+    private final Label thresholdLabel = new Label();
+    private final Timeline refresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> refresh()));
+
+    /**
+     * Constructs a new StatsWindow stage.
+     *
+     * @param primaryScene the primary scene to copy stylesheets from
+     */
+    public StatsWindow(Scene primaryScene) {
+        table.getColumns().add(column("Operation", 160, OperationStats::getOperation));
+        table.getColumns().add(column("Calls", 70, OperationStats::getCount));
+        table.getColumns().add(column("Errors", 60, OperationStats::getErrors));
+        table.getColumns().add(column("p50 (µs)", 80, OperationStats::getP50Micros));
+        table.getColumns().add(column("p99 (µs)", 80, OperationStats::getP99Micros));
+        table.getColumns().add(column("p99.9 (µs)", 85, OperationStats::getP999Micros));
+        table.getColumns().add(column("Max (µs)", 85, OperationStats::getMaxMicros));
+        table.getColumns().add(column("Rows/call", 80, stats -> String.format("%.1f", stats.getMeanRows())));
+        table.getColumns().add(column("Max rows", 80, OperationStats::getMaxRows));
+        table.setPlaceholder(new Label("No database operation yet."));
+        VBox.setVgrow(table, Priority.ALWAYS);
+
+        Button refreshButton = new Button("Refresh");
+        refreshButton.setOnAction(event -> refresh());
+
+        Button resetButton = new Button("Reset");
+        resetButton.setOnAction(event -> {
+            DatabaseMetrics.reset();
+            refresh();
+        });
+
+        Button closeButton = new Button("Close");
+        closeButton.setOnAction(event -> close());
+
+        GridPane grid = new GridPane();
+        grid.addRow(0, refreshButton, resetButton, closeButton);
+        grid.setHgap(10);
+
+        VBox vbox = new VBox();
+        vbox.getChildren().addAll(table, thresholdLabel, grid);
+        vbox.setSpacing(10);
+
+        Scene scene = new Scene(vbox);
+        scene.getStylesheets().addAll(primaryScene.getStylesheets());
+        setMinWidth(800);
+        setMinHeight(400);
+        setScene(scene);
+        setTitle("Database Stats");
+
+        refresh();
+        refresh.setCycleCount(Animation.INDEFINITE);
+        setOnShown(event -> refresh.play());
+        setOnHidden(event -> refresh.stop());
+    }
+
+    /**
+     * Creates a read-only column showing one statistic of the operations.
+     */
+    private static <T> TableColumn<OperationStats, T> column(String title, double width,
+                                                            Function<OperationStats, T> field) {
+        TableColumn<OperationStats, T> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(field.apply(cell.getValue())));
+        column.setPrefWidth(width);
+        return column;
+    }
+
+    /**
+     * Reads the current statistics into the table.
+     */
+    private void refresh() {
+        table.setItems(FXCollections.observableArrayList(DatabaseMetrics.getStats()));
+        thresholdLabel.setText("Operations slower than " + DatabaseMetrics.getSlowQueryThresholdMillis()
+                + " ms are logged as warnings.");
+    }
+}
@@ -0,0 +1,140 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only store of strings in direct memory, outside the Java heap.
+ *
+ * Each string is written as a 4-byte length followed by its UTF-8 bytes into chunks of
+ * {@value #CHUNK_SIZE} bytes allocated with {@link ByteBuffer#allocateDirect(int)}, and is referred to
+ * by its offset in the arena. The garbage collector never scans or copies the text, and a reference
+ * costs a long in the rows instead of a String object. Freed strings leave garbage behind until the
+ * arena is copied to a new one with {@link #compactInto(TextArena, long)}; the chunks of the old arena
+ * are released when the buffers are garbage collected.
+ *
+ * Not thread-safe: readers may run concurrently only while no thread writes. Reads use absolute
+ * buffer positions, so they do not interfere with each other.
+ */
+class TextArena {
+    /**
+     * Size of each chunk of direct memory, and so the longest string the arena can hold.
+     */
+    static final int CHUNK_SIZE = 1 << 24;
+    /**
+     * Reference standing for a null string.
+     */
+    static final long NULL = -1;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private long end;
+    private long garbage;
+
+    /**
+     * Appends a string.
+     *
+     * @param text the string, may be null
+     * @return the reference of the string, {@link #NULL} for null
+     * @throws IllegalArgumentException If the encoded string does not fit in a chunk.
+     */
+    long add(String text) {
+        if (text == null) {
+            return NULL;
+        }
+        return append(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a string.
+     *
+     * @param reference the reference returned by {@link #add(String)}
+     * @return the string, or null for {@link #NULL}
+     */
+    String get(long reference) {
+        if (reference == NULL) {
+            return null;
+        }
+        return new String(bytes(reference), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Marks a string as garbage. Its bytes are reclaimed by the next compaction.
+     *
+     * @param reference the reference of the string, may be {@link #NULL}
+     */
+    void free(long reference) {
+        if (reference != NULL) {
+            garbage += Integer.BYTES + chunk(reference).getInt((int) (reference % CHUNK_SIZE));
+        }
+    }
+
+    /**
+     * Copies a string of this arena into another one, without decoding it.
+     *
+     * @param target    the arena to copy the string to
+     * @param reference the reference of the string in this arena, may be {@link #NULL}
+     * @return the reference of the copy in the target arena
+     */
+    long compactInto(TextArena target, long reference) {
+        if (reference == NULL) {
+            return NULL;
+        }
+        return target.append(bytes(reference));
+    }
+
+    /**
+     * Checks whether most of the arena is garbage, so that copying the live strings to a new arena
+     * would release more memory than it copies.
+     *
+     * @return true if more than half of the bytes written are garbage, past the first chunk
+     */
+    boolean needsCompaction() {
+        return end > CHUNK_SIZE && garbage > end / 2;
+    }
+
+    /**
+     * Retrieves the direct memory held by the arena.
+     *
+     * @return the size of the allocated chunks, in bytes
+     */
+    long allocatedBytes() {
+        return (long) chunks.size() * CHUNK_SIZE;
+    }
+
+    private ByteBuffer chunk(long reference) {
+        return chunks.get((int) (reference / CHUNK_SIZE));
+    }
+
+    private byte[] bytes(long reference) {
+        ByteBuffer chunk = chunk(reference);
+        int position = (int) (reference % CHUNK_SIZE);
+        byte[] bytes = new byte[chunk.getInt(position)];
+        chunk.get(position + Integer.BYTES, bytes);
+        return bytes;
+    }
+
+    private long append(byte[] bytes) {
+        int size = Integer.BYTES + bytes.length;
+        if (size > CHUNK_SIZE) {
+            throw new IllegalArgumentException("String of " + bytes.length + " bytes does not fit in the arena");
+        }
+        int position = (int) (end % CHUNK_SIZE);
+        if (position + size > CHUNK_SIZE) {
+            // The tail of the full chunk stays unused
+            garbage += CHUNK_SIZE - position;
+            end += CHUNK_SIZE - position;
+            position = 0;
+        }
+        if (end / CHUNK_SIZE == chunks.size()) {
+            chunks.add(ByteBuffer.allocateDirect(CHUNK_SIZE));
+        }
+        ByteBuffer chunk = chunk(end);
+        chunk.putInt(position, bytes.length);
+        chunk.put(position + Integer.BYTES, bytes);
+        long reference = end;
+        end += size;
+        return reference;
+    }
+}
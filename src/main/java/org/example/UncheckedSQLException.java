@@ -0,0 +1,30 @@
+package org.example;
+
+import java.sql.SQLException;
+
+/**
+ * Wraps a {@link SQLException} thrown where checked exceptions are not allowed,
+ * such as while a stream of rows is being consumed.
+ */
+public class UncheckedSQLException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new UncheckedSQLException.
+     *
+     * @param cause the SQL exception to wrap
+     */
+    public UncheckedSQLException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    /**
+     * Retrieves the wrapped SQL exception.
+     *
+     * @return the cause of this exception
+     */
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -6,3 +6,10 @@ CREATE TABLE IF NOT EXISTS "BOOKS" (
     "PUBLICATION_YEAR" INTEGER NOT NULL,
     "SYNOPSIS" VARCHAR(255)
     );
+
+-- Secondary indexes used by the Database.find* lookups.
+-- The script runs at every launch, so databases created before an index was added get it too.
+CREATE INDEX IF NOT EXISTS "IDX_BOOKS_TITLE" ON "BOOKS" ("TITLE");
+CREATE INDEX IF NOT EXISTS "IDX_BOOKS_AUTHOR" ON "BOOKS" ("AUTHOR");
+CREATE INDEX IF NOT EXISTS "IDX_BOOKS_PUBLISHER" ON "BOOKS" ("PUBLISHER");
+CREATE INDEX IF NOT EXISTS "IDX_BOOKS_PUBLICATION_YEAR" ON "BOOKS" ("PUBLICATION_YEAR");
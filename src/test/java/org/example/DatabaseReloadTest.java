@@ -0,0 +1,60 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DatabaseReloadTest {
+    private static final String SCRIPT = """
+            INSERT INTO BOOKS (ID, TITLE, AUTHOR, PUBLISHER, PUBLICATION_YEAR, SYNOPSIS) VALUES (1, '1984', 'George Orwell', 'Secker & Warburg', 1949, 'Surveillance.');
+            INSERT INTO BOOKS (ID, TITLE, AUTHOR, PUBLISHER, PUBLICATION_YEAR, SYNOPSIS) VALUES (2, 'Animal Farm', 'George Orwell', 'Secker & Warburg', 1945, 'A fable.');
+            """;
+
+    private final String engine = Database.engine;
+    private Path script;
+
+    @BeforeEach
+    void writeScript() throws IOException {
+        script = Files.createTempFile("books", ".sql");
+        Files.writeString(script, SCRIPT);
+    }
+
+    @AfterEach
+    void restoreEngine() throws SQLException, IOException {
+        Database.closeDatabase();
+        Database.engine = engine;
+        Files.deleteIfExists(script);
+    }
+
+    @Test
+    void reloadReplacesBooksWithH2() throws SQLException {
+        reloadTwice("h2");
+    }
+
+    @Test
+    void reloadReplacesBooksInMemory() throws SQLException {
+        reloadTwice("memory");
+    }
+
+    private void reloadTwice(String engine) throws SQLException {
+        Database.engine = engine;
+        Database.launchDatabase(script.toString());
+        Database.addBook(3, "Homage to Catalonia", "George Orwell", "Secker & Warburg", 1938, null);
+
+        assertEquals(2, Database.launchDatabase(script.toString()).rows());
+        assertEquals(2, Database.launchDatabase(script.toString()).rows());
+
+        assertEquals(List.of(1, 2), Database.listBooks(10).stream().map(Book::id).toList());
+        assertEquals(2, Database.getBookSummary().books());
+        assertEquals(2, Database.countBooks(BookGrouping.AUTHOR, "George Orwell"));
+        assertEquals(script.toAbsolutePath(), Database.getSaveBase());
+    }
+}
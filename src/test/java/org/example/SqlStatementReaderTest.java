@@ -0,0 +1,46 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SqlStatementReaderTest {
+
+    @Test
+    void keepsTokensApartAroundBlockComment() throws IOException {
+        assertEquals(List.of("INSERT INTO BOOKS VALUES (1)"), statements("INSERT/*x*/INTO BOOKS VALUES (1);"));
+    }
+
+    @Test
+    void keepsTokensApartAroundLineComment() throws IOException {
+        assertEquals(List.of("INSERT INTO BOOKS VALUES (1)"), statements("INSERT INTO BOOKS-- note\nVALUES (1);"));
+    }
+
+    @Test
+    void keepsCommentMarkersInsideLiterals() throws IOException {
+        assertEquals(List.of("INSERT INTO BOOKS VALUES ('a--b', '/*c*/', 'it''s')"),
+                statements("INSERT INTO BOOKS VALUES ('a--b', '/*c*/', 'it''s');"));
+    }
+
+    @Test
+    void splitsOnSemicolonsOutsideComments() throws IOException {
+        assertEquals(List.of("DELETE FROM BOOKS", "SELECT 1"),
+                statements("-- header;\nDELETE FROM BOOKS; /* ; */ ;\nSELECT 1"));
+    }
+
+    private static List<String> statements(String script) throws IOException {
+        List<String> statements = new ArrayList<>();
+        try (SqlStatementReader reader = new SqlStatementReader(new StringReader(script))) {
+            String statement;
+            while ((statement = reader.next()) != null) {
+                statements.add(statement);
+            }
+        }
+        return statements;
+    }
+}